@@ -0,0 +1,232 @@
+package org.bukkit.craftbukkit;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.UnsafeValues;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.plugin.PluginManager;
+
+/**
+ * A stand-in {@link Server} so Foundation classes can be loaded outside of a real server.
+ *
+ * The stub lives in the org.bukkit.craftbukkit package so MinecraftVersion reads it
+ * as an unversioned CraftBukkit build. Version-specific paths relying on server
+ * internals, such as NBT comparison or RGB colors, thus take their legacy fallbacks
+ * and benchmarks measure Foundation's own code rather than the server.
+ *
+ * Methods we do not care about return null, zero, false or empty collections.
+ */
+public final class BenchmarkServer {
+
+	/**
+	 * Proxies of non-public interfaces are defined in their package, we rely on that
+	 * to control what Bukkit.getServer().getClass().getPackage() returns
+	 */
+	interface InPackage {
+	}
+
+	private static boolean installed = false;
+
+	private BenchmarkServer() {
+	}
+
+	/**
+	 * Install the stub server into Bukkit if not yet done
+	 */
+	public static synchronized void install() {
+		if (installed || Bukkit.getServer() != null)
+			return;
+
+		final Logger logger = Logger.getLogger("Benchmark");
+
+		final ItemFactory itemFactory = stub(ItemFactory.class, (method, args) -> {
+
+			// ItemFactory#equals(ItemMeta, ItemMeta), items in benchmarks have no meta
+			if ("equals".equals(method.getName()) && args != null && args.length == 2)
+				return args[0] == args[1];
+
+			if ("asMetaFor".equals(method.getName()))
+				return args[0];
+
+			return null;
+		});
+
+		final UnsafeValues unsafe = stub(UnsafeValues.class, (method, args) -> {
+			if ("toLegacy".equals(method.getName()) && args.length == 1 && args[0] instanceof Material)
+				return toLegacy((Material) args[0]);
+
+			if ("fromLegacy".equals(method.getName()) && args.length == 1 && args[0] instanceof Material)
+				return args[0];
+
+			return null;
+		});
+
+		final PluginManager pluginManager = stub(PluginManager.class, (method, args) -> null);
+
+		final ConsoleCommandSender console = stub(ConsoleCommandSender.class, (method, args) -> {
+			switch (method.getName()) {
+				case "getName":
+					return "CONSOLE";
+
+				case "isOp":
+				case "hasPermission":
+					return true;
+
+				default:
+					return null;
+			}
+		});
+
+		final Server server = stub(Server.class, (method, args) -> {
+			switch (method.getName()) {
+				case "getName":
+					return "Benchmark";
+
+				case "getVersion":
+					return "git-Benchmark (MC: 1.20.4)";
+
+				case "getBukkitVersion":
+					return "1.20.4-R0.1-SNAPSHOT";
+
+				case "getLogger":
+					return logger;
+
+				case "getItemFactory":
+					return itemFactory;
+
+				case "getUnsafe":
+					return unsafe;
+
+				case "getPluginManager":
+					return pluginManager;
+
+				case "getConsoleSender":
+					return console;
+
+				case "isPrimaryThread":
+					return true;
+
+				default:
+					return null;
+			}
+		});
+
+		Bukkit.setServer(server);
+		installed = true;
+	}
+
+	/*
+	 * Return the legacy counterpart of a modern material, or the material itself
+	 */
+	private static Material toLegacy(Material material) {
+		if (material.isLegacy())
+			return material;
+
+		final Material legacy = Material.getMaterial(Material.LEGACY_PREFIX + material.name());
+
+		return legacy != null ? legacy : Material.LEGACY_STONE;
+	}
+
+	/*
+	 * Create a proxy of the given interface defined in this package
+	 */
+	private static <T> T stub(Class<T> type, Handler handler) {
+		return stub(type, InPackage.class, handler);
+	}
+
+	/**
+	 * Create a proxy of the given interface answering with the handler,
+	 * falling back to default values when the handler returns null.
+	 *
+	 * The proxy class is defined in the package of the given anchor, which
+	 * must be a non-public interface.
+	 *
+	 * @param <T>
+	 * @param type
+	 * @param anchor
+	 * @param handler
+	 * @return
+	 */
+	public static <T> T stub(Class<T> type, Class<?> anchor, Handler handler) {
+		final Object proxy = Proxy.newProxyInstance(anchor.getClassLoader(), new Class<?>[] { type, anchor }, (instance, method, args) -> {
+			if (method.getDeclaringClass() == Object.class)
+				switch (method.getName()) {
+					case "hashCode":
+						return System.identityHashCode(instance);
+
+					case "equals":
+						return instance == args[0];
+
+					default:
+						return type.getSimpleName() + "Stub";
+				}
+
+			final Object result = handler.handle(method, args);
+
+			return result != null ? result : defaultValue(method.getReturnType());
+		});
+
+		return type.cast(proxy);
+	}
+
+	/*
+	 * The value we return for methods we do not stub
+	 */
+	private static Object defaultValue(Class<?> type) {
+		if (type == boolean.class)
+			return false;
+
+		if (type == int.class)
+			return 0;
+
+		if (type == long.class)
+			return 0L;
+
+		if (type == double.class)
+			return 0D;
+
+		if (type == float.class)
+			return 0F;
+
+		if (type == short.class)
+			return (short) 0;
+
+		if (type == byte.class)
+			return (byte) 0;
+
+		if (type == char.class)
+			return (char) 0;
+
+		if (type == List.class || type == Collection.class)
+			return Collections.emptyList();
+
+		if (type == Set.class)
+			return Collections.emptySet();
+
+		if (type == Map.class)
+			return Collections.emptyMap();
+
+		if (type.isArray())
+			return java.lang.reflect.Array.newInstance(type.getComponentType(), 0);
+
+		return null;
+	}
+
+	/**
+	 * Answers calls to a stubbed interface
+	 */
+	public interface Handler {
+		Object handle(Method method, Object[] args) throws Throwable;
+	}
+}
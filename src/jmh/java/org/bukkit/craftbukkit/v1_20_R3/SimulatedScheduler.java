@@ -0,0 +1,251 @@
+package org.bukkit.craftbukkit.v1_20_R3;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import org.bukkit.plugin.Plugin;
+import org.bukkit.scheduler.BukkitScheduler;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * A {@link BukkitScheduler} whose sync tasks only run when the simulation calls {@link #tick()}
+ * on its main thread. Async tasks run on a small pool of daemon threads.
+ */
+final class SimulatedScheduler {
+
+	/**
+	 * The id given to the next task
+	 */
+	private final AtomicInteger nextId = new AtomicInteger(1);
+
+	/**
+	 * Pending and repeating tasks by their id
+	 */
+	private final Map<Integer, Task> tasks = new ConcurrentHashMap<>();
+
+	/**
+	 * Runs async tasks
+	 */
+	private final ExecutorService asyncExecutor = Executors.newFixedThreadPool(4, runnable -> {
+		final Thread thread = new Thread(runnable, "Simulation Async Worker");
+
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * Logs exceptions thrown by tasks, like the server does
+	 */
+	private final Logger logger;
+
+	/**
+	 * The scheduler returned from Bukkit.getScheduler()
+	 */
+	private final BukkitScheduler scheduler;
+
+	/**
+	 * How many ticks have passed
+	 */
+	private volatile long currentTick = 0;
+
+	SimulatedScheduler(Logger logger) {
+		this.logger = logger;
+		this.scheduler = SimulatedServer.stub(BukkitScheduler.class, this::handle);
+	}
+
+	/**
+	 * Return the Bukkit facing scheduler
+	 */
+	BukkitScheduler getScheduler() {
+		return this.scheduler;
+	}
+
+	/**
+	 * Return how many ticks have passed
+	 */
+	long getCurrentTick() {
+		return this.currentTick;
+	}
+
+	/**
+	 * Run all sync tasks due this tick in the order they were scheduled
+	 * and hand due async tasks over to the pool
+	 */
+	void tick() {
+		final long tick = ++this.currentTick;
+		final List<Task> due = new ArrayList<>();
+
+		for (final Task task : this.tasks.values())
+			if (task.nextRun <= tick)
+				due.add(task);
+
+		due.sort(Comparator.comparingInt(task -> task.id));
+
+		for (final Task task : due) {
+			if (task.cancelled)
+				continue;
+
+			if (task.period > 0)
+				task.nextRun = tick + task.period;
+			else
+				this.tasks.remove(task.id);
+
+			if (task.async)
+				this.asyncExecutor.execute(task::run);
+			else
+				task.run();
+		}
+	}
+
+	/**
+	 * Cancel all tasks and stop the async pool
+	 */
+	void shutdown() throws InterruptedException {
+		this.cancelAll();
+
+		this.asyncExecutor.shutdown();
+		this.asyncExecutor.awaitTermination(5, TimeUnit.SECONDS);
+	}
+
+	/*
+	 * Answer calls to BukkitScheduler. All run and schedule methods take the plugin,
+	 * the task and then optionally the delay and the period.
+	 */
+	private Object handle(Method method, Object[] args) {
+		final String name = method.getName();
+
+		if ("cancelTask".equals(name)) {
+			this.cancel((Integer) args[0]);
+
+			return null;
+		}
+
+		if ("cancelTasks".equals(name)) {
+			this.cancelAll();
+
+			return null;
+		}
+
+		if ("isQueued".equals(name) || "isCurrentlyRunning".equals(name))
+			return this.tasks.containsKey(args[0]);
+
+		if (!name.startsWith("run") && !name.startsWith("schedule") || args.length < 2 || !(args[1] instanceof Runnable || args[1] instanceof Consumer))
+			return null;
+
+		final long delay = args.length > 2 ? (Long) args[2] : 0;
+		final long period = args.length > 3 ? Math.max(1, (Long) args[3]) : -1;
+		final Task task = new Task(this.nextId.getAndIncrement(), (Plugin) args[0], args[1], name.contains("Async"), period);
+
+		// Like the server, async tasks without a delay start right away, everything else waits for a tick
+		if (task.async && delay <= 0 && period < 0)
+			this.asyncExecutor.execute(task::run);
+
+		else {
+			task.nextRun = this.currentTick + Math.max(1, delay);
+
+			this.tasks.put(task.id, task);
+		}
+
+		if (method.getReturnType() == int.class)
+			return task.id;
+
+		if (method.getReturnType() == BukkitTask.class)
+			return task.handle;
+
+		return null;
+	}
+
+	/*
+	 * Cancel the task with the given id
+	 */
+	private void cancel(int taskId) {
+		final Task task = this.tasks.remove(taskId);
+
+		if (task != null)
+			task.cancelled = true;
+	}
+
+	/*
+	 * Cancel all pending and repeating tasks
+	 */
+	private void cancelAll() {
+		for (final Task task : this.tasks.values())
+			task.cancelled = true;
+
+		this.tasks.clear();
+	}
+
+	/*
+	 * A scheduled task
+	 */
+	private final class Task {
+
+		private final int id;
+		private final Plugin owner;
+		private final Object body;
+		private final boolean async;
+		private final long period;
+		private final BukkitTask handle;
+
+		private volatile long nextRun;
+		private volatile boolean cancelled;
+
+		Task(int id, Plugin owner, Object body, boolean async, long period) {
+			this.id = id;
+			this.owner = owner;
+			this.body = body;
+			this.async = async;
+			this.period = period;
+			this.handle = SimulatedServer.stub(BukkitTask.class, this::answer);
+		}
+
+		@SuppressWarnings("unchecked")
+		void run() {
+			try {
+				if (this.body instanceof Runnable)
+					((Runnable) this.body).run();
+				else
+					((Consumer<BukkitTask>) this.body).accept(this.handle);
+
+			} catch (final Throwable t) {
+				SimulatedScheduler.this.logger.log(Level.WARNING, "Task #" + this.id + " generated an exception", t);
+			}
+		}
+
+		private Object answer(Method method, Object[] args) {
+			switch (method.getName()) {
+				case "getTaskId":
+					return this.id;
+
+				case "getOwner":
+					return this.owner;
+
+				case "isSync":
+					return !this.async;
+
+				case "isCancelled":
+					return this.cancelled;
+
+				case "cancel":
+					SimulatedScheduler.this.cancel(this.id);
+					this.cancelled = true;
+
+					return null;
+
+				default:
+					return null;
+			}
+		}
+	}
+}
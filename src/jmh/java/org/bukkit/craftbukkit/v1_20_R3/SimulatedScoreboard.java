@@ -0,0 +1,322 @@
+package org.bukkit.craftbukkit.v1_20_R3;
+
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.bukkit.OfflinePlayer;
+import org.bukkit.scoreboard.DisplaySlot;
+import org.bukkit.scoreboard.Objective;
+import org.bukkit.scoreboard.Score;
+import org.bukkit.scoreboard.Scoreboard;
+import org.bukkit.scoreboard.Team;
+
+/**
+ * A {@link Scoreboard} keeping its objectives, teams and scores in memory
+ * so scoreboard rendering does the same lookups and updates as on a real server.
+ */
+final class SimulatedScoreboard {
+
+	/**
+	 * Objectives by their name
+	 */
+	private final Map<String, ObjectiveState> objectives = new LinkedHashMap<>();
+
+	/**
+	 * Teams by their name
+	 */
+	private final Map<String, TeamState> teams = new LinkedHashMap<>();
+
+	/**
+	 * The scoreboard handed to Bukkit
+	 */
+	private final Scoreboard scoreboard;
+
+	SimulatedScoreboard() {
+		this.scoreboard = SimulatedServer.stub(Scoreboard.class, this::handle);
+	}
+
+	/**
+	 * Return the Bukkit facing scoreboard
+	 */
+	Scoreboard getScoreboard() {
+		return this.scoreboard;
+	}
+
+	/*
+	 * Answer calls to Scoreboard
+	 */
+	private Object handle(Method method, Object[] args) {
+		switch (method.getName()) {
+			case "registerNewObjective": {
+				final String name = (String) args[0];
+
+				if (this.objectives.containsKey(name))
+					throw new IllegalArgumentException("An objective of name '" + name + "' already exists");
+
+				final ObjectiveState objective = new ObjectiveState(name);
+				this.objectives.put(name, objective);
+
+				return objective.objective;
+			}
+
+			case "getObjective": {
+				if (args[0] instanceof DisplaySlot) {
+					for (final ObjectiveState objective : this.objectives.values())
+						if (objective.displaySlot == args[0])
+							return objective.objective;
+
+					return null;
+				}
+
+				final ObjectiveState objective = this.objectives.get(args[0]);
+
+				return objective != null ? objective.objective : null;
+			}
+
+			case "getObjectives": {
+				final Set<Objective> objectives = new HashSet<>();
+
+				for (final ObjectiveState objective : this.objectives.values())
+					objectives.add(objective.objective);
+
+				return objectives;
+			}
+
+			case "registerNewTeam": {
+				final String name = (String) args[0];
+
+				if (this.teams.containsKey(name))
+					throw new IllegalArgumentException("Team name '" + name + "' is already in use");
+
+				final TeamState team = new TeamState(name);
+				this.teams.put(name, team);
+
+				return team.team;
+			}
+
+			case "getTeam": {
+				final TeamState team = this.teams.get(args[0]);
+
+				return team != null ? team.team : null;
+			}
+
+			case "getTeams": {
+				final Set<Team> teams = new HashSet<>();
+
+				for (final TeamState team : this.teams.values())
+					teams.add(team.team);
+
+				return teams;
+			}
+
+			case "getEntries": {
+				final Set<String> entries = new HashSet<>();
+
+				for (final ObjectiveState objective : this.objectives.values())
+					entries.addAll(objective.scores.keySet());
+
+				return entries;
+			}
+
+			case "resetScores": {
+				final String entry = entryName(args[0]);
+
+				for (final ObjectiveState objective : this.objectives.values())
+					objective.scores.remove(entry);
+
+				return null;
+			}
+
+			case "clearSlot": {
+				for (final ObjectiveState objective : this.objectives.values())
+					if (objective.displaySlot == args[0])
+						objective.displaySlot = null;
+
+				return null;
+			}
+
+			default:
+				return null;
+		}
+	}
+
+	/*
+	 * Return the score entry, Bukkit still accepts players in deprecated methods
+	 */
+	private static String entryName(Object entry) {
+		return entry instanceof OfflinePlayer ? ((OfflinePlayer) entry).getName() : (String) entry;
+	}
+
+	/*
+	 * An objective and its scores
+	 */
+	private final class ObjectiveState {
+
+		private final String name;
+		private final Map<String, Integer> scores = new LinkedHashMap<>();
+		private final Objective objective;
+
+		private String displayName;
+		private DisplaySlot displaySlot;
+
+		ObjectiveState(String name) {
+			this.name = name;
+			this.displayName = name;
+			this.objective = SimulatedServer.stub(Objective.class, this::answer);
+		}
+
+		private Object answer(Method method, Object[] args) {
+			switch (method.getName()) {
+				case "getName":
+					return this.name;
+
+				case "getDisplayName":
+					return this.displayName;
+
+				case "setDisplayName":
+					this.displayName = (String) args[0];
+
+					return null;
+
+				case "getDisplaySlot":
+					return this.displaySlot;
+
+				case "setDisplaySlot":
+					this.displaySlot = (DisplaySlot) args[0];
+
+					return null;
+
+				case "getCriteria":
+					return "dummy";
+
+				case "getScore":
+					return this.score(entryName(args[0]));
+
+				case "getScoreboard":
+					return SimulatedScoreboard.this.scoreboard;
+
+				case "isModifiable":
+					return true;
+
+				case "unregister":
+					SimulatedScoreboard.this.objectives.remove(this.name);
+
+					return null;
+
+				default:
+					return null;
+			}
+		}
+
+		private Score score(String entry) {
+			return SimulatedServer.stub(Score.class, (method, args) -> {
+				switch (method.getName()) {
+					case "getEntry":
+						return entry;
+
+					case "getObjective":
+						return this.objective;
+
+					case "getScoreboard":
+						return SimulatedScoreboard.this.scoreboard;
+
+					case "getScore":
+						return this.scores.getOrDefault(entry, 0);
+
+					case "setScore":
+						this.scores.put(entry, (Integer) args[0]);
+
+						return null;
+
+					case "isScoreSet":
+						return this.scores.containsKey(entry);
+
+					case "resetScore":
+						this.scores.remove(entry);
+
+						return null;
+
+					default:
+						return null;
+				}
+			});
+		}
+	}
+
+	/*
+	 * A team with its prefix, suffix and entries
+	 */
+	private final class TeamState {
+
+		private final String name;
+		private final Set<String> entries = new LinkedHashSet<>();
+		private final Team team;
+
+		private String prefix = "";
+		private String suffix = "";
+
+		TeamState(String name) {
+			this.name = name;
+			this.team = SimulatedServer.stub(Team.class, this::answer);
+		}
+
+		private Object answer(Method method, Object[] args) {
+			switch (method.getName()) {
+				case "getName":
+				case "getDisplayName":
+					return this.name;
+
+				case "getPrefix":
+					return this.prefix;
+
+				case "setPrefix":
+					this.prefix = (String) args[0];
+
+					return null;
+
+				case "getSuffix":
+					return this.suffix;
+
+				case "setSuffix":
+					this.suffix = (String) args[0];
+
+					return null;
+
+				case "getEntries":
+					return new HashSet<>(this.entries);
+
+				case "getSize":
+					return this.entries.size();
+
+				case "addEntry":
+				case "addPlayer":
+					this.entries.add(entryName(args[0]));
+
+					return null;
+
+				case "removeEntry":
+				case "removePlayer":
+					return this.entries.remove(entryName(args[0]));
+
+				case "hasEntry":
+				case "hasPlayer":
+					return this.entries.contains(entryName(args[0]));
+
+				case "getScoreboard":
+					return SimulatedScoreboard.this.scoreboard;
+
+				case "unregister":
+					SimulatedScoreboard.this.teams.remove(this.name);
+
+					return null;
+
+				default:
+					return null;
+			}
+		}
+	}
+}
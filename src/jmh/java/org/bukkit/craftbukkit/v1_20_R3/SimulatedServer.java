@@ -0,0 +1,530 @@
+package org.bukkit.craftbukkit.v1_20_R3;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Logger;
+
+import org.bukkit.Bukkit;
+import org.bukkit.GameMode;
+import org.bukkit.Material;
+import org.bukkit.Server;
+import org.bukkit.UnsafeValues;
+import org.bukkit.command.ConsoleCommandSender;
+import org.bukkit.craftbukkit.BenchmarkServer;
+import org.bukkit.entity.Player;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryHolder;
+import org.bukkit.inventory.ItemFactory;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.metadata.MetadataValue;
+import org.bukkit.plugin.PluginManager;
+import org.bukkit.plugin.messaging.Messenger;
+import org.bukkit.scoreboard.Scoreboard;
+import org.bukkit.scoreboard.ScoreboardManager;
+
+/**
+ * A stand-in {@link Server} with simulated players, a tickable scheduler, scoreboards
+ * and inventories so Foundation can be driven under load outside of a real server.
+ *
+ * The stub lives in a versioned CraftBukkit package so MinecraftVersion reads it as a 1.20
+ * server and Foundation takes its modern, API based paths. Anything relying on server
+ * internals such as NMS packets is unavailable and either falls back or is skipped.
+ *
+ * Sync tasks only run when {@link #tick()} is called, async tasks run on a small thread pool.
+ * Methods we do not care about return null, zero, false or empty collections.
+ */
+public final class SimulatedServer {
+
+	/**
+	 * Proxies of non-public interfaces are defined in their package, we rely on that
+	 * to control what Bukkit.getServer().getClass().getPackage() returns
+	 */
+	interface InPackage {
+	}
+
+	/**
+	 * The installed server, there can only be one per JVM
+	 */
+	private static SimulatedServer instance;
+
+	/**
+	 * The server logger
+	 */
+	private final Logger logger = Logger.getLogger("Simulation");
+
+	/**
+	 * The thread calling {@link #tick()}
+	 */
+	private final Thread mainThread = Thread.currentThread();
+
+	/**
+	 * Online players in the order they joined
+	 */
+	private final List<Player> onlinePlayers = new CopyOnWriteArrayList<>();
+
+	/**
+	 * Online players by their unique id
+	 */
+	private final Map<UUID, Player> playersById = new ConcurrentHashMap<>();
+
+	/**
+	 * Online players by their lowercase name
+	 */
+	private final Map<String, Player> playersByName = new ConcurrentHashMap<>();
+
+	/**
+	 * Chat messages sent to players
+	 */
+	private final LongAdder messagesSent = new LongAdder();
+
+	/**
+	 * Plugin messages sent through players
+	 */
+	private final LongAdder pluginMessagesSent = new LongAdder();
+
+	/**
+	 * Bytes of plugin messages sent through players
+	 */
+	private final LongAdder pluginMessageBytes = new LongAdder();
+
+	/**
+	 * Inventories opened for players
+	 */
+	private final LongAdder inventoriesOpened = new LongAdder();
+
+	/**
+	 * The scheduler
+	 */
+	private final SimulatedScheduler scheduler = new SimulatedScheduler(this.logger);
+
+	/**
+	 * The scoreboard players see when no plugin gave them one
+	 */
+	private final Scoreboard mainScoreboard = new SimulatedScoreboard().getScoreboard();
+
+	/**
+	 * The server registered in Bukkit
+	 */
+	private final Server server;
+
+	private SimulatedServer() {
+		final ItemFactory itemFactory = stub(ItemFactory.class, (method, args) -> {
+
+			// ItemFactory#equals(ItemMeta, ItemMeta), simulated items have no meta
+			if ("equals".equals(method.getName()) && args != null && args.length == 2)
+				return args[0] == args[1];
+
+			if ("asMetaFor".equals(method.getName()))
+				return args[0];
+
+			return null;
+		});
+
+		final UnsafeValues unsafe = stub(UnsafeValues.class, (method, args) -> {
+			if (("toLegacy".equals(method.getName()) || "fromLegacy".equals(method.getName())) && args.length == 1 && args[0] instanceof Material)
+				return args[0];
+
+			return null;
+		});
+
+		final PluginManager pluginManager = stub(PluginManager.class, (method, args) -> null);
+
+		final Messenger messenger = stub(Messenger.class, (method, args) -> {
+			if ("isOutgoingChannelRegistered".equals(method.getName()) || "isIncomingChannelRegistered".equals(method.getName()))
+				return true;
+
+			return null;
+		});
+
+		final ScoreboardManager scoreboardManager = stub(ScoreboardManager.class, (method, args) -> {
+			if ("getMainScoreboard".equals(method.getName()))
+				return this.mainScoreboard;
+
+			if ("getNewScoreboard".equals(method.getName()))
+				return new SimulatedScoreboard().getScoreboard();
+
+			return null;
+		});
+
+		final ConsoleCommandSender console = stub(ConsoleCommandSender.class, (method, args) -> {
+			switch (method.getName()) {
+				case "getName":
+					return "CONSOLE";
+
+				case "isOp":
+				case "hasPermission":
+					return true;
+
+				default:
+					return null;
+			}
+		});
+
+		this.server = stub(Server.class, (method, args) -> {
+			switch (method.getName()) {
+				case "getName":
+					return "Simulation";
+
+				case "getVersion":
+					return "git-Simulation (MC: 1.20.4)";
+
+				case "getBukkitVersion":
+					return "1.20.4-R0.1-SNAPSHOT";
+
+				case "getLogger":
+					return this.logger;
+
+				case "getItemFactory":
+					return itemFactory;
+
+				case "getUnsafe":
+					return unsafe;
+
+				case "getPluginManager":
+					return pluginManager;
+
+				case "getMessenger":
+					return messenger;
+
+				case "getScheduler":
+					return this.scheduler.getScheduler();
+
+				case "getScoreboardManager":
+					return scoreboardManager;
+
+				case "getConsoleSender":
+					return console;
+
+				case "isPrimaryThread":
+					return Thread.currentThread() == this.mainThread;
+
+				case "getOnlinePlayers":
+					return Collections.unmodifiableList(this.onlinePlayers);
+
+				case "getMaxPlayers":
+					return Integer.MAX_VALUE;
+
+				case "getOnlineMode":
+					return true;
+
+				case "getPlayer":
+					return args[0] instanceof UUID ? this.playersById.get(args[0]) : this.findPlayer((String) args[0]);
+
+				case "getPlayerExact":
+					return this.playersByName.get(((String) args[0]).toLowerCase(Locale.ROOT));
+
+				case "createInventory":
+					return this.createInventory((InventoryHolder) args[0], args[1] instanceof InventoryType ? ((InventoryType) args[1]).getDefaultSize() : (Integer) args[1]);
+
+				default:
+					return null;
+			}
+		});
+	}
+
+	/**
+	 * Install the simulated server into Bukkit and return it
+	 *
+	 * @return
+	 */
+	public static synchronized SimulatedServer install() {
+		if (instance != null)
+			return instance;
+
+		if (Bukkit.getServer() != null)
+			throw new IllegalStateException("Another server is already installed: " + Bukkit.getServer());
+
+		instance = new SimulatedServer();
+		Bukkit.setServer(instance.server);
+
+		return instance;
+	}
+
+	/**
+	 * Simulate a player joining the server
+	 *
+	 * @param name
+	 * @return
+	 */
+	public Player join(String name) {
+		final SimulatedPlayer simulated = new SimulatedPlayer(name, UUID.nameUUIDFromBytes(("OfflinePlayer:" + name).getBytes()));
+		final Player player = simulated.player;
+
+		this.onlinePlayers.add(player);
+		this.playersById.put(player.getUniqueId(), player);
+		this.playersByName.put(name.toLowerCase(Locale.ROOT), player);
+
+		return player;
+	}
+
+	/**
+	 * Return players currently online
+	 *
+	 * @return
+	 */
+	public List<Player> getOnlinePlayers() {
+		return Collections.unmodifiableList(this.onlinePlayers);
+	}
+
+	/**
+	 * Run one server tick, executing all sync tasks that are due
+	 */
+	public void tick() {
+		this.scheduler.tick();
+	}
+
+	/**
+	 * Return how many ticks have passed
+	 *
+	 * @return
+	 */
+	public long getCurrentTick() {
+		return this.scheduler.getCurrentTick();
+	}
+
+	/**
+	 * Return how many chat messages players received so far
+	 *
+	 * @return
+	 */
+	public long getMessagesSent() {
+		return this.messagesSent.sum();
+	}
+
+	/**
+	 * Return how many plugin messages were sent through players so far
+	 *
+	 * @return
+	 */
+	public long getPluginMessagesSent() {
+		return this.pluginMessagesSent.sum();
+	}
+
+	/**
+	 * Return how many bytes of plugin messages were sent through players so far
+	 *
+	 * @return
+	 */
+	public long getPluginMessageBytes() {
+		return this.pluginMessageBytes.sum();
+	}
+
+	/**
+	 * Return how many inventories were opened for players so far
+	 *
+	 * @return
+	 */
+	public long getInventoriesOpened() {
+		return this.inventoriesOpened.sum();
+	}
+
+	/**
+	 * Reset message and inventory counters, for example after warming up
+	 */
+	public void resetCounters() {
+		this.messagesSent.reset();
+		this.pluginMessagesSent.reset();
+		this.pluginMessageBytes.reset();
+		this.inventoriesOpened.reset();
+	}
+
+	/**
+	 * Cancel all tasks and stop async workers
+	 *
+	 * @throws InterruptedException
+	 */
+	public void shutdown() throws InterruptedException {
+		this.scheduler.shutdown();
+	}
+
+	/*
+	 * Find a player by exact name or, like the server, by the start of their name
+	 */
+	private Player findPlayer(String name) {
+		final String lowercase = name.toLowerCase(Locale.ROOT);
+		final Player exact = this.playersByName.get(lowercase);
+
+		if (exact != null)
+			return exact;
+
+		for (final Player player : this.onlinePlayers)
+			if (player.getName().toLowerCase(Locale.ROOT).startsWith(lowercase))
+				return player;
+
+		return null;
+	}
+
+	/*
+	 * Create an inventory backed by a plain array
+	 */
+	private Inventory createInventory(InventoryHolder holder, int size) {
+		final ItemStack[] contents = new ItemStack[size];
+
+		return stub(Inventory.class, (method, args) -> {
+			switch (method.getName()) {
+				case "getSize":
+					return size;
+
+				case "getItem":
+					return contents[(Integer) args[0]];
+
+				case "setItem":
+					contents[(Integer) args[0]] = (ItemStack) args[1];
+
+					return null;
+
+				case "getContents":
+				case "getStorageContents":
+					return contents.clone();
+
+				case "setContents":
+				case "setStorageContents": {
+					final ItemStack[] items = (ItemStack[]) args[0];
+
+					if (items.length > size)
+						throw new IllegalArgumentException("Invalid inventory size (" + items.length + "); expected " + size + " or less");
+
+					Arrays.fill(contents, null);
+					System.arraycopy(items, 0, contents, 0, items.length);
+
+					return null;
+				}
+
+				case "clear":
+					if (args == null || args.length == 0)
+						Arrays.fill(contents, null);
+
+					return null;
+
+				case "getHolder":
+					return holder;
+
+				case "getType":
+					return InventoryType.CHEST;
+
+				case "getViewers":
+					return new ArrayList<>();
+
+				case "iterator":
+					return Arrays.asList(contents).listIterator(args == null || args.length == 0 ? 0 : (Integer) args[0]);
+
+				default:
+					return null;
+			}
+		});
+	}
+
+	/**
+	 * Create a proxy of the given interface defined in this package, see {@link BenchmarkServer#stub(Class, Class, BenchmarkServer.Handler)}
+	 */
+	static <T> T stub(Class<T> type, BenchmarkServer.Handler handler) {
+		return BenchmarkServer.stub(type, InPackage.class, handler);
+	}
+
+	/*
+	 * A simulated player counting what the server would send to them
+	 */
+	private final class SimulatedPlayer {
+
+		private final String name;
+		private final UUID uniqueId;
+		private final Map<String, List<MetadataValue>> metadata = new ConcurrentHashMap<>();
+		private final Player player;
+
+		private volatile Scoreboard scoreboard = SimulatedServer.this.mainScoreboard;
+
+		SimulatedPlayer(String name, UUID uniqueId) {
+			this.name = name;
+			this.uniqueId = uniqueId;
+			this.player = stub(Player.class, this::answer);
+		}
+
+		private Object answer(Method method, Object[] args) {
+			switch (method.getName()) {
+				case "getName":
+				case "getDisplayName":
+				case "getPlayerListName":
+					return this.name;
+
+				case "getUniqueId":
+					return this.uniqueId;
+
+				case "getPlayer":
+					return this.player;
+
+				case "getServer":
+					return SimulatedServer.this.server;
+
+				case "isOnline":
+				case "isValid":
+				case "hasPlayedBefore":
+				case "hasPermission":
+				case "isPermissionSet":
+					return true;
+
+				case "getGameMode":
+					return GameMode.SURVIVAL;
+
+				case "getLocale":
+					return "en_us";
+
+				case "sendMessage":
+				case "sendRawMessage": {
+					final Object message = args[args.length - 1];
+
+					SimulatedServer.this.messagesSent.add(message instanceof String[] ? ((String[]) message).length : 1);
+					return null;
+				}
+
+				case "sendPluginMessage":
+					SimulatedServer.this.pluginMessagesSent.increment();
+					SimulatedServer.this.pluginMessageBytes.add(((byte[]) args[2]).length);
+
+					return null;
+
+				case "getScoreboard":
+					return this.scoreboard;
+
+				case "setScoreboard":
+					this.scoreboard = (Scoreboard) args[0];
+
+					return null;
+
+				case "openInventory":
+					if (args[0] instanceof Inventory)
+						SimulatedServer.this.inventoriesOpened.increment();
+
+					return null;
+
+				case "setMetadata":
+					this.metadata.put((String) args[0], Collections.singletonList((MetadataValue) args[1]));
+
+					return null;
+
+				case "getMetadata":
+					return this.metadata.getOrDefault(args[0], Collections.emptyList());
+
+				case "hasMetadata":
+					return this.metadata.containsKey(args[0]);
+
+				case "removeMetadata":
+					this.metadata.remove(args[0]);
+
+					return null;
+
+				default:
+					return null;
+			}
+		}
+	}
+}
@@ -0,0 +1,111 @@
+package org.mineacademy.fo.benchmark;
+
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.mineacademy.fo.jsonsimple.JSONArray;
+import org.mineacademy.fo.jsonsimple.JSONObject;
+import org.mineacademy.fo.jsonsimple.JSONParser;
+
+/**
+ * Compares two JMH result files written with "-rf json" and prints
+ * the change of every benchmark, exiting with 1 when any of them
+ * got slower than the allowed threshold.
+ *
+ * Usage: BenchmarkComparator baseline.json result.json [threshold percent, default 10]
+ */
+public final class BenchmarkComparator {
+
+	private BenchmarkComparator() {
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.out.println("Usage: BenchmarkComparator <baseline.json> <result.json> [threshold %]");
+
+			System.exit(2);
+		}
+
+		final Map<String, Score> baseline = load(args[0]);
+		final Map<String, Score> current = load(args[1]);
+		final double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 10;
+
+		int regressions = 0;
+
+		for (final Map.Entry<String, Score> entry : current.entrySet()) {
+			final Score now = entry.getValue();
+			final Score before = baseline.get(entry.getKey());
+
+			if (before == null) {
+				System.out.println(String.format("%-70s %12s -> %10.3f %s (new)", entry.getKey(), "", now.value, now.unit));
+
+				continue;
+			}
+
+			// Positive change always means worse, in throughput mode higher scores are better
+			final double change = (now.value - before.value) / before.value * 100 * (now.higherIsBetter ? -1 : 1);
+			final boolean regressed = change > threshold;
+
+			if (regressed)
+				regressions++;
+
+			System.out.println(String.format("%-70s %10.3f -> %10.3f %s %+7.1f%%%s", entry.getKey(), before.value, now.value, now.unit, change, regressed ? "  REGRESSION" : ""));
+		}
+
+		for (final String name : baseline.keySet())
+			if (!current.containsKey(name))
+				System.out.println(String.format("%-70s (removed)", name));
+
+		System.out.println(regressions == 0 ? "No regressions over " + threshold + "%." : regressions + " benchmark(s) regressed over " + threshold + "%.");
+
+		System.exit(regressions == 0 ? 0 : 1);
+	}
+
+	/*
+	 * Read scores from the JMH result file by benchmark name and parameters
+	 */
+	private static Map<String, Score> load(String path) throws Exception {
+		final Map<String, Score> scores = new TreeMap<>();
+
+		try (Reader reader = Files.newBufferedReader(Paths.get(path), StandardCharsets.UTF_8)) {
+			final JSONArray results = (JSONArray) JSONParser.parse(reader);
+
+			for (int i = 0; i < results.size(); i++) {
+				final JSONObject result = results.getObject(i);
+				final JSONObject metric = result.getObject("primaryMetric");
+				final JSONObject params = result.getObject("params");
+
+				final String name = result.getString("benchmark") + (params != null ? new TreeMap<>(params).toString() : "");
+
+				try {
+					scores.put(name, new Score(metric.getDouble("score"), metric.getString("scoreUnit"), "thrpt".equals(result.getString("mode"))));
+
+				} catch (final NumberFormatException ex) {
+					// NaN score from a failed benchmark
+				}
+			}
+		}
+
+		return scores;
+	}
+
+	/*
+	 * The primary score of a benchmark
+	 */
+	private static final class Score {
+
+		private final double value;
+		private final String unit;
+		private final boolean higherIsBetter;
+
+		Score(double value, String unit, boolean higherIsBetter) {
+			this.value = value;
+			this.unit = unit;
+			this.higherIsBetter = higherIsBetter;
+		}
+	}
+}
@@ -0,0 +1,56 @@
+package org.mineacademy.fo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.craftbukkit.BenchmarkServer;
+import org.mineacademy.fo.Common;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Common#colorize(String)} on typical chat lines
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ColorizeBenchmark {
+
+	private String plain;
+	private String legacyColors;
+	private String hexColors;
+
+	@Setup
+	public void setup() {
+		BenchmarkServer.install();
+
+		this.plain = "Welcome to the server, have a nice stay and do not forget to vote for us!";
+		this.legacyColors = "&8[&6Shop&8] &7You bought &f16x Diamond &7for &a$1,250&7. &lThank you!";
+		this.hexColors = "&#ff5555Warning: &#aaaaaaThe arena will close in &#ffff5530 seconds&#aaaaaa.";
+	}
+
+	@Benchmark
+	public String plain() {
+		return Common.colorize(this.plain);
+	}
+
+	@Benchmark
+	public String legacyColors() {
+		return Common.colorize(this.legacyColors);
+	}
+
+	@Benchmark
+	public String hexColors() {
+		return Common.colorize(this.hexColors);
+	}
+}
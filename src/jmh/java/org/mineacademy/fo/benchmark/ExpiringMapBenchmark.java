@@ -0,0 +1,65 @@
+package org.mineacademy.fo.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.mineacademy.fo.collection.expiringmap.ExpiringMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link ExpiringMap} reads and writes the way Foundation uses it
+ * for caches, both from one thread and under contention
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExpiringMapBenchmark {
+
+	private static final int KEYS = 1_000;
+
+	private Map<String, String> map;
+	private String[] keys;
+
+	@Setup
+	public void setup() {
+		this.map = ExpiringMap.builder().maxSize(KEYS * 2).expiration(10, TimeUnit.MINUTES).build();
+		this.keys = new String[KEYS];
+
+		for (int i = 0; i < KEYS; i++) {
+			this.keys[i] = "key-" + i;
+			this.map.put(this.keys[i], "value-" + i);
+		}
+	}
+
+	@Benchmark
+	public String get() {
+		return this.map.get(this.keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+	}
+
+	@Benchmark
+	public String put() {
+		final String key = this.keys[ThreadLocalRandom.current().nextInt(KEYS)];
+
+		return this.map.put(key, key);
+	}
+
+	@Benchmark
+	@Threads(4)
+	public String getContended() {
+		return this.map.get(this.keys[ThreadLocalRandom.current().nextInt(KEYS)]);
+	}
+}
@@ -0,0 +1,56 @@
+package org.mineacademy.fo.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Material;
+import org.bukkit.craftbukkit.BenchmarkServer;
+import org.bukkit.inventory.ItemStack;
+import org.mineacademy.fo.ItemUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link ItemUtil#isSimilar(ItemStack, ItemStack)}, called for every
+ * slot when menus look up their buttons.
+ *
+ * Items have no meta since the stub server has no item meta implementation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ItemSimilarBenchmark {
+
+	private ItemStack diamond;
+	private ItemStack otherDiamond;
+	private ItemStack stone;
+
+	@Setup
+	public void setup() {
+		BenchmarkServer.install();
+
+		this.diamond = new ItemStack(Material.DIAMOND, 1);
+		this.otherDiamond = new ItemStack(Material.DIAMOND, 16);
+		this.stone = new ItemStack(Material.STONE, 1);
+	}
+
+	@Benchmark
+	public boolean similar() {
+		return ItemUtil.isSimilar(this.diamond, this.otherDiamond);
+	}
+
+	@Benchmark
+	public boolean different() {
+		return ItemUtil.isSimilar(this.diamond, this.stone);
+	}
+}
@@ -0,0 +1,60 @@
+package org.mineacademy.fo.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.craftbukkit.BenchmarkServer;
+import org.mineacademy.fo.collection.SerializedMap;
+import org.mineacademy.fo.jsonsimple.JSONParseException;
+import org.mineacademy.fo.jsonsimple.JSONParser;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link JSONParser#parse(String)} and {@link SerializedMap#toJson()},
+ * the two halves of storing data in a database
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JsonBenchmark {
+
+	private SerializedMap data;
+	private String json;
+
+	@Setup
+	public void setup() {
+		BenchmarkServer.install();
+
+		this.data = SerializedMap.ofArray(
+				"Name", "kangarko",
+				"Level", 42,
+				"Balance", 1250.75D,
+				"Channels", Arrays.asList("global", "trade", "staff"),
+				"Settings", SerializedMap.ofArray("Sound", true, "Spy", false, "Color", "&6"),
+				"Last_Message", "He said \"hello\" and left\nthe server");
+
+		this.json = this.data.toJson();
+	}
+
+	@Benchmark
+	public Object parse() throws JSONParseException {
+		return JSONParser.parse(this.json);
+	}
+
+	@Benchmark
+	public String toJson() {
+		return this.data.toJson();
+	}
+}
@@ -0,0 +1,220 @@
+package org.mineacademy.fo.benchmark;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.craftbukkit.BenchmarkServer;
+import org.mineacademy.fo.ReflectionUtil;
+import org.mineacademy.fo.database.DummyResultSet;
+import org.mineacademy.fo.database.RowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures loading 100k rows the way SimpleDatabaseObject used to (looking up and
+ * reflectively invoking the static deserialize method for every row) against the
+ * cached method handle and the generated {@link RowMapper}
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RowMapperBenchmark {
+
+	private static final int ROWS = 100_000;
+
+	private static final String[] COLUMNS = { "Name", "Uuid", "Level", "Balance", "Vip" };
+
+	private Object[][] rows;
+	private MethodHandle deserializer;
+
+	@Setup
+	public void setup() throws ReflectiveOperationException {
+		BenchmarkServer.install();
+
+		this.rows = new Object[ROWS][];
+
+		for (int i = 0; i < ROWS; i++)
+			this.rows[i] = new Object[] { "Player" + i, UUID.randomUUID().toString(), i % 100, i * 1.5D, i % 10 == 0 };
+
+		this.deserializer = MethodHandles.lookup()
+				.unreflect(PlayerRow.class.getMethod("deserialize", ResultSet.class))
+				.asType(MethodType.methodType(Object.class, ResultSet.class));
+	}
+
+	@Benchmark
+	public List<PlayerRow> reflectionPerRow() throws SQLException {
+		final ResultSet resultSet = new MemoryResultSet(this.rows);
+		final List<PlayerRow> objects = new ArrayList<>(ROWS);
+
+		while (resultSet.next()) {
+			final Method method = ReflectionUtil.getMethod(PlayerRow.class, "deserialize", ResultSet.class);
+
+			objects.add(ReflectionUtil.invokeStatic(method, resultSet));
+		}
+
+		return objects;
+	}
+
+	@Benchmark
+	public List<PlayerRow> cachedDeserializeHandle() throws Throwable {
+		final ResultSet resultSet = new MemoryResultSet(this.rows);
+		final List<PlayerRow> objects = new ArrayList<>(ROWS);
+
+		while (resultSet.next())
+			objects.add((PlayerRow) (Object) this.deserializer.invokeExact(resultSet));
+
+		return objects;
+	}
+
+	@Benchmark
+	public List<PlayerRow> rowMapper() throws SQLException {
+		return RowMapper.of(PlayerRow.class).mapAll(new MemoryResultSet(this.rows));
+	}
+
+	/**
+	 * A typical leaderboard row
+	 */
+	public static final class PlayerRow {
+
+		private String name;
+		private UUID uuid;
+		private int level;
+		private double balance;
+		private boolean vip;
+
+		public static PlayerRow deserialize(ResultSet set) throws SQLException {
+			final PlayerRow row = new PlayerRow();
+
+			row.name = set.getString("Name");
+			row.uuid = UUID.fromString(set.getString("Uuid"));
+			row.level = set.getInt("Level");
+			row.balance = set.getDouble("Balance");
+			row.vip = set.getBoolean("Vip");
+
+			return row;
+		}
+	}
+
+	/*
+	 * Serves the rows from memory the way a driver serves a fetched result set
+	 */
+	private static final class MemoryResultSet extends DummyResultSet {
+
+		private final Object[][] rows;
+		private int cursor = -1;
+		private boolean wasNull;
+
+		private MemoryResultSet(Object[][] rows) {
+			this.rows = rows;
+		}
+
+		@Override
+		public boolean next() {
+			return ++this.cursor < this.rows.length;
+		}
+
+		@Override
+		public boolean wasNull() {
+			return this.wasNull;
+		}
+
+		@Override
+		public int findColumn(String columnLabel) throws SQLException {
+			for (int i = 0; i < COLUMNS.length; i++)
+				if (COLUMNS[i].equalsIgnoreCase(columnLabel))
+					return i + 1;
+
+			throw new SQLException("No such column " + columnLabel);
+		}
+
+		@Override
+		public Object getObject(int columnIndex) {
+			final Object value = this.rows[this.cursor][columnIndex - 1];
+
+			this.wasNull = value == null;
+			return value;
+		}
+
+		@Override
+		public String getString(int columnIndex) {
+			final Object value = this.getObject(columnIndex);
+
+			return value == null ? null : value.toString();
+		}
+
+		@Override
+		public String getString(String columnLabel) throws SQLException {
+			return this.getString(this.findColumn(columnLabel));
+		}
+
+		@Override
+		public int getInt(int columnIndex) {
+			final Object value = this.getObject(columnIndex);
+
+			return value == null ? 0 : ((Number) value).intValue();
+		}
+
+		@Override
+		public int getInt(String columnLabel) throws SQLException {
+			return this.getInt(this.findColumn(columnLabel));
+		}
+
+		@Override
+		public double getDouble(int columnIndex) {
+			final Object value = this.getObject(columnIndex);
+
+			return value == null ? 0 : ((Number) value).doubleValue();
+		}
+
+		@Override
+		public double getDouble(String columnLabel) throws SQLException {
+			return this.getDouble(this.findColumn(columnLabel));
+		}
+
+		@Override
+		public boolean getBoolean(int columnIndex) {
+			final Object value = this.getObject(columnIndex);
+
+			return value != null && (Boolean) value;
+		}
+
+		@Override
+		public boolean getBoolean(String columnLabel) throws SQLException {
+			return this.getBoolean(this.findColumn(columnLabel));
+		}
+
+		@Override
+		public ResultSetMetaData getMetaData() {
+			return (ResultSetMetaData) Proxy.newProxyInstance(ResultSetMetaData.class.getClassLoader(), new Class<?>[] { ResultSetMetaData.class }, (proxy, method, args) -> {
+				if (method.getName().equals("getColumnCount"))
+					return COLUMNS.length;
+
+				if (method.getName().equals("getColumnLabel") || method.getName().equals("getColumnName"))
+					return COLUMNS[(Integer) args[0] - 1];
+
+				throw new UnsupportedOperationException(method.getName());
+			});
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package org.mineacademy.fo.benchmark;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.craftbukkit.BenchmarkServer;
+import org.mineacademy.fo.SerializeUtil;
+import org.mineacademy.fo.collection.SerializedMap;
+import org.mineacademy.fo.model.SimpleTime;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link SerializeUtil#serialize(SerializeUtil.Mode, Object)} and
+ * {@link SerializeUtil#deserialize(SerializeUtil.Mode, Class, Object)} on a typical player data map
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializeBenchmark {
+
+	private SerializedMap playerData;
+	private Object serializedPlayerData;
+
+	private String uuid;
+	private String time;
+
+	@Setup
+	public void setup() {
+		BenchmarkServer.install();
+
+		this.playerData = SerializedMap.ofArray(
+				"Name", "kangarko",
+				"UUID", UUID.randomUUID(),
+				"Level", 42,
+				"Balance", 1250.75D,
+				"Cooldown", SimpleTime.from("5 minutes"),
+				"Channels", Arrays.asList("global", "trade", "staff"),
+				"Settings", SerializedMap.ofArray("Sound", true, "Spy", false, "Color", "&6"));
+
+		this.serializedPlayerData = SerializeUtil.serialize(SerializeUtil.Mode.YAML, this.playerData);
+
+		this.uuid = UUID.randomUUID().toString();
+		this.time = "1 hour 30 minutes";
+	}
+
+	@Benchmark
+	public Object serializeMap() {
+		return SerializeUtil.serialize(SerializeUtil.Mode.YAML, this.playerData);
+	}
+
+	@Benchmark
+	public SerializedMap deserializeMap() {
+		return SerializeUtil.deserialize(SerializeUtil.Mode.YAML, SerializedMap.class, this.serializedPlayerData);
+	}
+
+	@Benchmark
+	public void deserializeValues(Blackhole blackhole) {
+		blackhole.consume(SerializeUtil.deserialize(SerializeUtil.Mode.YAML, UUID.class, this.uuid));
+		blackhole.consume(SerializeUtil.deserialize(SerializeUtil.Mode.YAML, SimpleTime.class, this.time));
+		blackhole.consume(SerializeUtil.deserialize(SerializeUtil.Mode.YAML, Integer.class, "42"));
+	}
+}
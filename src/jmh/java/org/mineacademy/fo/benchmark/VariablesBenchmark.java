@@ -0,0 +1,60 @@
+package org.mineacademy.fo.benchmark;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.bukkit.command.CommandSender;
+import org.bukkit.craftbukkit.BenchmarkServer;
+import org.mineacademy.fo.collection.SerializedMap;
+import org.mineacademy.fo.model.Variables;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link Variables#replace(String, CommandSender, Map, boolean, boolean)}
+ * with custom replacements and hard variables for the console
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VariablesBenchmark {
+
+	private CommandSender console;
+	private Map<String, Object> replacements;
+
+	private String noVariables;
+	private String withVariables;
+
+	@Setup
+	public void setup() {
+		BenchmarkServer.install();
+
+		this.console = Bukkit.getConsoleSender();
+		this.replacements = SerializedMap.ofArray("message", "hello there", "channel", "global").asMap();
+
+		this.noVariables = "&7This message has no variables at all, only colors.";
+		this.withVariables = "&8[&7{channel}&8] &f{player}&8: &7{message} &8({sender_is_console})";
+	}
+
+	@Benchmark
+	public String noVariables() {
+		return Variables.replace(this.noVariables, this.console, this.replacements, true, false);
+	}
+
+	@Benchmark
+	public String withVariables() {
+		return Variables.replace(this.withVariables, this.console, this.replacements, true, false);
+	}
+}
@@ -0,0 +1,388 @@
+package org.mineacademy.fo.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import org.bukkit.craftbukkit.v1_20_R3.SimulatedServer;
+import org.bukkit.entity.Player;
+import org.mineacademy.fo.BungeeUtil;
+import org.mineacademy.fo.Common;
+import org.mineacademy.fo.debug.MetricsRegistry;
+import org.mineacademy.fo.debug.MetricsRegistry.Timer;
+import org.mineacademy.fo.debug.MetricsRegistry.TimerSnapshot;
+import org.mineacademy.fo.debug.TickProfiler;
+import org.mineacademy.fo.model.Variables;
+import org.mineacademy.fo.plugin.SimulationPlugin;
+
+/**
+ * Boots Foundation against {@link SimulatedServer}, joins simulated players and replays
+ * a scripted workload of chatting, commands, menus and plugin messages while a scoreboard
+ * renders for everyone. Prints throughput, latency percentiles and allocation rate.
+ *
+ * Ticks run back to back, so the tick time percentiles tell how much of the 50ms budget
+ * Foundation takes with the given amount of players.
+ *
+ * Usage: LoadSimulation [players=500] [ticks=1200] [warmup=400] [seed=1]
+ * [chat=0.005] [command=0.0025] [menu=0.002] [bungee=0.005] [scoreboard=20] [profile=true]
+ *
+ * Workload values are the chance of each player doing it in a tick, the scoreboard value
+ * is its update period in ticks or 0 to disable it.
+ */
+public final class LoadSimulation {
+
+	/**
+	 * The chat format players use, resolved with {@link Variables}
+	 */
+	private static final String CHAT_FORMAT = "&8[&7{rank}&8] &f{player}&8: &7{message}";
+
+	/**
+	 * Lines players say in chat
+	 */
+	private static final String[] CHAT_LINES = {
+			"hello everyone",
+			"anyone wants to trade diamonds?",
+			"gg",
+			"where is the spawn shop",
+			"&cred text because I can",
+			"lag?",
+	};
+
+	/**
+	 * Arguments players run the command with, {target} is replaced with a random player
+	 */
+	private static final String[][] COMMAND_ARGS = {
+			{ "balance" },
+			{ "pay", "{target}", "10" },
+			{ "pay", "{target}", "250" },
+	};
+
+	/**
+	 * The channel we send plugin messages on
+	 */
+	private static final String CHANNEL = "BungeeCord";
+
+	private final Scenario scenario;
+	private final SimulatedServer server;
+	private final SplittableRandom random;
+	private final SimulationCommand command = new SimulationCommand();
+	private final Map<String, Object> chatReplacements = new HashMap<>();
+
+	private final Timer tickTimer = MetricsRegistry.timer("simulation.tick");
+	private final Map<Workload, Timer> timers = new EnumMap<>(Workload.class);
+
+	private LoadSimulation(Scenario scenario, SimulatedServer server) {
+		this.scenario = scenario;
+		this.server = server;
+		this.random = new SplittableRandom(scenario.seed);
+
+		for (final Workload workload : Workload.values())
+			this.timers.put(workload, MetricsRegistry.timer("simulation." + workload.getKey()));
+	}
+
+	public static void main(String[] args) throws Exception {
+		final Scenario scenario = Scenario.parse(args);
+		final SimulatedServer server = SimulatedServer.install();
+
+		SimulationPlugin.boot();
+
+		for (int i = 0; i < scenario.players; i++)
+			server.join("Player" + i);
+
+		if (scenario.scoreboardPeriod > 0) {
+			final SimulationScoreboard scoreboard = new SimulationScoreboard(scenario.scoreboardPeriod);
+
+			for (final Player player : server.getOnlinePlayers())
+				scoreboard.show(player);
+		}
+
+		new LoadSimulation(scenario, server).run();
+
+		server.shutdown();
+		System.exit(0);
+	}
+
+	/*
+	 * Warm up, reset all statistics, then run the measured ticks and print the report
+	 */
+	private void run() {
+		System.out.println("Simulating " + this.scenario + " ...");
+
+		this.runTicks(this.scenario.warmupTicks);
+
+		MetricsRegistry.reset();
+		this.server.resetCounters();
+
+		if (this.scenario.profile)
+			TickProfiler.enable();
+
+		final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+		final long allocatedBefore = allocatedBytes(threads);
+		final long[] gcBefore = gcStats();
+		final long started = System.nanoTime();
+
+		this.runTicks(this.scenario.ticks);
+
+		final double seconds = (System.nanoTime() - started) / 1_000_000_000D;
+		final long allocated = allocatedBytes(threads) - allocatedBefore;
+		final long[] gcAfter = gcStats();
+
+		if (this.scenario.profile)
+			TickProfiler.disable();
+
+		this.report(seconds, allocated, gcAfter[0] - gcBefore[0], gcAfter[1] - gcBefore[1]);
+	}
+
+	/*
+	 * Run the given amount of ticks, each player rolls for every workload each tick
+	 */
+	private void runTicks(int ticks) {
+		final List<Player> players = this.server.getOnlinePlayers();
+		final Workload[] workloads = Workload.values();
+
+		for (int tick = 0; tick < ticks; tick++) {
+			final long tickStart = System.nanoTime();
+
+			for (final Player player : players)
+				for (final Workload workload : workloads)
+					if (this.random.nextDouble() < this.scenario.getChance(workload)) {
+						final long start = System.nanoTime();
+
+						try {
+							this.perform(workload, player, players);
+
+						} catch (final Throwable t) {
+							Common.error(t, "Simulated " + workload.getKey() + " failed for " + player.getName());
+						}
+
+						this.timers.get(workload).stop(start);
+					}
+
+			this.server.tick();
+			this.tickTimer.stop(tickStart);
+		}
+	}
+
+	/*
+	 * Run one operation of the workload as the given player
+	 */
+	private void perform(Workload workload, Player player, List<Player> players) {
+		switch (workload) {
+			case CHAT: {
+				this.chatReplacements.put("rank", player.getName().hashCode() % 10 == 0 ? "VIP" : "Member");
+				this.chatReplacements.put("message", CHAT_LINES[this.random.nextInt(CHAT_LINES.length)]);
+
+				Common.broadcastTo(players, Variables.replace(CHAT_FORMAT, player, this.chatReplacements));
+				break;
+			}
+
+			case COMMAND: {
+				final String[] args = COMMAND_ARGS[this.random.nextInt(COMMAND_ARGS.length)].clone();
+
+				for (int i = 0; i < args.length; i++)
+					if ("{target}".equals(args[i]))
+						args[i] = players.get(this.random.nextInt(players.size())).getName();
+
+				this.command.execute(player, "eco", args);
+				break;
+			}
+
+			case MENU:
+				new SimulationMenu(1 + this.random.nextInt(5)).open(player);
+				break;
+
+			case BUNGEE:
+				BungeeUtil.sendPluginMessage(player, CHANNEL, SimulationMessage.CHAT, player.getUniqueId(), player.getName(), CHAT_LINES[this.random.nextInt(CHAT_LINES.length)]);
+				break;
+		}
+	}
+
+	/*
+	 * Print throughput, latency percentiles, allocation and what players received
+	 */
+	private void report(double seconds, long allocated, long gcCount, long gcMillis) {
+		final TimerSnapshot tick = this.tickTimer.snapshot();
+		final List<String> lines = new ArrayList<>();
+		long operations = 0;
+
+		lines.add("");
+		lines.add(String.format("Measured %d ticks with %d players in %.2fs", this.scenario.ticks, this.scenario.players, seconds));
+		lines.add(String.format("%-12s %10s %10s %10s %10s %10s %10s %10s", "", "count", "ops/s", "mean", "p50", "p95", "p99", "max"));
+		lines.add(formatRow("tick", tick, seconds));
+
+		for (final Workload workload : Workload.values()) {
+			final TimerSnapshot snapshot = this.timers.get(workload).snapshot();
+
+			operations += snapshot.getCount();
+			lines.add(formatRow(workload.getKey(), snapshot, seconds));
+		}
+
+		lines.add("");
+		lines.add(String.format("Tick budget used: %.1f%% on average, %.1f%% at p99 (50ms per tick)", tick.getMean() / 500_000D, tick.getP99() / 500_000D));
+		lines.add(String.format("Operations: %d total, %.0f/s", operations, operations / seconds));
+
+		if (allocated >= 0)
+			lines.add(String.format("Allocated on the main thread: %.1f MB/s, %.1f KB per tick, %d bytes per operation",
+					allocated / seconds / 1_048_576D, allocated / (double) this.scenario.ticks / 1024D, operations == 0 ? 0 : allocated / operations));
+		else
+			lines.add("Allocated on the main thread: not supported by this JVM");
+
+		lines.add(String.format("Garbage collection: %d collections, %dms", gcCount, gcMillis));
+		lines.add(String.format("Players received %d chat messages, %d plugin messages (%d bytes) and %d inventories",
+				this.server.getMessagesSent(), this.server.getPluginMessagesSent(), this.server.getPluginMessageBytes(), this.server.getInventoriesOpened()));
+
+		if (this.scenario.profile) {
+			lines.add("");
+
+			for (final String line : TickProfiler.getReport())
+				lines.add(Common.stripColors(line));
+		}
+
+		for (final String line : lines)
+			System.out.println(line);
+	}
+
+	/*
+	 * Format one row of the latency table in milliseconds
+	 */
+	private static String formatRow(String name, TimerSnapshot snapshot, double seconds) {
+		return String.format("%-12s %10d %10.0f %8.3fms %8.3fms %8.3fms %8.3fms %8.3fms", name, snapshot.getCount(), snapshot.getCount() / seconds,
+				snapshot.getMean() / 1_000_000D, snapshot.getP50() / 1_000_000D, snapshot.getP95() / 1_000_000D, snapshot.getP99() / 1_000_000D, snapshot.getMax() / 1_000_000D);
+	}
+
+	/*
+	 * Return bytes allocated by the current thread so far, or -1 if the JVM cannot tell
+	 */
+	private static long allocatedBytes(ThreadMXBean threads) {
+		if (threads instanceof com.sun.management.ThreadMXBean) {
+			final com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+
+			if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled())
+				return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+
+		return -1;
+	}
+
+	/*
+	 * Return total garbage collections and the time spent in them in milliseconds
+	 */
+	private static long[] gcStats() {
+		long count = 0;
+		long millis = 0;
+
+		for (final GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(0, collector.getCollectionCount());
+			millis += Math.max(0, collector.getCollectionTime());
+		}
+
+		return new long[] { count, millis };
+	}
+
+	/*
+	 * What simulated players do
+	 */
+	private enum Workload {
+		CHAT("chat"),
+		COMMAND("command"),
+		MENU("menu"),
+		BUNGEE("bungee");
+
+		private final String key;
+
+		Workload(String key) {
+			this.key = key;
+		}
+
+		String getKey() {
+			return this.key;
+		}
+	}
+
+	/*
+	 * The simulation settings parsed from key=value arguments
+	 */
+	private static final class Scenario {
+
+		private int players = 500;
+		private int ticks = 1200;
+		private int warmupTicks = 400;
+		private long seed = 1;
+		private int scoreboardPeriod = 20;
+		private boolean profile = true;
+		private final Map<Workload, Double> chances = new EnumMap<>(Workload.class);
+
+		private Scenario() {
+			this.chances.put(Workload.CHAT, 0.005);
+			this.chances.put(Workload.COMMAND, 0.0025);
+			this.chances.put(Workload.MENU, 0.002);
+			this.chances.put(Workload.BUNGEE, 0.005);
+		}
+
+		double getChance(Workload workload) {
+			return this.chances.get(workload);
+		}
+
+		static Scenario parse(String[] args) {
+			final Scenario scenario = new Scenario();
+
+			for (final String arg : args) {
+				final String[] split = arg.split("=", 2);
+
+				if (split.length != 2)
+					throw new IllegalArgumentException("Expected key=value, got: " + arg);
+
+				final String key = split[0].toLowerCase();
+				final String value = split[1];
+
+				if ("players".equals(key))
+					scenario.players = Integer.parseInt(value);
+
+				else if ("ticks".equals(key))
+					scenario.ticks = Integer.parseInt(value);
+
+				else if ("warmup".equals(key))
+					scenario.warmupTicks = Integer.parseInt(value);
+
+				else if ("seed".equals(key))
+					scenario.seed = Long.parseLong(value);
+
+				else if ("scoreboard".equals(key))
+					scenario.scoreboardPeriod = Integer.parseInt(value);
+
+				else if ("profile".equals(key))
+					scenario.profile = Boolean.parseBoolean(value);
+
+				else {
+					Workload workload = null;
+
+					for (final Workload other : Workload.values())
+						if (other.getKey().equals(key))
+							workload = other;
+
+					if (workload == null)
+						throw new IllegalArgumentException("Unknown setting: " + key);
+
+					scenario.chances.put(workload, Double.parseDouble(value));
+				}
+			}
+
+			if (scenario.players < 1 || scenario.ticks < 1 || scenario.warmupTicks < 0)
+				throw new IllegalArgumentException("Players and ticks must be positive and warmup cannot be negative");
+
+			return scenario;
+		}
+
+		@Override
+		public String toString() {
+			return this.players + " players, " + this.ticks + " ticks after " + this.warmupTicks + " warmup ticks, seed " + this.seed
+					+ ", chances per player per tick " + this.chances + ", scoreboard every " + this.scoreboardPeriod + " ticks";
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package org.mineacademy.fo.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+import org.bukkit.entity.Player;
+import org.mineacademy.fo.Common;
+import org.mineacademy.fo.command.SimpleCommand;
+
+/**
+ * A small economy command resembling what plugins typically run,
+ * looking up players, parsing numbers and messaging both sides
+ */
+final class SimulationCommand extends SimpleCommand {
+
+	/**
+	 * Coins of each player, only touched from the main thread
+	 */
+	private final Map<UUID, Integer> balances = new HashMap<>();
+
+	SimulationCommand() {
+		super("economy|eco");
+
+		this.setMinArguments(1);
+		this.setUsage("<balance|pay> [player] [amount]");
+		this.setDescription("Check or send coins.");
+	}
+
+	@Override
+	protected void onCommand() {
+		this.checkConsole();
+
+		final Player player = this.getPlayer();
+		final String param = this.args[0].toLowerCase();
+
+		if ("balance".equals(param))
+			this.tell("&6Your balance is &f" + this.getBalance(player) + " &6coins.");
+
+		else if ("pay".equals(param)) {
+			this.checkArgs(3, "Usage: /{label} pay <player> <amount>");
+
+			final Player target = this.findPlayer(this.args[1]);
+			final int amount = this.findNumber(2, 1, 1000, "Amount must be between {min} and {max}.");
+
+			this.balances.put(player.getUniqueId(), this.getBalance(player) - amount);
+			this.balances.put(target.getUniqueId(), this.getBalance(target) + amount);
+
+			this.tell("&6You sent &f" + amount + " &6coins to &f" + target.getName() + "&6.");
+			Common.tell(target, "&f" + player.getName() + " &6sent you &f" + amount + " &6coins.");
+		}
+
+		else
+			this.returnInvalidArgs();
+	}
+
+	/*
+	 * Return the coins of the player, everyone starts with 1000
+	 */
+	private int getBalance(Player player) {
+		return this.balances.getOrDefault(player.getUniqueId(), 1000);
+	}
+}
@@ -0,0 +1,52 @@
+package org.mineacademy.fo.loadtest;
+
+import org.bukkit.Material;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
+import org.mineacademy.fo.menu.Menu;
+
+/**
+ * A shop-like menu filled with items, created anew for every opening like most plugins do
+ */
+final class SimulationMenu extends Menu {
+
+	/**
+	 * Items shared by all menus, built once
+	 */
+	private static final ItemStack[] ITEMS = {
+			new ItemStack(Material.DIAMOND),
+			new ItemStack(Material.EMERALD, 16),
+			new ItemStack(Material.GOLD_INGOT, 32),
+			new ItemStack(Material.IRON_SWORD),
+			new ItemStack(Material.BREAD, 64),
+	};
+
+	/**
+	 * The shop page
+	 */
+	private final int page;
+
+	SimulationMenu(int page) {
+		this.page = page;
+
+		this.setSize(9 * 3);
+		this.setTitle("&8Shop &7- &8Page " + page);
+	}
+
+	@Override
+	public ItemStack getItemAt(int slot) {
+		if (slot < 9 || slot >= 18)
+			return new ItemStack(Material.BLACK_STAINED_GLASS_PANE);
+
+		return ITEMS[(slot + this.page) % ITEMS.length];
+	}
+
+	/**
+	 * Display this menu to the player
+	 *
+	 * @param player
+	 */
+	void open(Player player) {
+		this.displayTo(player);
+	}
+}
@@ -0,0 +1,30 @@
+package org.mineacademy.fo.loadtest;
+
+import java.util.UUID;
+
+import org.mineacademy.fo.bungee.BungeeMessageType;
+
+/**
+ * Plugin messages the simulation forwards to the proxy
+ */
+enum SimulationMessage implements BungeeMessageType {
+
+	/**
+	 * A chat message forwarded to other servers: sender id, sender name, message
+	 */
+	CHAT(UUID.class, String.class, String.class);
+
+	/**
+	 * The data types in the order they are written
+	 */
+	private final Class<?>[] content;
+
+	SimulationMessage(Class<?>... content) {
+		this.content = content;
+	}
+
+	@Override
+	public Class<?>[] getContent() {
+		return this.content;
+	}
+}
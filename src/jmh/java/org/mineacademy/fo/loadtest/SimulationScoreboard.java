@@ -0,0 +1,32 @@
+package org.mineacademy.fo.loadtest;
+
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.mineacademy.fo.model.SimpleScoreboard;
+
+/**
+ * A sidebar with per-player and server wide rows, rendered for every player
+ */
+final class SimulationScoreboard extends SimpleScoreboard {
+
+	SimulationScoreboard(int updateDelayTicks) {
+		super("&6&lSimulation", updateDelayTicks);
+
+		this.addRows(
+				"&7Player: &f{player}",
+				"&7Online: &f{online}",
+				"",
+				"&7Coins: &f{coins}",
+				"&7Rank: &f{rank}",
+				"",
+				"&eplay.example.org");
+	}
+
+	@Override
+	protected String replaceVariables(Player player, String message) {
+		return message
+				.replace("{online}", String.valueOf(Bukkit.getOnlinePlayers().size()))
+				.replace("{coins}", String.valueOf(Math.abs(player.getName().hashCode() % 10_000)))
+				.replace("{rank}", player.getName().hashCode() % 10 == 0 ? "VIP" : "Member");
+	}
+}
@@ -0,0 +1,78 @@
+package org.mineacademy.fo.plugin;
+
+import java.io.File;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.nio.file.Files;
+
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.PluginDescriptionFile;
+import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.plugin.java.JavaPluginLoader;
+import org.mineacademy.fo.remain.Remain;
+
+/**
+ * The plugin Foundation runs as during the load simulation.
+ * <p>
+ * Plugins can only be created by the server's plugin class loader, so we create this one
+ * through the constructor {@link JavaPlugin} keeps for tests instead, and fill in what
+ * {@link SimplePlugin} would otherwise set up. It lives in the plugin package to reach
+ * its package-private parts.
+ */
+public final class SimulationPlugin extends SimplePlugin {
+
+	@Override
+	protected void onPluginStart() {
+	}
+
+	/**
+	 * Load the plugin into the already installed server and mark it enabled.
+	 *
+	 * We skip onEnable on purpose since it scans the plugin jar and loads settings
+	 * files we do not have, none of which is on the paths we simulate.
+	 *
+	 * @return
+	 * @throws Exception
+	 */
+	public static SimulationPlugin boot() throws Exception {
+		final File dataFolder = Files.createTempDirectory("foundation-simulation").toFile();
+		final SimulationPlugin plugin = create(new JavaPluginLoader(Bukkit.getServer()), new PluginDescriptionFile("Simulation", "1.0.0", SimulationPlugin.class.getName()), dataFolder, new File(dataFolder, "Simulation.jar"));
+
+		// The server would make us the instance, and constructors we skipped create the reloadables
+		setField(SimplePlugin.class, null, "instance", plugin);
+		setField(SimplePlugin.class, plugin, "reloadables", new Reloadables());
+
+		plugin.onLoad();
+		setField(JavaPlugin.class, plugin, "isEnabled", true);
+
+		// BungeeUtil refuses to send messages without it
+		Remain.setServerName("simulation");
+
+		return plugin;
+	}
+
+	/*
+	 * Create the plugin running only the test constructor of JavaPlugin, the same way
+	 * deserialization creates objects without calling constructors of their subclasses
+	 */
+	private static SimulationPlugin create(JavaPluginLoader loader, PluginDescriptionFile description, File dataFolder, File file) throws Exception {
+		final Constructor<JavaPlugin> testConstructor = JavaPlugin.class.getDeclaredConstructor(JavaPluginLoader.class, PluginDescriptionFile.class, File.class, File.class);
+		final Class<?> factoryClass = Class.forName("sun.reflect.ReflectionFactory");
+		final Object factory = factoryClass.getMethod("getReflectionFactory").invoke(null);
+		final Constructor<?> constructor = (Constructor<?>) factoryClass.getMethod("newConstructorForSerialization", Class.class, Constructor.class).invoke(factory, SimulationPlugin.class, testConstructor);
+
+		constructor.setAccessible(true);
+
+		return (SimulationPlugin) constructor.newInstance(loader, description, dataFolder, file);
+	}
+
+	/*
+	 * Set the field declared in the given class, pass null instance for static fields
+	 */
+	private static void setField(Class<?> owner, Object instance, String name, Object value) throws ReflectiveOperationException {
+		final Field field = owner.getDeclaredField(name);
+
+		field.setAccessible(true);
+		field.set(instance, value);
+	}
+}
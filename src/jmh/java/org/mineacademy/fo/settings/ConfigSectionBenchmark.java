@@ -0,0 +1,58 @@
+package org.mineacademy.fo.settings;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link ConfigSection#retrieve(String)} at different depths,
+ * used by every getter in {@link FileConfig}.
+ *
+ * Lives in the settings package because config sections are created internally.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConfigSectionBenchmark {
+
+	private ConfigSection section;
+
+	@Setup
+	public void setup() {
+		this.section = new ConfigSection();
+
+		for (int i = 0; i < 50; i++) {
+			this.section.store("Key_" + i, i);
+			this.section.store("Channels.Channel_" + i + ".Format", "&7{player}: {message}");
+			this.section.store("Channels.Channel_" + i + ".Range.Enabled", i % 2 == 0);
+			this.section.store("Channels.Channel_" + i + ".Range.Distance", i * 10);
+		}
+	}
+
+	@Benchmark
+	public Object shallow() {
+		return this.section.retrieve("Key_25");
+	}
+
+	@Benchmark
+	public Object deep() {
+		return this.section.retrieve("Channels.Channel_25.Range.Distance");
+	}
+
+	@Benchmark
+	public Object missing() {
+		return this.section.retrieve("Channels.Channel_99.Range.Distance");
+	}
+}
@@ -8,6 +8,8 @@ import org.bukkit.entity.Player;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.meta.ItemMeta;
 import org.bukkit.scheduler.BukkitTask;
+import org.mineacademy.fo.debug.TickProfiler;
+import org.mineacademy.fo.debug.TickProfiler.Subsystem;
 import org.mineacademy.fo.model.SimpleRunnable;
 import org.mineacademy.fo.model.SimpleScoreboard;
 import org.mineacademy.fo.plugin.SimplePlugin;
@@ -227,12 +229,16 @@ public class AnimationUtil {
 
 			@Override
 			public void run() {
+				final long profileStart = TickProfiler.start();
+
 				Remain.sendBossbarPercent(player, animatedFrames.get(this.frame), 100);
 
 				this.frame++;
 
 				if (this.frame == animatedFrames.size())
 					this.frame = 0;
+
+				TickProfiler.stop(Subsystem.BOSS_BAR, profileStart);
 			}
 		}.runTaskTimer(SimplePlugin.getInstance(), delay, period);
 	}
@@ -267,6 +273,7 @@ public class AnimationUtil {
 				if (!this.run)
 					return;
 
+				final long profileStart = TickProfiler.start();
 				final String title = animatedFrames.get(this.frame % (animatedFrames.size() * finalSmoothnessLevel));
 
 				if (animatedColors != null)
@@ -293,6 +300,8 @@ public class AnimationUtil {
 						Remain.removeBossBar(player);
 					}
 				}
+
+				TickProfiler.stop(Subsystem.BOSS_BAR, profileStart);
 			}
 		}.runTaskTimer(SimplePlugin.getInstance(), delay, period / smoothnessLevel);
 	}
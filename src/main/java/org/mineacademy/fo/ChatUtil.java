@@ -4,6 +4,7 @@ import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 import org.bukkit.ChatColor;
 import org.mineacademy.fo.MinecraftVersion.V;
+import org.mineacademy.fo.collection.expiringmap.ExpiringMap;
 import org.mineacademy.fo.model.Whiteblacklist;
 import org.mineacademy.fo.plugin.SimplePlugin;
 import org.mineacademy.fo.remain.CompChatColor;
@@ -14,6 +15,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -33,6 +36,13 @@ public final class ChatUtil {
 	 */
 	public final static int VISIBLE_CHAT_LINES = 20;
 
+	/**
+	 * Recently centered messages, since we often center the same lines from settings
+	 *
+	 * Center px, space and message - Centered message
+	 */
+	private static final Map<String, String> centeredCache = ExpiringMap.builder().maxSize(500).expiration(10, TimeUnit.MINUTES).build();
+
 	/**
 	 * Centers a message automatically for padding {@link #CENTER_PX}
 	 *
@@ -80,12 +90,29 @@ public final class ChatUtil {
 		if (message == null || message.equals(""))
 			return "";
 
+		final String cacheKey = centerPx + ":" + space + ":" + message;
+		String centered = centeredCache.get(cacheKey);
+
+		if (centered == null) {
+			centered = center0(message, space, centerPx);
+
+			centeredCache.put(cacheKey, centered);
+		}
+
+		return centered;
+	}
+
+	/*
+	 * Centers the message, see {@link #center(String, char, int)}
+	 */
+	private static String center0(final String message, final char space, final int centerPx) {
 		int messagePxSize = 0;
 
 		boolean previousCode = false;
 		boolean isBold = false;
 
-		for (final char c : message.toCharArray())
+		for (int i = 0; i < message.length(); i++) {
+			final char c = message.charAt(i);
 
 			if (c == '&' || c == ChatColor.COLOR_CHAR) {
 				previousCode = true;
@@ -105,18 +132,16 @@ public final class ChatUtil {
 				isBold = false;
 
 			} else {
-				final DefaultFontInfo defaultFont = DefaultFontInfo.getDefaultFontInfo(c);
-
-				messagePxSize += isBold ? defaultFont.getBoldLength() : defaultFont.getLength();
+				messagePxSize += DefaultFontInfo.getLength(c, isBold);
 				messagePxSize++;
 			}
+		}
 
 		final StringBuilder builder = new StringBuilder();
 
 		final int halvedMessageSize = messagePxSize / 2;
 		final int toCompensate = centerPx - halvedMessageSize;
-		final DefaultFontInfo font = DefaultFontInfo.getDefaultFontInfo(space);
-		final double spaceLength = isBold ? font.getBoldLength() : font.getLength();
+		final double spaceLength = DefaultFontInfo.getLength(space, isBold);
 
 		double compensated = 0;
 
@@ -126,7 +151,9 @@ public final class ChatUtil {
 			compensated += spaceLength;
 		}
 
-		return builder.toString() + " " + message + " " + builder.toString();
+		final String padding = builder.toString();
+
+		return padding + " " + message + " " + padding;
 	}
 
 	/**
@@ -911,6 +938,34 @@ enum DefaultFontInfo {
 	SPACE(' ', 4),
 	DEFAULT('a', 4);
 
+	/**
+	 * The font info indexed by character, for characters we know
+	 */
+	private static final DefaultFontInfo[] BY_CHARACTER = new DefaultFontInfo[128];
+
+	/**
+	 * The pixel lengths indexed by character, unknown characters have the {@link #DEFAULT} length
+	 */
+	private static final int[] LENGTHS = new int[128];
+
+	/**
+	 * The bold pixel lengths indexed by character, unknown characters have the {@link #DEFAULT} length
+	 */
+	private static final int[] BOLD_LENGTHS = new int[128];
+
+	static {
+		for (final DefaultFontInfo info : values())
+			if (info != DEFAULT && BY_CHARACTER[info.character] == null)
+				BY_CHARACTER[info.character] = info;
+
+		for (int c = 0; c < BY_CHARACTER.length; c++) {
+			final DefaultFontInfo info = BY_CHARACTER[c] != null ? BY_CHARACTER[c] : DEFAULT;
+
+			LENGTHS[c] = info.getLength();
+			BOLD_LENGTHS[c] = info.getBoldLength();
+		}
+	}
+
 	private final char character;
 	private final int length;
 
@@ -934,10 +989,16 @@ enum DefaultFontInfo {
 	}
 
 	public static DefaultFontInfo getDefaultFontInfo(final char c) {
-		for (final DefaultFontInfo dFI : DefaultFontInfo.values())
-			if (dFI.getCharacter() == c)
-				return dFI;
+		if (c < BY_CHARACTER.length && BY_CHARACTER[c] != null)
+			return BY_CHARACTER[c];
 
 		return DefaultFontInfo.DEFAULT;
 	}
+
+	public static int getLength(final char c, final boolean bold) {
+		if (c < LENGTHS.length)
+			return bold ? BOLD_LENGTHS[c] : LENGTHS[c];
+
+		return bold ? DEFAULT.getBoldLength() : DEFAULT.getLength();
+	}
 }
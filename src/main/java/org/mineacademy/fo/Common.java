@@ -26,6 +26,7 @@ import org.bukkit.util.Vector;
 import org.mineacademy.fo.collection.SerializedMap;
 import org.mineacademy.fo.collection.StrictList;
 import org.mineacademy.fo.collection.StrictMap;
+import org.mineacademy.fo.collection.expiringmap.ExpiringMap;
 import org.mineacademy.fo.constants.FoConstants;
 import org.mineacademy.fo.debug.Debugger;
 import org.mineacademy.fo.exception.FoException;
@@ -49,6 +50,8 @@ import java.net.HttpURLConnection;
 import java.net.URL;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -101,6 +104,14 @@ public final class Common {
 	 */
 	private static final Map<String, Long> TIMED_LOG_CACHE = new HashMap<>();
 
+	/**
+	 * A short-lived snapshot of permissions checked when broadcasting, so that sending a burst of
+	 * messages to players with a permission only resolves each player's permission once.
+	 *
+	 * Player UUID - [Permission - Has permission]
+	 */
+	private static final Map<UUID, Map<String, Boolean>> BROADCAST_PERMISSION_CACHE = ExpiringMap.builder().expiration(1, TimeUnit.SECONDS).build();
+
 	// ------------------------------------------------------------------------------------------------------------
 	// Tell prefix
 	// ------------------------------------------------------------------------------------------------------------
@@ -171,8 +182,10 @@ public final class Common {
 	public static void broadcast(final String... messages) {
 		if (messages != null)
 			for (final String message : messages) {
+				final BroadcastTemplate template = BroadcastTemplate.compile(message);
+
 				for (final Player online : Remain.getOnlinePlayers())
-					tellJson(online, message);
+					template.send(online);
 
 				log(message);
 			}
@@ -185,22 +198,34 @@ public final class Common {
 	 * @param messages
 	 */
 	public static void broadcastTo(final Iterable<? extends CommandSender> recipients, final String... messages) {
+		final BroadcastTemplate[] templates = new BroadcastTemplate[messages.length];
+
+		for (int i = 0; i < messages.length; i++)
+			templates[i] = BroadcastTemplate.compile(messages[i]);
+
 		for (final CommandSender recipient : recipients)
-			tell(recipient, messages);
+			for (final BroadcastTemplate template : templates)
+				template.send(recipient);
 	}
 
 	/**
 	 * Broadcast the message to everyone with permission
 	 *
+	 * Permissions are remembered for one second per player so that a burst of broadcasts
+	 * does not query the permission plugin for every message. A player whose permission
+	 * was revoked within the last second may still receive the message.
+	 *
 	 * @param showPermission
 	 * @param message
 	 * @param log
 	 */
 	public static void broadcastWithPerm(final String showPermission, final String message, final boolean log) {
 		if (message != null) {
+			final BroadcastTemplate template = BroadcastTemplate.compile(message);
+
 			for (final Player online : Remain.getOnlinePlayers())
-				if (PlayerUtil.hasPerm(online, showPermission))
-					tellJson(online, message);
+				if (hasCachedPerm(online, showPermission))
+					template.send(online);
 
 			if (log)
 				log(message);
@@ -213,13 +238,14 @@ public final class Common {
 	 * @param permission
 	 * @param message
 	 * @param log
+	 * @see #broadcastWithPerm(String, String, boolean)
 	 */
 	public static void broadcastWithPerm(final String permission, @NonNull final TextComponent message, final boolean log) {
 		final String legacy = message.toLegacyText();
 
 		if (!legacy.equals("none")) {
 			for (final Player online : Remain.getOnlinePlayers())
-				if (PlayerUtil.hasPerm(online, permission))
+				if (hasCachedPerm(online, permission))
 					Remain.sendComponent(online, message);
 
 			if (log)
@@ -227,6 +253,32 @@ public final class Common {
 		}
 	}
 
+	/*
+	 * Checks the permission against the short-lived permission snapshot so that broadcasting many messages does not query permission plugins per player per message
+	 */
+	private static boolean hasCachedPerm(final Player player, final String permission) {
+		if (permission == null)
+			return PlayerUtil.hasPerm(player, permission);
+
+		Map<String, Boolean> snapshot = BROADCAST_PERMISSION_CACHE.get(player.getUniqueId());
+
+		if (snapshot == null) {
+			snapshot = new ConcurrentHashMap<>();
+
+			BROADCAST_PERMISSION_CACHE.put(player.getUniqueId(), snapshot);
+		}
+
+		Boolean has = snapshot.get(permission);
+
+		if (has == null) {
+			has = PlayerUtil.hasPerm(player, permission);
+
+			snapshot.put(permission, has);
+		}
+
+		return has;
+	}
+
 	// ------------------------------------------------------------------------------------------------------------
 	// Messaging
 	// ------------------------------------------------------------------------------------------------------------
@@ -456,20 +508,27 @@ public final class Common {
 
 				final String toSend = part.startsWith("<center>") ? ChatUtil.center(prefix + part.replace("<center>", "")) : prefix + part;
 
-				try {
-					// Make player engaged in a server conversation still receive the message
-					if (sender instanceof Conversable && ((Conversable) sender).isConversing())
-						((Conversable) sender).sendRawMessage(toSend);
+				sendRawLine(sender, toSend);
+			}
+	}
 
-					else
-						sender.sendMessage(toSend);
+	/*
+	 * Sends the already colorized and prefixed line to the sender as-is
+	 */
+	private static void sendRawLine(final CommandSender sender, final String toSend) {
+		try {
+			// Make player engaged in a server conversation still receive the message
+			if (sender instanceof Conversable && ((Conversable) sender).isConversing())
+				((Conversable) sender).sendRawMessage(toSend);
 
-				} catch (final Throwable t) {
-					Bukkit.getLogger().severe("Failed to send message to " + sender.getName() + ", message: " + toSend);
+			else
+				sender.sendMessage(toSend);
 
-					t.printStackTrace();
-				}
-			}
+		} catch (final Throwable t) {
+			Bukkit.getLogger().severe("Failed to send message to " + sender.getName() + ", message: " + toSend);
+
+			t.printStackTrace();
+		}
 	}
 
 	/**
@@ -2937,6 +2996,134 @@ public final class Common {
 		D convertValue(B value);
 	}
 
+	/**
+	 * Represents a message analysed once for broadcasting. Colors, the tell prefix
+	 * and centering are rendered a single time and only the parts that depend on
+	 * the recipient, such as the {player} variable, are rendered for each recipient.
+	 *
+	 * Messages using [JSON], &lt;actionbar&gt;, &lt;toast&gt;, &lt;title&gt; or &lt;bossbar&gt;
+	 * are sent through the regular tell() path for each recipient.
+	 */
+	public static final class BroadcastTemplate {
+
+		/**
+		 * The original message
+		 */
+		@Getter
+		private final String message;
+
+		/**
+		 * True if the message cannot be rendered once because it has a special prefix
+		 */
+		private final boolean renderPerRecipient;
+
+		/**
+		 * The colorized and prefixed lines, may still contain {player}
+		 */
+		private final String[] lines;
+
+		/**
+		 * Does the line at the given index contain {player}?
+		 */
+		private final boolean[] playerDependent;
+
+		/**
+		 * Shall the line at the given index be centered after {player} has been replaced?
+		 */
+		private final boolean[] centerPerRecipient;
+
+		/*
+		 * Analyse the message and render what we can ahead of time
+		 */
+		private BroadcastTemplate(final String message) {
+			this.message = message;
+
+			final boolean empty = message == null || message.isEmpty() || "none".equals(message);
+			final boolean special = !empty && (message.startsWith("[JSON]") || message.startsWith("<actionbar>") || message.startsWith("<toast>") || message.startsWith("<title>") || message.startsWith("<bossbar>"));
+
+			this.renderPerRecipient = special;
+
+			if (empty || this.renderPerRecipient) {
+				this.lines = new String[0];
+				this.playerDependent = new boolean[0];
+				this.centerPerRecipient = new boolean[0];
+
+				return;
+			}
+
+			final boolean hasPrefix = message.contains("{prefix}");
+			final String prefixStripped = removeSurroundingSpaces(tellPrefix);
+			final String prefix = !hasPrefix && !prefixStripped.isEmpty() ? prefixStripped + " " : "";
+
+			final String[] parts = colorize(message).split("\n");
+
+			this.lines = new String[parts.length];
+			this.playerDependent = new boolean[parts.length];
+			this.centerPerRecipient = new boolean[parts.length];
+
+			for (int i = 0; i < parts.length; i++) {
+				final String part = parts[i];
+				final boolean center = part.startsWith("<center>");
+				final String line = prefix + (center ? part.replace("<center>", "") : part);
+
+				this.playerDependent[i] = line.contains("{player}");
+				this.centerPerRecipient[i] = center && this.playerDependent[i];
+				this.lines[i] = center && !this.playerDependent[i] ? ChatUtil.center(line) : line;
+			}
+		}
+
+		/**
+		 * Send this message to all recipients
+		 *
+		 * @param recipients
+		 */
+		public void send(final Iterable<? extends CommandSender> recipients) {
+			for (final CommandSender recipient : recipients)
+				this.send(recipient);
+		}
+
+		/**
+		 * Send this message to the given recipient, only rendering parts that depend on it
+		 *
+		 * @param recipient
+		 */
+		public void send(@NonNull final CommandSender recipient) {
+			if (this.renderPerRecipient) {
+				tellJson(recipient, this.message);
+
+				return;
+			}
+
+			String playerName = null;
+
+			for (int i = 0; i < this.lines.length; i++) {
+				String line = this.lines[i];
+
+				if (this.playerDependent[i]) {
+					if (playerName == null)
+						playerName = colorize(resolveSenderName(recipient));
+
+					line = line.replace("{player}", playerName);
+
+					if (this.centerPerRecipient[i])
+						line = ChatUtil.center(line);
+				}
+
+				sendRawLine(recipient, line);
+			}
+		}
+
+		/**
+		 * Analyse the given message for broadcasting, only replacing {player} for each recipient
+		 *
+		 * @param message
+		 * @return
+		 */
+		public static BroadcastTemplate compile(final String message) {
+			return new BroadcastTemplate(message);
+		}
+	}
+
 	/**
 	 * Represents a timed chat sequence, used when checking for
 	 * regular expressions so we time how long it takes and
@@ -5,6 +5,8 @@ import org.bukkit.entity.Entity;
 import org.bukkit.entity.LivingEntity;
 import org.bukkit.scheduler.BukkitTask;
 import org.mineacademy.fo.Common;
+import org.mineacademy.fo.debug.TickProfiler;
+import org.mineacademy.fo.debug.TickProfiler.Subsystem;
 
 import java.util.ArrayList;
 import java.util.Collection;
@@ -89,7 +91,13 @@ public final class SpawnedBoss {
      */
     public void runTaskOnce(){
         if (entity.isValid()){
-            boss.runTask(entity);
+            final long profileStart = TickProfiler.start();
+
+            try {
+                boss.runTask(entity);
+            } finally {
+                TickProfiler.stop(Subsystem.BOSS, profileStart);
+            }
         }
         else{
             cancelTask();
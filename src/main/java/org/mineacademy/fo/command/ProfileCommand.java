@@ -0,0 +1,83 @@
+package org.mineacademy.fo.command;
+
+import java.io.File;
+import java.util.List;
+
+import org.mineacademy.fo.debug.TickProfiler;
+
+/**
+ * A sample sub-command that you can automatically add
+ * to your main command group to find out how much of each tick
+ * is spent inside menus, commands, scoreboards and other Foundation code.
+ *
+ * See {@link TickProfiler}
+ */
+public final class ProfileCommand extends SimpleSubCommand {
+
+	/**
+	 * Create a new sub-command with the given permission.
+	 *
+	 * @param permission
+	 */
+	public ProfileCommand(String permission) {
+		this();
+
+		this.setPermission(permission);
+	}
+
+	public ProfileCommand() {
+		super("profile|prof");
+
+		this.setDescription("Measure how long Foundation code takes each tick.");
+		this.setUsage("<start|stop|report|export|reset>");
+		this.setMinArguments(1);
+	}
+
+	@Override
+	protected void onCommand() {
+		final String param = this.args[0].toLowerCase();
+
+		if ("start".equals(param)) {
+			this.checkBoolean(!TickProfiler.isEnabled(), "The profiler is already running.");
+
+			TickProfiler.enable();
+			this.tell("&6Profiler started. Use &f/" + this.getLabel() + " " + this.getSublabel() + " report &6to see the results.");
+		}
+
+		else if ("stop".equals(param)) {
+			this.checkBoolean(TickProfiler.isEnabled(), "The profiler is not running.");
+
+			TickProfiler.disable();
+			this.tellNoPrefix(TickProfiler.getReport());
+		}
+
+		else if ("report".equals(param))
+			this.tellNoPrefix(TickProfiler.getReport());
+
+		else if ("export".equals(param)) {
+			final File file = TickProfiler.export();
+
+			this.tell("&6Profiler report saved to &f" + file.getParentFile().getName() + "/" + file.getName() + "&6.");
+		}
+
+		else if ("reset".equals(param)) {
+			TickProfiler.reset();
+
+			this.tell("&6Profiler results have been reset.");
+		}
+
+		else
+			this.returnInvalidArgs();
+	}
+
+	/**
+	 * @see org.mineacademy.fo.command.SimpleCommand#tabComplete()
+	 */
+	@Override
+	protected List<String> tabComplete() {
+		if (this.args.length == 1)
+			return this.completeLastWord("start", "stop", "report", "export", "reset");
+
+		return NO_COMPLETE;
+	}
+}
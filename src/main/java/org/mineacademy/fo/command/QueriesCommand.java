@@ -0,0 +1,71 @@
+package org.mineacademy.fo.command;
+
+import java.io.File;
+import java.util.List;
+
+import org.mineacademy.fo.FileUtil;
+import org.mineacademy.fo.database.QueryStatistics;
+
+/**
+ * A sample sub-command that you can automatically add
+ * to your main command group to find out which database
+ * statements take the most time.
+ *
+ * See {@link QueryStatistics}
+ */
+public final class QueriesCommand extends SimpleSubCommand {
+
+	/**
+	 * Create a new sub-command with the given permission.
+	 *
+	 * @param permission
+	 */
+	public QueriesCommand(String permission) {
+		this();
+
+		this.setPermission(permission);
+	}
+
+	public QueriesCommand() {
+		super("queries|sql");
+
+		this.setDescription("Show how long database statements take.");
+		this.setUsage("<report|export|reset>");
+		this.setMinArguments(1);
+	}
+
+	@Override
+	protected void onCommand() {
+		final String param = this.args[0].toLowerCase();
+
+		if ("report".equals(param))
+			this.tellNoPrefix(QueryStatistics.getReport());
+
+		else if ("export".equals(param)) {
+			final File file = FileUtil.getFile("profiler/queries-" + System.currentTimeMillis() + ".txt");
+
+			FileUtil.write(file, QueryStatistics.getReport());
+			this.tell("&6Query report saved to &f" + file.getParentFile().getName() + "/" + file.getName() + "&6.");
+		}
+
+		else if ("reset".equals(param)) {
+			QueryStatistics.reset();
+
+			this.tell("&6Query statistics have been reset.");
+		}
+
+		else
+			this.returnInvalidArgs();
+	}
+
+	/**
+	 * @see org.mineacademy.fo.command.SimpleCommand#tabComplete()
+	 */
+	@Override
+	protected List<String> tabComplete() {
+		if (this.args.length == 1)
+			return this.completeLastWord("report", "export", "reset");
+
+		return NO_COMPLETE;
+	}
+}
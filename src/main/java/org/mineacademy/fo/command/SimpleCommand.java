@@ -14,6 +14,8 @@ import org.mineacademy.fo.collection.StrictList;
 import org.mineacademy.fo.collection.expiringmap.ExpiringMap;
 import org.mineacademy.fo.command.SimpleCommandGroup.MainCommand;
 import org.mineacademy.fo.debug.LagCatcher;
+import org.mineacademy.fo.debug.TickProfiler;
+import org.mineacademy.fo.debug.TickProfiler.Subsystem;
 import org.mineacademy.fo.exception.CommandException;
 import org.mineacademy.fo.exception.EventHandledException;
 import org.mineacademy.fo.exception.InvalidCommandArgException;
@@ -340,6 +342,7 @@ public abstract class SimpleCommand extends Command {
 		// Catch "errors" that contain a message to send to the player
 		// Measure performance of all commands
 		final String lagSection = "Command /" + this.getLabel() + sublabel + (args.length > 0 ? " " + String.join(" ", args) : "");
+		final long profileStart = this instanceof MainCommand ? 0 : TickProfiler.start();
 
 		try {
 			// Prevent duplication since MainCommand delegates this
@@ -449,7 +452,9 @@ public abstract class SimpleCommand extends Command {
 
 			// Prevent duplication since MainCommand delegates this
 			if (!(this instanceof MainCommand))
-				LagCatcher.end(lagSection, 8, "{section} took {time} ms");
+				LagCatcher.end(lagSection, 8, "{section} took {time} ms", "Command /" + this.getLabel() + sublabel);
+
+			TickProfiler.stop(Subsystem.COMMAND, profileStart);
 		}
 
 		return true;
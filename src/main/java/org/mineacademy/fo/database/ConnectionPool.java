@@ -0,0 +1,602 @@
+package org.mineacademy.fo.database;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.mineacademy.fo.Common;
+import org.mineacademy.fo.Valid;
+import org.mineacademy.fo.debug.Debugger;
+import org.mineacademy.fo.debug.MetricsRegistry;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * A small connection pool we use when HikariCP is not available so that
+ * queries from different threads do not have to share one connection.
+ * <p>
+ * Connections are validated when borrowed after sitting idle, evicted after
+ * being idle for too long or reaching their max lifetime, and borrowed
+ * connections held for too long are reported as leaks, except pinned ones
+ * see {@link #borrowPinned()}.
+ * <p>
+ * Pool utilisation is published to {@link MetricsRegistry} as gauges
+ * named database.pool.[name].active/idle/total/waiting and the time spent
+ * waiting for a connection as the database.pool.[name].wait timer.
+ */
+public final class ConnectionPool {
+
+	/**
+	 * Connections idle for a shorter time than this are not validated when borrowed
+	 */
+	private static final long VALIDATION_BYPASS_MS = 500;
+
+	/**
+	 * The name used in metrics and the housekeeping thread
+	 */
+	@Getter
+	private final String name;
+
+	/**
+	 * The JDBC url and credentials for new connections
+	 */
+	private final String url;
+	private final String user;
+	private final String password;
+
+	/**
+	 * The pool configuration, copied when the pool is created
+	 */
+	private final Settings settings;
+
+	/**
+	 * Called with the physical connection right before we close it
+	 */
+	private final Consumer<Connection> closeListener;
+
+	/**
+	 * Connections ready to be borrowed, most recently returned first
+	 */
+	private final Deque<PooledConnection> idle = new ArrayDeque<>();
+
+	/**
+	 * Connections currently borrowed
+	 */
+	private final Map<Connection, PooledConnection> borrowed = new IdentityHashMap<>();
+
+	/**
+	 * Connections being opened right now, counted towards the max size
+	 */
+	private int pending = 0;
+
+	/**
+	 * Threads waiting for a connection
+	 */
+	private int waiting = 0;
+
+	/**
+	 * Was the pool closed?
+	 */
+	@Getter
+	private volatile boolean closed = false;
+
+	/**
+	 * Evicts idle, expired and leaked connections
+	 */
+	private final ScheduledExecutorService housekeeper;
+
+	/**
+	 * Time spent waiting for a connection
+	 */
+	private final MetricsRegistry.Timer waitTimer;
+
+	/**
+	 * Create a new pool and open the minimum amount of connections
+	 *
+	 * @param name
+	 * @param url
+	 * @param user
+	 * @param password
+	 * @param settings
+	 * @param closeListener
+	 * @throws SQLException if the first connection could not be opened
+	 */
+	ConnectionPool(String name, String url, String user, String password, Settings settings, Consumer<Connection> closeListener) throws SQLException {
+		Valid.checkBoolean(settings.getMaximumSize() > 0, "Pool maximum size must be positive, got " + settings.getMaximumSize());
+		Valid.checkBoolean(settings.getMinimumIdle() >= 0 && settings.getMinimumIdle() <= settings.getMaximumSize(), "Pool minimum idle must be between 0 and " + settings.getMaximumSize() + ", got " + settings.getMinimumIdle());
+
+		this.name = name;
+		this.url = url;
+		this.user = user;
+		this.password = password;
+		this.settings = settings.copy();
+		this.closeListener = closeListener;
+		this.waitTimer = MetricsRegistry.timer("database.pool." + name + ".wait");
+
+		// Fail fast on wrong credentials and fill the pool
+		for (int i = 0; i < Math.max(1, this.settings.getMinimumIdle()); i++)
+			this.idle.push(new PooledConnection(this.open()));
+
+		this.housekeeper = Executors.newSingleThreadScheduledExecutor(task -> {
+			final Thread thread = new Thread(task, "Foundation Connection Pool " + name);
+
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		final long period = Math.max(1_000, Math.min(30_000, this.settings.getLeakDetectionThreshold() > 0 ? this.settings.getLeakDetectionThreshold() / 2 : 30_000));
+
+		this.housekeeper.scheduleWithFixedDelay(this::houseKeep, period, period, TimeUnit.MILLISECONDS);
+
+		MetricsRegistry.gauge("database.pool." + name + ".active", this::getActiveConnections);
+		MetricsRegistry.gauge("database.pool." + name + ".idle", this::getIdleConnections);
+		MetricsRegistry.gauge("database.pool." + name + ".total", this::getTotalConnections);
+		MetricsRegistry.gauge("database.pool." + name + ".waiting", this::getWaitingThreads);
+	}
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Borrowing
+	// ------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Borrow a valid connection, waiting up to the connection timeout if all are in use.
+	 * You must give it back using {@link #release(Connection)} when done.
+	 *
+	 * @return
+	 * @throws SQLException if no connection became available in time or a new one could not be opened
+	 */
+	public Connection borrow() throws SQLException {
+		final long start = this.waitTimer.start();
+		final long deadline = System.currentTimeMillis() + this.settings.getConnectionTimeout();
+
+		try {
+			while (true) {
+				PooledConnection pooled = null;
+				boolean openNew = false;
+
+				synchronized (this) {
+					while (pooled == null && !openNew) {
+						Valid.checkBoolean(!this.closed, "Connection pool " + this.name + " has been closed");
+
+						if (!this.idle.isEmpty())
+							pooled = this.idle.pop();
+
+						else if (this.getTotalConnections() < this.settings.getMaximumSize()) {
+							this.pending++;
+							openNew = true;
+
+						} else {
+							final long remaining = deadline - System.currentTimeMillis();
+
+							if (remaining <= 0)
+								throw new SQLTimeoutException("Connection pool " + this.name + " timed out after " + this.settings.getConnectionTimeout() + "ms, all " + this.settings.getMaximumSize() + " connections are in use");
+
+							this.waiting++;
+
+							try {
+								this.wait(remaining);
+
+							} catch (final InterruptedException ex) {
+								Thread.currentThread().interrupt();
+
+								throw new SQLException("Interrupted while waiting for a connection from pool " + this.name, ex);
+
+							} finally {
+								this.waiting--;
+							}
+						}
+					}
+				}
+
+				// Open or validate outside of the lock, both may block on the network
+				if (openNew) {
+					try {
+						pooled = new PooledConnection(this.open());
+
+					} finally {
+						if (pooled == null)
+							synchronized (this) {
+								this.pending--;
+								this.notifyAll();
+							}
+					}
+
+				} else if (!this.isUsable(pooled)) {
+					this.discard(pooled);
+
+					continue;
+				}
+
+				synchronized (this) {
+					if (openNew)
+						this.pending--;
+
+					pooled.markBorrowed(this.settings.getLeakDetectionThreshold() > 0);
+					this.borrowed.put(pooled.connection, pooled);
+				}
+
+				return pooled.connection;
+			}
+
+		} finally {
+			this.waitTimer.stop(start);
+		}
+	}
+
+	/**
+	 * Borrow a connection that is meant to be kept for a long time, such as the one
+	 * {@link SimpleDatabaseConnector} hands to subclasses. It is never reported as a leak,
+	 * give it back using {@link #release(Connection)} as usual.
+	 *
+	 * @return
+	 * @throws SQLException if no connection became available in time or a new one could not be opened
+	 */
+	public Connection borrowPinned() throws SQLException {
+		final Connection connection = this.borrow();
+
+		synchronized (this) {
+			this.borrowed.get(connection).pinned = true;
+		}
+
+		return connection;
+	}
+
+	/**
+	 * Give the borrowed connection back to the pool. Connections left in a transaction
+	 * are rolled back, broken or expired connections are closed.
+	 *
+	 * @param connection
+	 */
+	public void release(Connection connection) {
+		final PooledConnection pooled;
+
+		synchronized (this) {
+			pooled = this.borrowed.remove(connection);
+		}
+
+		Valid.checkNotNull(pooled, "Connection " + connection + " was not borrowed from pool " + this.name);
+
+		boolean reusable;
+
+		try {
+			if (!connection.getAutoCommit()) {
+				connection.rollback();
+				connection.setAutoCommit(true);
+			}
+
+			reusable = !connection.isClosed();
+
+		} catch (final SQLException ex) {
+			reusable = false;
+		}
+
+		if (reusable && !this.closed && !pooled.isExpired(this.settings.getMaxLifetime())) {
+			synchronized (this) {
+				pooled.markIdle();
+
+				this.idle.push(pooled);
+				this.notifyAll();
+			}
+
+		} else
+			this.discard(pooled);
+	}
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Metrics
+	// ------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * @return how many connections are borrowed right now
+	 */
+	public synchronized long getActiveConnections() {
+		return this.borrowed.size();
+	}
+
+	/**
+	 * @return how many connections are ready to be borrowed
+	 */
+	public synchronized long getIdleConnections() {
+		return this.idle.size();
+	}
+
+	/**
+	 * @return how many connections are open or being opened
+	 */
+	public synchronized long getTotalConnections() {
+		return this.idle.size() + this.borrowed.size() + this.pending;
+	}
+
+	/**
+	 * @return how many threads are waiting for a connection
+	 */
+	public synchronized long getWaitingThreads() {
+		return this.waiting;
+	}
+
+	/**
+	 * @return the max amount of connections this pool opens
+	 */
+	public int getMaximumSize() {
+		return this.settings.getMaximumSize();
+	}
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Closing
+	// ------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Close all idle connections and stop handing out new ones, borrowed
+	 * connections are closed when they are released
+	 */
+	public void close() {
+		synchronized (this) {
+			if (this.closed)
+				return;
+
+			this.closed = true;
+			this.notifyAll();
+		}
+
+		this.housekeeper.shutdownNow();
+
+		MetricsRegistry.removeGauge("database.pool." + this.name + ".active");
+		MetricsRegistry.removeGauge("database.pool." + this.name + ".idle");
+		MetricsRegistry.removeGauge("database.pool." + this.name + ".total");
+		MetricsRegistry.removeGauge("database.pool." + this.name + ".waiting");
+
+		while (true) {
+			final PooledConnection pooled;
+
+			synchronized (this) {
+				pooled = this.idle.poll();
+			}
+
+			if (pooled == null)
+				break;
+
+			this.discard(pooled);
+		}
+	}
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Internals
+	// ------------------------------------------------------------------------------------------------------------
+
+	/*
+	 * Open a new physical connection
+	 */
+	private Connection open() throws SQLException {
+		final Connection connection = this.user != null && this.password != null ? DriverManager.getConnection(this.url, this.user, this.password) : DriverManager.getConnection(this.url);
+
+		Debugger.debug("mysql", "Opened a new connection in pool " + this.name);
+		return connection;
+	}
+
+	/*
+	 * Return true if the idle connection is alive and not past its lifetime
+	 */
+	private boolean isUsable(PooledConnection pooled) {
+		if (pooled.isExpired(this.settings.getMaxLifetime()))
+			return false;
+
+		if (System.currentTimeMillis() - pooled.lastUsed < VALIDATION_BYPASS_MS)
+			return true;
+
+		final Connection connection = pooled.connection;
+
+		try {
+			if (this.settings.getValidationQuery() != null)
+				try (Statement statement = connection.createStatement()) {
+					statement.setQueryTimeout(this.settings.getValidationTimeout());
+					statement.execute(this.settings.getValidationQuery());
+
+					return true;
+				}
+
+			return connection.isValid(this.settings.getValidationTimeout());
+
+		} catch (SQLException | AbstractMethodError ex) {
+			Debugger.debug("mysql", "Connection in pool " + this.name + " failed validation: " + ex);
+
+			return false;
+		}
+	}
+
+	/*
+	 * Close the physical connection and wake up anyone waiting since there is room for a new one
+	 */
+	private void discard(PooledConnection pooled) {
+		try {
+			if (this.closeListener != null)
+				this.closeListener.accept(pooled.connection);
+
+			pooled.connection.close();
+
+		} catch (final SQLException ex) {
+			// Already closed or the server is gone
+		}
+
+		synchronized (this) {
+			this.notifyAll();
+		}
+	}
+
+	/*
+	 * Evict idle and expired connections, report leaks and top up to the minimum idle count
+	 */
+	private void houseKeep() {
+		try {
+			final Deque<PooledConnection> toClose = new ArrayDeque<>();
+			final long now = System.currentTimeMillis();
+			int toOpen;
+
+			synchronized (this) {
+				for (final Iterator<PooledConnection> it = this.idle.descendingIterator(); it.hasNext();) {
+					final PooledConnection pooled = it.next();
+					final boolean idleTooLong = this.settings.getIdleTimeout() > 0 && now - pooled.lastUsed > this.settings.getIdleTimeout() && this.idle.size() > this.settings.getMinimumIdle();
+
+					if (idleTooLong || pooled.isExpired(this.settings.getMaxLifetime())) {
+						it.remove();
+						toClose.add(pooled);
+					}
+				}
+
+				if (this.settings.getLeakDetectionThreshold() > 0)
+					for (final PooledConnection pooled : this.borrowed.values())
+						if (!pooled.pinned && !pooled.leakReported && now - pooled.borrowedAt > this.settings.getLeakDetectionThreshold()) {
+							pooled.leakReported = true;
+
+							Common.warning("Connection from pool " + this.name + " was borrowed " + (now - pooled.borrowedAt) + "ms ago by " + pooled.borrowedBy + " and not released yet, possible leak. Borrowed at:");
+
+							if (pooled.borrowTrace != null)
+								for (final StackTraceElement element : pooled.borrowTrace.getStackTrace())
+									Common.warning("  at " + element);
+						}
+
+				toOpen = this.closed ? 0 : Math.min(this.settings.getMinimumIdle() - this.idle.size(), this.settings.getMaximumSize() - (int) this.getTotalConnections());
+				this.pending += Math.max(0, toOpen);
+			}
+
+			for (final PooledConnection pooled : toClose)
+				this.discard(pooled);
+
+			for (int i = 0; i < toOpen; i++) {
+				PooledConnection opened = null;
+
+				try {
+					opened = new PooledConnection(this.open());
+
+				} catch (final SQLException ex) {
+					Debugger.debug("mysql", "Could not open a connection in pool " + this.name + ": " + ex);
+
+				} finally {
+					synchronized (this) {
+						this.pending--;
+
+						if (opened != null)
+							this.idle.addLast(opened);
+
+						this.notifyAll();
+					}
+				}
+			}
+
+		} catch (final Throwable t) {
+			Common.error(t, "Error maintaining database connection pool " + this.name);
+		}
+	}
+
+	/*
+	 * A physical connection with its bookkeeping
+	 */
+	private static final class PooledConnection {
+
+		private final Connection connection;
+		private final long createdAt = System.currentTimeMillis();
+		private long lastUsed = this.createdAt;
+
+		private long borrowedAt;
+		private String borrowedBy;
+		private Throwable borrowTrace;
+		private boolean leakReported;
+		private boolean pinned;
+
+		private PooledConnection(Connection connection) {
+			this.connection = connection;
+		}
+
+		private void markBorrowed(boolean trace) {
+			this.borrowedAt = System.currentTimeMillis();
+			this.borrowedBy = Thread.currentThread().getName();
+			this.borrowTrace = trace ? new Throwable() : null;
+			this.leakReported = false;
+			this.pinned = false;
+		}
+
+		private void markIdle() {
+			this.lastUsed = System.currentTimeMillis();
+			this.borrowTrace = null;
+		}
+
+		private boolean isExpired(long maxLifetime) {
+			return maxLifetime > 0 && System.currentTimeMillis() - this.createdAt > maxLifetime;
+		}
+	}
+
+	/**
+	 * Configures the pool, change these before connecting
+	 */
+	@Getter
+	@Setter
+	public static final class Settings {
+
+		/**
+		 * How many connections we open at most
+		 */
+		private int maximumSize = 10;
+
+		/**
+		 * How many idle connections we try to keep open
+		 */
+		private int minimumIdle = 2;
+
+		/**
+		 * How long to wait for a free connection before failing, in milliseconds
+		 */
+		private long connectionTimeout = 30_000;
+
+		/**
+		 * How long a connection can stay idle before we close it, in milliseconds, 0 to disable
+		 */
+		private long idleTimeout = 600_000;
+
+		/**
+		 * How long a connection can live before we replace it, in milliseconds, 0 to disable.
+		 * Keep this below the database wait_timeout.
+		 */
+		private long maxLifetime = 1_800_000;
+
+		/**
+		 * How long a connection can be borrowed before we warn about a leak, in milliseconds, 0 to disable
+		 */
+		private long leakDetectionThreshold = 0;
+
+		/**
+		 * The query used to validate connections, or null to use {@link Connection#isValid(int)}
+		 */
+		private String validationQuery = null;
+
+		/**
+		 * How long validation can take, in seconds
+		 */
+		private int validationTimeout = 5;
+
+		private Settings copy() {
+			final Settings copy = new Settings();
+
+			copy.maximumSize = this.maximumSize;
+			copy.minimumIdle = this.minimumIdle;
+			copy.connectionTimeout = this.connectionTimeout;
+			copy.idleTimeout = this.idleTimeout;
+			copy.maxLifetime = this.maxLifetime;
+			copy.leakDetectionThreshold = this.leakDetectionThreshold;
+			copy.validationQuery = this.validationQuery;
+			copy.validationTimeout = this.validationTimeout;
+
+			return copy;
+		}
+	}
+}
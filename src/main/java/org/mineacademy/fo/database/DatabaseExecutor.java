@@ -0,0 +1,503 @@
+package org.mineacademy.fo.database;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.bukkit.Bukkit;
+import org.mineacademy.fo.Common;
+import org.mineacademy.fo.Valid;
+import org.mineacademy.fo.database.SimpleDatabaseManager.Callback;
+import org.mineacademy.fo.debug.MetricsRegistry;
+import org.mineacademy.fo.plugin.SimplePlugin;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Runs database work on its own threads, as many as there are connections,
+ * instead of the unbounded Bukkit async pool, so that a slow database makes
+ * work wait in a bounded queue instead of piling up threads.
+ * <p>
+ * When the queue is full we apply the {@link OverflowPolicy} from the settings.
+ * <p>
+ * Queue depth and busy workers are published to {@link MetricsRegistry} as gauges
+ * database.executor.queued/active, time spent in the queue and running as
+ * the database.executor.wait/run timers and overflows as the
+ * database.executor.rejected/coalesced counters.
+ */
+public final class DatabaseExecutor implements Executor {
+
+	/**
+	 * The configuration, copied when the executor is created
+	 */
+	private final Settings settings;
+
+	/**
+	 * Jobs waiting for a worker
+	 */
+	private final Deque<Job<?>> queue = new ArrayDeque<>();
+
+	/**
+	 * Queued jobs by their coalescing key
+	 */
+	private final Map<Object, Job<?>> queuedByKey = new HashMap<>();
+
+	/**
+	 * The worker threads
+	 */
+	private final Thread[] workers;
+
+	/**
+	 * How many workers are running a job right now
+	 */
+	private int active = 0;
+
+	/**
+	 * Did we stop accepting new work?
+	 */
+	@Getter
+	private volatile boolean shutdown = false;
+
+	/**
+	 * Timers for time spent queued and running
+	 */
+	private final MetricsRegistry.Timer waitTimer = MetricsRegistry.timer("database.executor.wait");
+	private final MetricsRegistry.Timer runTimer = MetricsRegistry.timer("database.executor.run");
+
+	/**
+	 * Create and start a new executor with the given amount of threads
+	 *
+	 * @param threads
+	 * @param settings
+	 */
+	DatabaseExecutor(int threads, Settings settings) {
+		Valid.checkBoolean(threads > 0, "Database executor needs at least one thread, got " + threads);
+		Valid.checkBoolean(settings.getQueueCapacity() > 0, "Database queue capacity must be positive, got " + settings.getQueueCapacity());
+
+		this.settings = settings.copy();
+		this.workers = new Thread[threads];
+
+		for (int i = 0; i < threads; i++) {
+			final Thread worker = new Thread(this::work, "Foundation Database Worker #" + (i + 1));
+
+			worker.setDaemon(true);
+			worker.start();
+
+			this.workers[i] = worker;
+		}
+
+		MetricsRegistry.gauge("database.executor.queued", this::getQueuedJobs);
+		MetricsRegistry.gauge("database.executor.active", this::getActiveJobs);
+	}
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Submitting
+	// ------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Run the task on a database thread
+	 *
+	 * @param <T>
+	 * @param task
+	 * @return the future completed with the result of the task on the database thread
+	 */
+	public <T> CompletableFuture<T> submit(Callable<T> task) {
+		return this.submit(null, task);
+	}
+
+	/**
+	 * Run the task on a database thread. When the overflow policy is {@link OverflowPolicy#COALESCE}
+	 * and a task with the same key is still queued, it is replaced by this task and its future
+	 * completes with the result of this one.
+	 *
+	 * @param <T>
+	 * @param coalesceKey the key such as "save " + uuid, or null to never coalesce
+	 * @param task
+	 * @return the future completed with the result of the task on the database thread
+	 */
+	public <T> CompletableFuture<T> submit(Object coalesceKey, Callable<T> task) {
+		final Job<T> job = new Job<>(coalesceKey, task);
+
+		try {
+			this.enqueue(job);
+
+		} catch (final RejectedExecutionException ex) {
+			job.future.completeExceptionally(ex);
+		}
+
+		return job.future;
+	}
+
+	/**
+	 * Run the task on a database thread and then the callback on the main thread
+	 *
+	 * @param <T>
+	 * @param task
+	 * @param callback
+	 */
+	public <T> void submit(Callable<T> task, Callback<T> callback) {
+		this.submit(task).whenComplete((result, error) -> runOnMainThread(() -> {
+			if (error != null)
+				callback.onFail(error);
+			else
+				callback.onSuccess(result);
+		}));
+	}
+
+	/**
+	 * Run the task on a database thread
+	 *
+	 * @throws RejectedExecutionException if the queue is full and we reject or we are shut down
+	 */
+	@Override
+	public void execute(Runnable task) {
+		this.enqueue(new Job<>(null, () -> {
+			task.run();
+
+			return null;
+		}));
+	}
+
+	/*
+	 * Put the job into the queue applying the overflow policy when full
+	 */
+	@SuppressWarnings("unchecked")
+	private synchronized <T> void enqueue(Job<T> job) {
+		this.checkNotShutdown();
+
+		final OverflowPolicy policy = this.settings.getOverflowPolicy();
+
+		// Run the new task in place of the queued one with the same key, both futures get its result
+		if (policy == OverflowPolicy.COALESCE && job.coalesceKey != null) {
+			final Job<T> queued = (Job<T>) this.queuedByKey.get(job.coalesceKey);
+
+			if (queued != null) {
+				queued.task = job.task;
+				queued.future.whenComplete((result, error) -> {
+					if (error != null)
+						job.future.completeExceptionally(error);
+					else
+						job.future.complete(result);
+				});
+
+				MetricsRegistry.counter("database.executor.coalesced").increment();
+				return;
+			}
+		}
+
+		if (this.queue.size() >= this.settings.getQueueCapacity()) {
+
+			// Never block the server thread, nor our workers chaining follow-up work since
+			// they are the ones making space, let the queue grow instead
+			if (policy == OverflowPolicy.BLOCK && !isMainThread() && !this.isWorkerThread()) {
+				final long deadline = System.currentTimeMillis() + this.settings.getBlockTimeout();
+
+				while (this.queue.size() >= this.settings.getQueueCapacity()) {
+					final long remaining = deadline - System.currentTimeMillis();
+
+					if (remaining <= 0)
+						this.reject("Timed out after " + this.settings.getBlockTimeout() + "ms waiting for space in the database queue");
+
+					try {
+						this.wait(remaining);
+
+					} catch (final InterruptedException ex) {
+						Thread.currentThread().interrupt();
+
+						this.reject("Interrupted while waiting for space in the database queue");
+					}
+
+					this.checkNotShutdown();
+				}
+
+			} else if (policy != OverflowPolicy.BLOCK)
+				this.reject("Database queue is full (" + this.settings.getQueueCapacity() + " tasks), the database cannot keep up");
+		}
+
+		this.queue.addLast(job);
+
+		if (job.coalesceKey != null)
+			this.queuedByKey.put(job.coalesceKey, job);
+
+		this.notifyAll();
+	}
+
+	/*
+	 * Return true if we are on one of our worker threads
+	 */
+	private boolean isWorkerThread() {
+		final Thread current = Thread.currentThread();
+
+		for (final Thread worker : this.workers)
+			if (worker == current)
+				return true;
+
+		return false;
+	}
+
+	/*
+	 * Fail the submission and count it
+	 */
+	private void reject(String message) {
+		MetricsRegistry.counter("database.executor.rejected").increment();
+
+		throw new RejectedExecutionException(message);
+	}
+
+	/*
+	 * Reject work after shutdown
+	 */
+	private void checkNotShutdown() {
+		if (this.shutdown)
+			throw new RejectedExecutionException("Database executor has been shut down");
+	}
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Working
+	// ------------------------------------------------------------------------------------------------------------
+
+	/*
+	 * The worker loop, runs until shut down and the queue is empty
+	 */
+	private void work() {
+		while (true) {
+			final Job<?> job;
+
+			synchronized (this) {
+				while (this.queue.isEmpty()) {
+					if (this.shutdown)
+						return;
+
+					try {
+						this.wait();
+
+					} catch (final InterruptedException ex) {
+						if (this.shutdown && this.queue.isEmpty())
+							return;
+					}
+				}
+
+				job = this.queue.pollFirst();
+
+				if (job.coalesceKey != null)
+					this.queuedByKey.remove(job.coalesceKey, job);
+
+				this.active++;
+				this.notifyAll();
+			}
+
+			final long startNanos = System.nanoTime();
+			this.waitTimer.record(startNanos - job.queuedNanos);
+
+			try {
+				job.run();
+
+			} finally {
+				this.runTimer.stop(startNanos);
+
+				synchronized (this) {
+					this.active--;
+				}
+			}
+		}
+	}
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Metrics
+	// ------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * @return how many tasks wait for a worker
+	 */
+	public synchronized long getQueuedJobs() {
+		return this.queue.size();
+	}
+
+	/**
+	 * @return how many tasks are running right now
+	 */
+	public synchronized long getActiveJobs() {
+		return this.active;
+	}
+
+	/**
+	 * @return how many threads run the tasks
+	 */
+	public int getThreads() {
+		return this.workers.length;
+	}
+
+	/**
+	 * @return the statement timeout in seconds, 0 for none
+	 */
+	public int getQueryTimeout() {
+		return this.settings.getQueryTimeout();
+	}
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Stopping
+	// ------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Stop accepting new tasks and wait up to the given time for queued tasks to finish.
+	 * When called from a database thread we do not wait for that thread.
+	 *
+	 * @param timeout
+	 * @param unit
+	 * @return true if all tasks finished in time
+	 */
+	public boolean shutdown(long timeout, TimeUnit unit) {
+		synchronized (this) {
+			this.shutdown = true;
+			this.notifyAll();
+		}
+
+		MetricsRegistry.removeGauge("database.executor.queued");
+		MetricsRegistry.removeGauge("database.executor.active");
+
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+
+		for (final Thread worker : this.workers) {
+			if (worker == Thread.currentThread())
+				continue;
+
+			try {
+				worker.join(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+
+			} catch (final InterruptedException ex) {
+				Thread.currentThread().interrupt();
+
+				return false;
+			}
+
+			if (worker.isAlive())
+				return false;
+		}
+
+		return true;
+	}
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Static
+	// ------------------------------------------------------------------------------------------------------------
+
+	/*
+	 * Return true if we are on the server thread
+	 */
+	private static boolean isMainThread() {
+		try {
+			return Bukkit.isPrimaryThread();
+
+		} catch (final Throwable t) {
+			return false;
+		}
+	}
+
+	/*
+	 * Run the task on the main thread, or right away when the plugin is disabled
+	 */
+	static void runOnMainThread(Runnable task) {
+		if (SimplePlugin.hasInstance() && SimplePlugin.getInstance().isEnabled())
+			Common.runLater(task);
+		else
+			task.run();
+	}
+
+	/*
+	 * A queued task
+	 */
+	private static final class Job<T> {
+
+		private final Object coalesceKey;
+		private final CompletableFuture<T> future = new CompletableFuture<>();
+		private final long queuedNanos = System.nanoTime();
+		private volatile Callable<T> task;
+
+		private Job(Object coalesceKey, Callable<T> task) {
+			this.coalesceKey = coalesceKey;
+			this.task = task;
+		}
+
+		private void run() {
+			try {
+				this.future.complete(this.task.call());
+
+			} catch (final Throwable t) {
+				this.future.completeExceptionally(t);
+			}
+		}
+	}
+
+	/**
+	 * What to do when a task is submitted while the queue is full
+	 */
+	public enum OverflowPolicy {
+
+		/**
+		 * Make the submitting thread wait for space up to the block timeout, then reject.
+		 * The main thread and database threads never wait, their tasks are queued over the capacity.
+		 */
+		BLOCK,
+
+		/**
+		 * Fail the task with a {@link RejectedExecutionException}
+		 */
+		REJECT,
+
+		/**
+		 * Replace a queued task submitted with the same coalescing key using {@link DatabaseExecutor#submit(Object, Callable)},
+		 * and reject other tasks.
+		 * <p>
+		 * Foundation submits its own work without a key, so for it this is the same as {@link #REJECT}.
+		 * Repeated saves in {@link SimpleFlatDatabase} are merged before reaching the queue
+		 * when its flush interval is enabled.
+		 */
+		COALESCE
+	}
+
+	/**
+	 * Configures the executor, change these before connecting
+	 */
+	@Getter
+	@Setter
+	public static final class Settings {
+
+		/**
+		 * How many tasks can wait for a database thread
+		 */
+		private int queueCapacity = 10_000;
+
+		/**
+		 * What to do when the queue is full
+		 */
+		private OverflowPolicy overflowPolicy = OverflowPolicy.BLOCK;
+
+		/**
+		 * How long {@link OverflowPolicy#BLOCK} waits for space, in milliseconds
+		 */
+		private long blockTimeout = 30_000;
+
+		/**
+		 * How long a single statement can run before the driver cancels it, in seconds, 0 for no limit
+		 */
+		private int queryTimeout = 30;
+
+		private Settings copy() {
+			final Settings copy = new Settings();
+
+			copy.queueCapacity = this.queueCapacity;
+			copy.overflowPolicy = this.overflowPolicy;
+			copy.blockTimeout = this.blockTimeout;
+			copy.queryTimeout = this.queryTimeout;
+
+			return copy;
+		}
+	}
+}
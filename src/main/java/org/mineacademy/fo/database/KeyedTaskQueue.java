@@ -0,0 +1,144 @@
+package org.mineacademy.fo.database;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Runs tasks on the given executor so that tasks with the same key run one
+ * after another in the order they were submitted, while tasks with different
+ * keys run concurrently.
+ *
+ * @param <K> the key, such as the player's unique id
+ */
+final class KeyedTaskQueue<K> {
+
+	/**
+	 * The last submitted task for each key that has not finished yet
+	 */
+	private final Map<K, CompletableFuture<?>> tails = new HashMap<>();
+
+	/**
+	 * Where we run the tasks
+	 */
+	private final Executor executor;
+
+	KeyedTaskQueue(Executor executor) {
+		this.executor = executor;
+	}
+
+	/**
+	 * Run the task after all tasks previously submitted for the same key have finished,
+	 * regardless of whether they failed
+	 *
+	 * @param <R>
+	 * @param key
+	 * @param task
+	 * @return the future completed with the task result or its error
+	 */
+	synchronized <R> CompletableFuture<R> submit(K key, Task<R> task) {
+		final CompletableFuture<?> previous = this.tails.get(key);
+		final CompletableFuture<R> future = new CompletableFuture<>();
+
+		final Runnable runner = () -> complete(future, task);
+
+		this.tails.put(key, future);
+
+		if (previous == null)
+			this.dispatch(runner, future);
+		else
+			previous.whenComplete((result, error) -> this.dispatch(runner, future));
+
+		future.whenComplete((result, error) -> this.removeTail(key, future));
+
+		return future;
+	}
+
+	/**
+	 * Run the task after all tasks previously submitted for any of the given keys have
+	 * finished, tasks submitted later for any of these keys wait for this one
+	 *
+	 * @param <R>
+	 * @param keys
+	 * @param task
+	 * @return the future completed with the task result or its error
+	 */
+	synchronized <R> CompletableFuture<R> submitAll(Collection<K> keys, Task<R> task) {
+		final List<CompletableFuture<?>> previous = new ArrayList<>();
+		final CompletableFuture<R> future = new CompletableFuture<>();
+
+		for (final K key : keys) {
+			final CompletableFuture<?> tail = this.tails.put(key, future);
+
+			if (tail != null)
+				previous.add(tail);
+		}
+
+		final Runnable runner = () -> complete(future, task);
+
+		if (previous.isEmpty())
+			this.dispatch(runner, future);
+		else
+			CompletableFuture.allOf(previous.toArray(new CompletableFuture<?>[0])).whenComplete((result, error) -> this.dispatch(runner, future));
+
+		future.whenComplete((result, error) -> {
+			for (final K key : keys)
+				this.removeTail(key, future);
+		});
+
+		return future;
+	}
+
+	/**
+	 * Return how many keys have tasks queued or running
+	 *
+	 * @return
+	 */
+	synchronized int getActiveKeys() {
+		return this.tails.size();
+	}
+
+	/*
+	 * Run the task and complete the future with its result or error
+	 */
+	private static <R> void complete(CompletableFuture<R> future, Task<R> task) {
+		try {
+			future.complete(task.run());
+
+		} catch (final Throwable t) {
+			future.completeExceptionally(t);
+		}
+	}
+
+	/*
+	 * Hand the task to the executor, failing the future if it refuses it such as when the plugin is disabled
+	 */
+	private void dispatch(Runnable runner, CompletableFuture<?> future) {
+		try {
+			this.executor.execute(runner);
+
+		} catch (final Throwable t) {
+			future.completeExceptionally(t);
+		}
+	}
+
+	/*
+	 * Forget the key when its last task finished so the map does not grow
+	 */
+	private synchronized void removeTail(K key, CompletableFuture<?> future) {
+		this.tails.remove(key, future);
+	}
+
+	/**
+	 * A task that may fail with any error
+	 *
+	 * @param <R>
+	 */
+	interface Task<R> {
+		R run() throws Throwable;
+	}
+}
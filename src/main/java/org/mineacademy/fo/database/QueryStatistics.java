@@ -0,0 +1,246 @@
+package org.mineacademy.fo.database;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import org.mineacademy.fo.Common;
+import org.mineacademy.fo.MathUtil;
+import org.mineacademy.fo.debug.MetricsRegistry;
+import org.mineacademy.fo.debug.MetricsRegistry.Timer;
+import org.mineacademy.fo.debug.MetricsRegistry.TimerSnapshot;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * Times every statement {@link SimpleDatabaseManager} runs, grouped by the shape
+ * of its SQL where literals become ? so that the same query with different values
+ * counts once. Durations go to {@link MetricsRegistry} timers named "database.query " + shape.
+ *
+ * Statements slower than {@link #getSlowQueryThreshold()} are logged with the shape
+ * and only the types of bound values, so that player data does not end up in the console.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class QueryStatistics {
+
+	/**
+	 * Stop tracking new shapes after this many, in case a plugin builds SQL we cannot normalize.
+	 * Slow statements of shapes we do not track are still logged.
+	 */
+	private static final int MAX_SHAPES = 500;
+
+	/**
+	 * Log slow queries of one shape at most once per this many milliseconds
+	 */
+	private static final long SLOW_LOG_INTERVAL = 10_000;
+
+	/**
+	 * Matches quoted string literals
+	 */
+	private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+
+	/**
+	 * Matches numbers not part of a name
+	 */
+	private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+
+	/**
+	 * Matches lists of placeholders such as IN (?, ?, ?)
+	 */
+	private static final Pattern PLACEHOLDER_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+
+	/**
+	 * Matches runs of whitespace
+	 */
+	private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+	/**
+	 * Statistics by statement shape
+	 */
+	private static final Map<String, Statistic> statistics = new ConcurrentHashMap<>();
+
+	/**
+	 * Shapes of statements we have seen, parametrized SQL repeats so we normalize it once
+	 */
+	private static final Map<String, String> shapes = new ConcurrentHashMap<>();
+
+	/**
+	 * Limits logging slow statements of shapes over {@link #MAX_SHAPES}, shared by all of them
+	 */
+	private static final SlowLog untrackedSlowLog = new SlowLog();
+
+	/**
+	 * Statements taking at least this many milliseconds are logged, 0 to disable
+	 */
+	@Getter
+	@Setter
+	private static volatile long slowQueryThreshold = 1_000;
+
+	/**
+	 * Record that the statement took the given time
+	 *
+	 * @param sql the statement as sent to the database
+	 * @param nanos how long it took
+	 * @param rows how many rows it changed or returned, 0 if unknown
+	 * @param params the bound values, only their types are ever logged
+	 */
+	public static void record(String sql, long nanos, long rows, Object... params) {
+		final String shape = normalize(sql);
+		final long threshold = slowQueryThreshold;
+		final boolean slow = threshold > 0 && nanos >= threshold * 1_000_000;
+
+		Statistic statistic = statistics.get(shape);
+
+		if (statistic == null) {
+			if (statistics.size() >= MAX_SHAPES) {
+				if (slow)
+					untrackedSlowLog.log(shape, nanos, params);
+
+				return;
+			}
+
+			statistic = statistics.computeIfAbsent(shape, Statistic::new);
+		}
+
+		statistic.timer.record(nanos);
+		statistic.totalNanos.add(nanos);
+		statistic.rows.add(rows);
+
+		if (slow)
+			statistic.slowLog.log(shape, nanos, params);
+	}
+
+	/**
+	 * Return the shape of the statement, with literals replaced by ? and whitespace collapsed
+	 *
+	 * @param sql
+	 * @return
+	 */
+	public static String normalize(String sql) {
+		final String cached = shapes.get(sql);
+
+		if (cached != null)
+			return cached;
+
+		String shape = STRING_LITERAL.matcher(sql).replaceAll("?");
+		shape = NUMBER_LITERAL.matcher(shape).replaceAll("?");
+		shape = PLACEHOLDER_LIST.matcher(shape).replaceAll("(?...)");
+		shape = WHITESPACE.matcher(shape).replaceAll(" ").trim();
+
+		// Unparametrized SQL with values would fill this forever
+		if (shapes.size() < MAX_SHAPES * 4)
+			shapes.put(sql, shape);
+
+		return shape;
+	}
+
+	/**
+	 * Return a human readable report, one statement shape per line, slowest total time first
+	 *
+	 * @return
+	 */
+	public static List<String> getReport() {
+		final List<Statistic> sorted = new ArrayList<>(statistics.values());
+		final List<String> lines = new ArrayList<>();
+
+		sorted.sort((first, second) -> Long.compare(second.totalNanos.sum(), first.totalNanos.sum()));
+
+		for (final Statistic statistic : sorted) {
+			final TimerSnapshot snapshot = statistic.timer.snapshot();
+
+			if (snapshot.getCount() == 0)
+				continue;
+
+			lines.add(snapshot.getCount() + "x, " + formatMillis(statistic.totalNanos.sum()) + " total, p95 " + formatMillis(snapshot.getP95())
+					+ ", max " + formatMillis(snapshot.getMax()) + ", " + statistic.rows.sum() + " rows: " + statistic.shape);
+		}
+
+		if (lines.isEmpty())
+			lines.add("No database statements were run.");
+
+		return lines;
+	}
+
+	/**
+	 * Forget all recorded statements
+	 */
+	public static void reset() {
+		for (final Statistic statistic : statistics.values())
+			statistic.timer.reset();
+
+		statistics.clear();
+		shapes.clear();
+	}
+
+	/*
+	 * Format nanoseconds as milliseconds with two digits
+	 */
+	private static String formatMillis(long nanos) {
+		return MathUtil.formatTwoDigits(nanos / 1_000_000D) + "ms";
+	}
+
+	/*
+	 * Return the types of the bound values without the values
+	 */
+	private static String redact(Object[] params) {
+		final List<String> types = new ArrayList<>();
+
+		for (final Object param : params)
+			types.add(param == null || "NULL".equals(param) ? "null" : param.getClass().getSimpleName());
+
+		return "[" + String.join(", ", types) + "]";
+	}
+
+	/*
+	 * Statistics of one statement shape
+	 */
+	private static final class Statistic {
+
+		private final String shape;
+		private final Timer timer;
+		private final LongAdder totalNanos = new LongAdder();
+		private final LongAdder rows = new LongAdder();
+		private final SlowLog slowLog = new SlowLog();
+
+		private Statistic(String shape) {
+			this.shape = shape;
+			this.timer = MetricsRegistry.timer("database.query " + shape);
+		}
+	}
+
+	/*
+	 * Logs slow statements at most once per {@link #SLOW_LOG_INTERVAL}
+	 */
+	private static final class SlowLog {
+
+		private final AtomicLong lastLogged = new AtomicLong();
+		private final LongAdder unlogged = new LongAdder();
+
+		/*
+		 * Log the slow statement unless we did so recently
+		 */
+		private void log(String shape, long nanos, Object[] params) {
+			final long now = System.currentTimeMillis();
+			final long last = this.lastLogged.get();
+
+			if (now - last < SLOW_LOG_INTERVAL || !this.lastLogged.compareAndSet(last, now)) {
+				this.unlogged.increment();
+
+				return;
+			}
+
+			final long skipped = this.unlogged.sumThenReset();
+
+			Common.warning("Slow database query took " + formatMillis(nanos) + ": " + shape
+					+ (params.length > 0 ? " with values " + redact(params) : "")
+					+ (skipped > 0 ? " (" + skipped + " more slow runs since the last report)" : ""));
+		}
+	}
+}
@@ -0,0 +1,369 @@
+package org.mineacademy.fo.database;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.mineacademy.fo.ReflectionUtil;
+import org.mineacademy.fo.SerializeUtil;
+import org.mineacademy.fo.collection.SerializedMap;
+import org.mineacademy.fo.exception.FoException;
+
+/**
+ * Maps result set rows to objects and objects to columns by matching column names
+ * to field names, ignoring case.
+ * <p>
+ * Everything expensive is resolved once per class: the constructor and field
+ * accessors become method handles and each field gets a typed result set getter.
+ * Column indexes are resolved once per result set.
+ * <p>
+ * The class needs a no arguments constructor, static and transient fields are ignored,
+ * final fields are only written. Primitives, their wrappers, strings, {@link UUID}s and enums
+ * are read natively, anything else is read as a string and passed to {@link SerializeUtil}.
+ *
+ * @param <T>
+ */
+public final class RowMapper<T> {
+
+	/**
+	 * Mappers by class
+	 */
+	private static final Map<Class<?>, RowMapper<?>> mappers = new ConcurrentHashMap<>();
+
+	/**
+	 * Creates new instances
+	 */
+	private final MethodHandle constructor;
+
+	/**
+	 * The mapped fields in declaration order, superclass fields first
+	 */
+	private final Column[] columns;
+
+	/**
+	 * The last result set we resolved indexes for, rows of one result set share them
+	 */
+	private volatile ResolvedIndexes lastIndexes;
+
+	private RowMapper(Class<T> type) {
+		final MethodHandles.Lookup lookup = MethodHandles.lookup();
+
+		try {
+			final Constructor<T> constructor = type.getDeclaredConstructor();
+			constructor.setAccessible(true);
+
+			this.constructor = lookup.unreflectConstructor(constructor).asType(MethodType.methodType(Object.class));
+
+		} catch (final ReflectiveOperationException ex) {
+			throw new FoException(ex, "To map database rows to " + type.getSimpleName() + " it needs a constructor without arguments");
+		}
+
+		final List<Column> columns = new ArrayList<>();
+
+		for (final Field field : getFields(type))
+			try {
+				field.setAccessible(true);
+
+				final MethodType accessorType = MethodType.methodType(Object.class, Object.class);
+				final MethodHandle getter = lookup.unreflectGetter(field).asType(accessorType);
+				final MethodHandle setter = Modifier.isFinal(field.getModifiers()) ? null : lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class));
+
+				columns.add(new Column(field.getName(), getter, setter, createReader(field.getType())));
+
+			} catch (final IllegalAccessException ex) {
+				throw new FoException(ex, "Unable to access field " + field.getName() + " in " + type.getSimpleName());
+			}
+
+		this.columns = columns.toArray(new Column[0]);
+	}
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Reading
+	// ------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Create a new object from the current row of the result set
+	 *
+	 * @param resultSet
+	 * @return
+	 * @throws SQLException
+	 */
+	public T map(ResultSet resultSet) throws SQLException {
+		final int[] indexes = this.resolveIndexes(resultSet);
+
+		try {
+			@SuppressWarnings("unchecked")
+			final T object = (T) this.constructor.invokeExact();
+
+			for (int i = 0; i < this.columns.length; i++) {
+				final int index = indexes[i];
+				final Column column = this.columns[i];
+
+				if (index != 0 && column.setter != null)
+					column.setter.invokeExact((Object) object, column.reader.read(resultSet, index));
+			}
+
+			return object;
+
+		} catch (final SQLException | RuntimeException ex) {
+			throw ex;
+
+		} catch (final Throwable t) {
+			throw new FoException(t, "Unable to map database row");
+		}
+	}
+
+	/**
+	 * Create new objects from all remaining rows of the result set
+	 *
+	 * @param resultSet
+	 * @return
+	 * @throws SQLException
+	 */
+	public List<T> mapAll(ResultSet resultSet) throws SQLException {
+		final List<T> objects = new ArrayList<>();
+
+		while (resultSet.next())
+			objects.add(this.map(resultSet));
+
+		return objects;
+	}
+
+	/*
+	 * Return the column index for each mapped field in the result set, 0 for missing columns
+	 */
+	private int[] resolveIndexes(ResultSet resultSet) throws SQLException {
+		final ResolvedIndexes last = this.lastIndexes;
+
+		if (last != null && last.resultSet == resultSet)
+			return last.indexes;
+
+		final ResultSetMetaData metaData = resultSet.getMetaData();
+		final Map<String, Integer> indexesByLabel = new HashMap<>();
+
+		for (int index = metaData.getColumnCount(); index > 0; index--)
+			indexesByLabel.put(metaData.getColumnLabel(index).toLowerCase(), index);
+
+		final int[] indexes = new int[this.columns.length];
+
+		for (int i = 0; i < this.columns.length; i++)
+			indexes[i] = indexesByLabel.getOrDefault(this.columns[i].lowercaseName, 0);
+
+		this.lastIndexes = new ResolvedIndexes(resultSet, indexes);
+
+		return indexes;
+	}
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Writing
+	// ------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Return the columns and values of the object in field order, ready to be used in
+	 * {@link SimpleDatabaseManager} inserts. Null values are stored as "NULL" which we bind as SQL null.
+	 * UUIDs and enums are stored as strings so that they read back.
+	 *
+	 * @param object
+	 * @return
+	 */
+	public SerializedMap toMap(T object) {
+		final SerializedMap map = new SerializedMap();
+
+		try {
+			for (final Column column : this.columns) {
+				Object value = column.getter.invokeExact((Object) object);
+
+				if (value == null)
+					value = "NULL";
+
+				else if (value instanceof UUID)
+					value = value.toString();
+
+				else if (value instanceof Enum)
+					value = ((Enum<?>) value).name();
+
+				map.put(column.name, value);
+			}
+
+		} catch (final RuntimeException ex) {
+			throw ex;
+
+		} catch (final Throwable t) {
+			throw new FoException(t, "Unable to read fields of " + object);
+		}
+
+		return map;
+	}
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Static
+	// ------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * Return the mapper for the given class, creating it the first time
+	 *
+	 * @param <T>
+	 * @param type
+	 * @return
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> RowMapper<T> of(Class<T> type) {
+		final RowMapper<?> mapper = mappers.get(type);
+
+		return (RowMapper<T>) (mapper != null ? mapper : mappers.computeIfAbsent(type, key -> new RowMapper<>(key)));
+	}
+
+	/*
+	 * Return all instance fields we map, superclass fields first
+	 */
+	private static List<Field> getFields(Class<?> type) {
+		final List<Field> fields = new ArrayList<>();
+
+		if (type.getSuperclass() != null && type.getSuperclass() != Object.class)
+			fields.addAll(getFields(type.getSuperclass()));
+
+		for (final Field field : type.getDeclaredFields()) {
+			final int modifiers = field.getModifiers();
+
+			if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers) && !field.isSynthetic())
+				fields.add(field);
+		}
+
+		return fields;
+	}
+
+	/*
+	 * Pick the typed result set getter for the field type once
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	private static Reader createReader(Class<?> type) {
+		if (type == int.class)
+			return ResultSet::getInt;
+
+		if (type == long.class)
+			return ResultSet::getLong;
+
+		if (type == double.class)
+			return ResultSet::getDouble;
+
+		if (type == float.class)
+			return ResultSet::getFloat;
+
+		if (type == boolean.class)
+			return ResultSet::getBoolean;
+
+		if (type == short.class)
+			return ResultSet::getShort;
+
+		if (type == byte.class)
+			return ResultSet::getByte;
+
+		if (type == String.class)
+			return ResultSet::getString;
+
+		if (type == Integer.class)
+			return nullable(ResultSet::getInt);
+
+		if (type == Long.class)
+			return nullable(ResultSet::getLong);
+
+		if (type == Double.class)
+			return nullable(ResultSet::getDouble);
+
+		if (type == Float.class)
+			return nullable(ResultSet::getFloat);
+
+		if (type == Boolean.class)
+			return nullable(ResultSet::getBoolean);
+
+		if (type == Short.class)
+			return nullable(ResultSet::getShort);
+
+		if (type == Byte.class)
+			return nullable(ResultSet::getByte);
+
+		if (type == UUID.class)
+			return (resultSet, index) -> {
+				final String value = resultSet.getString(index);
+
+				return value == null ? null : UUID.fromString(value);
+			};
+
+		if (type.isEnum())
+			return (resultSet, index) -> {
+				final String value = resultSet.getString(index);
+
+				return value == null ? null : ReflectionUtil.lookupEnum((Class<Enum>) type, value);
+			};
+
+		return (resultSet, index) -> {
+			final String value = resultSet.getString(index);
+
+			return value == null ? null : SerializeUtil.deserialize(SerializeUtil.Mode.YAML, type, value);
+		};
+	}
+
+	/*
+	 * Return null instead of 0 or false for SQL null
+	 */
+	private static Reader nullable(Reader reader) {
+		return (resultSet, index) -> {
+			final Object value = reader.read(resultSet, index);
+
+			return resultSet.wasNull() ? null : value;
+		};
+	}
+
+	/*
+	 * Reads one column with a typed getter
+	 */
+	private interface Reader {
+		Object read(ResultSet resultSet, int index) throws SQLException;
+	}
+
+	/*
+	 * A mapped field
+	 */
+	private static final class Column {
+
+		private final String name;
+		private final String lowercaseName;
+		private final MethodHandle getter;
+		private final MethodHandle setter;
+		private final Reader reader;
+
+		private Column(String name, MethodHandle getter, MethodHandle setter, Reader reader) {
+			this.name = name;
+			this.lowercaseName = name.toLowerCase();
+			this.getter = getter;
+			this.setter = setter;
+			this.reader = reader;
+		}
+	}
+
+	/*
+	 * Column indexes resolved for one result set
+	 */
+	private static final class ResolvedIndexes {
+
+		private final ResultSet resultSet;
+		private final int[] indexes;
+
+		private ResolvedIndexes(ResultSet resultSet, int[] indexes) {
+			this.resultSet = resultSet;
+			this.indexes = indexes;
+		}
+	}
+}
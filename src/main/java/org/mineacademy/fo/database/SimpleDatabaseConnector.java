@@ -1,5 +1,6 @@
 package org.mineacademy.fo.database;
 
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import org.mineacademy.fo.Common;
@@ -8,14 +9,21 @@ import org.mineacademy.fo.Valid;
 import org.mineacademy.fo.exception.FoException;
 import org.mineacademy.fo.remain.Remain;
 
+import java.io.File;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
 import java.sql.Connection;
+import java.sql.DatabaseMetaData;
 import java.sql.DriverManager;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Represents a MySQL database connector.<br>
@@ -38,6 +46,13 @@ import java.util.List;
  *
  * After the connection is established, the {@link #onConnected()} method is run automatically.
  * Then all managers added to the connector automatically run their {@link #onConnected()} methods.
+ * <br><br>
+ * When HikariCP is not available, MySQL and MariaDB connections are pooled by {@link ConnectionPool},
+ * change {@link #getPoolSettings()} before connecting to configure it.
+ * <br><br>
+ * Connect to "jdbc:sqlite:plugins/YourPlugin/data.db" to store data in a local SQLite file
+ * instead, which needs no database server. We enable WAL mode and run all work on a single
+ * database thread, which then is the only writer.
  *
  * @author kangarko
  * @author Rubix327
@@ -73,6 +88,58 @@ public class SimpleDatabaseConnector {
 	 */
 	private Object hikariDataSource;
 
+	/**
+	 * The built-in connection pool used when HikariCP is not available, or null
+	 */
+	@Getter
+	private ConnectionPool pool;
+
+	/**
+	 * The settings for the built-in connection pool, change them before connecting
+	 */
+	@Getter
+	private final ConnectionPool.Settings poolSettings = new ConnectionPool.Settings();
+
+	/**
+	 * The SQL flavor of the database, detected when connecting
+	 */
+	@Getter
+	private SqlDialect dialect = SqlDialect.MYSQL;
+
+	/**
+	 * Primary key columns by table, looked up for upserts on databases needing them
+	 */
+	private final Map<String, List<String>> primaryKeys = new ConcurrentHashMap<>();
+
+	/**
+	 * Prepared statements kept open for each connection
+	 */
+	@Getter(AccessLevel.PACKAGE)
+	private final StatementCache statementCache = new StatementCache();
+
+	/**
+	 * The connection of the transaction running on this thread, or null
+	 */
+	private final ThreadLocal<Connection> transactionConnection = new ThreadLocal<>();
+
+	/**
+	 * Held by the thread using the one shared connection when we are not pooling,
+	 * so that statements of other threads never end up in its transaction
+	 */
+	private final ReentrantLock sharedConnectionLock = new ReentrantLock();
+
+	/**
+	 * The threads running database work, started on the first connection and kept across reconnects
+	 */
+	@Getter
+	private DatabaseExecutor executor;
+
+	/**
+	 * The settings for the database threads, change them before connecting
+	 */
+	@Getter
+	private final DatabaseExecutor.Settings executorSettings = new DatabaseExecutor.Settings();
+
 	// --------------------------------------------------------------------
 	// Connecting
 	// --------------------------------------------------------------------
@@ -86,9 +153,12 @@ public class SimpleDatabaseConnector {
 
 	/**
 	 * Attempts to establish a new database connection
+	 * <p>
+	 * We enable rewriteBatchedStatements so that the MySQL driver sends batched inserts
+	 * as multi-row statements instead of one round trip per row.
 	 */
 	public final void connect(final String host, final int port, final String database, final String user, final String password, final boolean autoReconnect) {
-		this.connect("jdbc:mysql://" + host + ":" + port + "/" + database + "?useSSL=false&useUnicode=yes&characterEncoding=UTF-8&autoReconnect=" + autoReconnect, user, password);
+		this.connect("jdbc:mysql://" + host + ":" + port + "/" + database + "?useSSL=false&useUnicode=yes&characterEncoding=UTF-8&rewriteBatchedStatements=true&autoReconnect=" + autoReconnect, user, password);
 	}
 
 	/**
@@ -105,6 +175,9 @@ public class SimpleDatabaseConnector {
 	 */
 	public final void connect(final String url, final String user, final String password) {
 
+		final Connection previousConnection = this.connection;
+		final ConnectionPool previousPool = this.pool;
+
 		this.url = url;
 		this.connecting = true;
 
@@ -122,7 +195,18 @@ public class SimpleDatabaseConnector {
 			if (url.startsWith("jdbc:sqlite")) {
 				Class.forName("org.sqlite.JDBC");
 
+				this.pool = null;
+
+				this.createSQLiteFolder(url);
 				this.connection = DriverManager.getConnection(url);
+
+				// Let readers run while we write and only sync the disk on checkpoints, which
+				// is safe in WAL mode, and wait instead of failing when another process writes
+				try (Statement statement = this.connection.createStatement()) {
+					statement.execute("PRAGMA journal_mode=WAL");
+					statement.execute("PRAGMA synchronous=NORMAL");
+					statement.execute("PRAGMA busy_timeout=5000");
+				}
 			}
 
 			// Avoid using imports so that Foundation users don't have to include Hikari, you can
@@ -166,6 +250,7 @@ public class SimpleDatabaseConnector {
 				final Object hikariSource = ReflectionUtil.instantiate(dataSourceConst, hikariConfig);
 
 				this.hikariDataSource = hikariSource;
+				this.pool = null;
 
 				final Method getConnection = hikariSource.getClass().getDeclaredMethod("getConnection");
 
@@ -182,7 +267,7 @@ public class SimpleDatabaseConnector {
 			}
 
 			/*
-			 * Check for JDBC Drivers (MariaDB, MySQL or Legacy MySQL)
+			 * Check for JDBC Drivers (MariaDB, MySQL or Legacy MySQL) and pool their connections ourselves
 			 */
 			else {
 				if (url.startsWith("jdbc:mariadb://") && ReflectionUtil.isClassAvailable("org.mariadb.jdbc.Driver"))
@@ -197,9 +282,45 @@ public class SimpleDatabaseConnector {
 					Class.forName("com.mysql.jdbc.Driver");
 				}
 
-				this.connection = user != null && password != null ? DriverManager.getConnection(url, user, password) : DriverManager.getConnection(url);
+				final String name = this.getClass().getSimpleName().isEmpty() ? "default" : this.getClass().getSimpleName();
+
+				this.pool = new ConnectionPool(name, url, user, password, this.poolSettings, this.statementCache::invalidate);
+
+				// We only keep a connection from the pool once a subclass asks for it, see getConnection()
+				this.connection = null;
+			}
+
+			// Shut down the pool we used before reconnecting, releasing the connection we kept from it
+			if (previousPool != null && previousPool != this.pool && !previousPool.isClosed()) {
+				if (previousConnection != null)
+					previousPool.release(previousConnection);
+
+				previousPool.close();
 			}
 
+			if (this.pool != null) {
+				final Connection connection = this.pool.borrow();
+
+				try {
+					this.dialect = SqlDialect.detect(connection);
+
+				} finally {
+					this.pool.release(connection);
+				}
+
+			} else
+				this.dialect = SqlDialect.detect(this.connection);
+
+			this.primaryKeys.clear();
+
+			// One thread per connection we can borrow, more would only wait for the pool
+			if (this.executor == null || this.executor.isShutdown())
+				this.executor = new DatabaseExecutor(this.pool != null ? this.poolSettings.getMaximumSize() : 1, this.executorSettings);
+
+			// Statements of the replaced connection can no longer be used
+			if (previousConnection != null && previousConnection != this.connection)
+				this.statementCache.invalidate(previousConnection);
+
 			for (SimpleDatabaseManager m : managers){
 				m.setConnector(this);
 			}
@@ -239,6 +360,21 @@ public class SimpleDatabaseConnector {
 		}
 	}
 
+	/*
+	 * Create the folders of the database file so that it can be placed in the plugin folder on first start
+	 */
+	private void createSQLiteFolder(String url) {
+		final String path = url.substring("jdbc:sqlite:".length()).split("\\?")[0];
+
+		if (path.isEmpty() || path.equals(":memory:") || path.startsWith("file:"))
+			return;
+
+		final File parent = new File(path).getAbsoluteFile().getParentFile();
+
+		if (parent != null && !parent.exists() && !parent.mkdirs())
+			Common.warning("Could not create folder " + parent + " for the SQLite database");
+	}
+
 	/**
 	 * Attempts to connect using last known credentials. Fails gracefully if those are not provided
 	 * i.e. connect function was never called
@@ -278,11 +414,30 @@ public class SimpleDatabaseConnector {
 	}
 
 	/**
-	 * Attempts to close the connection, if not null
+	 * Attempts to close the connection, if not null.
+	 * Saves that flat databases added as managers keep for later are written first.
 	 */
 	public final void close() {
+
+		// Write-behind saves only reach the executor when flushed, do it while it still runs
+		for (final SimpleDatabaseManager manager : this.managers)
+			if (manager instanceof SimpleFlatDatabase)
+				((SimpleFlatDatabase<?>) manager).shutdown();
+
+		// Let queued work finish while we still have connections
+		if (this.executor != null && !this.executor.shutdown(10, TimeUnit.SECONDS))
+			Common.warning("Database work did not finish within 10 seconds of closing the connection, pending queries may fail");
+
+		this.statementCache.clear();
+
 		try {
-			if (this.connection != null)
+			if (this.pool != null) {
+				if (this.connection != null)
+					this.pool.release(this.connection);
+
+				this.pool.close();
+
+			} else if (this.connection != null)
 				this.connection.close();
 
 			if (this.hikariDataSource != null)
@@ -304,6 +459,10 @@ public class SimpleDatabaseConnector {
 		if (!this.isLoaded())
 			return false;
 
+		// Pooled connections are validated when borrowed
+		if (this.pool != null)
+			return !this.pool.isClosed();
+
 		try {
 			if (!this.connection.isValid(0))
 				return false;
@@ -319,14 +478,146 @@ public class SimpleDatabaseConnector {
 		}
 	}
 
+	/**
+	 * Return the connection kept open for the lifetime of this connector.
+	 * Managers borrow their own connections when pooling, see {@link #borrowConnection()}.
+	 * <p>
+	 * When pooling, the first call takes one connection out of the pool for good,
+	 * so prefer running queries through a {@link SimpleDatabaseManager}.
+	 */
 	protected final Connection getConnection(){
+		if (this.pool != null)
+			this.renewPinnedConnection();
+
+		return this.connection;
+	}
+
+	/**
+	 * Return a connection for running one operation, you must give it back using
+	 * {@link #releaseConnection(Connection)} when done. When we are not pooling
+	 * connections, this is the one shared connection and other threads wait until you release it.
+	 */
+	final Connection borrowConnection() throws SQLException {
+		final Connection transaction = this.transactionConnection.get();
+
+		if (transaction != null)
+			return transaction;
+
+		if (this.pool != null)
+			return this.pool.borrow();
+
+		this.sharedConnectionLock.lock();
+
 		return this.connection;
 	}
 
+	/**
+	 * Give the connection from {@link #borrowConnection()} back
+	 */
+	final void releaseConnection(Connection connection) {
+		if (connection == this.transactionConnection.get())
+			return;
+
+		if (this.pool != null) {
+			if (connection != this.connection)
+				this.pool.release(connection);
+
+		} else if (this.sharedConnectionLock.isHeldByCurrentThread())
+			this.sharedConnectionLock.unlock();
+	}
+
+	/**
+	 * Make {@link #borrowConnection()} return the given connection on this thread until
+	 * called with null, so that everything a transaction runs shares its connection.
+	 * Call with null before releasing the connection.
+	 */
+	final void setTransactionConnection(Connection connection) {
+		if (connection == null)
+			this.transactionConnection.remove();
+		else
+			this.transactionConnection.set(connection);
+	}
+
+	/*
+	 * Take the connection we keep from the pool on first use and replace it if the server closed it
+	 */
+	private synchronized void renewPinnedConnection() {
+		if (this.connection == null) {
+			try {
+				this.connection = this.pool.borrowPinned();
+
+			} catch (final SQLException ex) {
+				Common.error(ex, "Error borrowing database connection from pool " + this.pool.getName());
+			}
+
+			return;
+		}
+
+		boolean valid;
+
+		try {
+			valid = this.connection.isValid(1);
+
+		} catch (final SQLException ex) {
+			valid = false;
+
+		} catch (final AbstractMethodError err) {
+			valid = true;
+		}
+
+		if (valid)
+			return;
+
+		try {
+			this.pool.release(this.connection);
+			this.connection = null;
+			this.connection = this.pool.borrowPinned();
+
+		} catch (final SQLException ex) {
+			Common.error(ex, "Error renewing database connection from pool " + this.pool.getName());
+		}
+	}
+
 	public final boolean isConnecting() {
 		return connecting;
 	}
 
+	/**
+	 * Return the primary key columns of the given table from the database metadata,
+	 * or an empty list if it has none or does not exist. Results are cached until reconnecting.
+	 */
+	final List<String> getPrimaryKeys(String table) throws SQLException {
+		final String name = table.replace("`", "").replace("\"", "");
+		final List<String> cached = this.primaryKeys.get(name);
+
+		if (cached != null)
+			return cached;
+
+		final List<String> keys = new ArrayList<>();
+		final Connection connection = this.borrowConnection();
+
+		try {
+			final DatabaseMetaData metaData = connection.getMetaData();
+
+			// Unquoted names are stored lowercase in PostgreSQL and uppercase in H2
+			for (final String candidate : new String[] { name, name.toLowerCase(), name.toUpperCase() }) {
+				try (ResultSet resultSet = metaData.getPrimaryKeys(null, null, candidate)) {
+					while (resultSet.next())
+						keys.add(resultSet.getString("COLUMN_NAME"));
+				}
+
+				if (!keys.isEmpty())
+					break;
+			}
+
+		} finally {
+			this.releaseConnection(connection);
+		}
+
+		this.primaryKeys.put(name, keys);
+		return keys;
+	}
+
 	// --------------------------------------------------------------------
 	// Non-blocking checking
 	// --------------------------------------------------------------------
@@ -344,7 +635,7 @@ public class SimpleDatabaseConnector {
 	 * @return true if the driver was loaded
 	 */
 	public final boolean isLoaded() {
-		return this.connection != null;
+		return this.pool != null || this.connection != null;
 	}
 
 	// --------------------------------------------------------------------
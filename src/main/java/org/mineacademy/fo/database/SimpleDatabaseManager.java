@@ -6,13 +6,18 @@ import org.jetbrains.annotations.Nullable;
 import org.mineacademy.fo.*;
 import org.mineacademy.fo.collection.SerializedMap;
 import org.mineacademy.fo.collection.StrictMap;
+import org.mineacademy.fo.database.StatementCache.StatementTask;
 import org.mineacademy.fo.debug.Debugger;
 
 import java.sql.*;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
 
 /**
@@ -34,7 +39,6 @@ public class SimpleDatabaseManager {
 
     @Getter
     private SimpleDatabaseConnector connector;
-    private Connection connection;
     @Getter(AccessLevel.PACKAGE)
     private Consumer<SimpleDatabaseManager> afterConnected;
 
@@ -45,7 +49,6 @@ public class SimpleDatabaseManager {
 
     void setConnector(SimpleDatabaseConnector connector) {
         this.connector = connector;
-        this.connection = connector.getConnection();
     }
 
     protected void onConnected() {}
@@ -67,6 +70,31 @@ public class SimpleDatabaseManager {
         return this;
     }
 
+    /**
+     * Run the database work on the connector's database threads instead of the Bukkit scheduler,
+     * see {@link DatabaseExecutor} for how we limit the queue
+     *
+     * @param task the work, calling the querying methods below
+     * @return the future completed on the database thread
+     */
+    protected final <T> CompletableFuture<T> runAsync(Callable<T> task) {
+        this.connector.checkEstablished();
+
+        return this.connector.getExecutor().submit(task);
+    }
+
+    /**
+     * Run the database work on the connector's database threads and the callback on the main thread
+     *
+     * @param task the work, calling the querying methods below
+     * @param callback called on the main thread with the result or error
+     */
+    protected final <T> void runAsync(Callable<T> task, @NotNull Callback<T> callback) {
+        this.connector.checkEstablished();
+
+        this.connector.getExecutor().submit(task, callback);
+    }
+
     // --------------------------------------------------------------------
     // Querying
     // --------------------------------------------------------------------
@@ -82,28 +110,35 @@ public class SimpleDatabaseManager {
      * Creates a database table, to be used in onConnected
      */
     protected final void createTable(TableCreator creator, @NotNull Callback<Void> callback) {
-        StringBuilder columns = new StringBuilder();
+        final SqlDialect dialect = this.connector.getDialect();
+        final StringBuilder columns = new StringBuilder();
+        boolean primaryDeclared = false;
 
         for (final TableRow column : creator.getColumns()) {
-            columns.append((columns.length() == 0) ? "" : ", ").append("`").append(column.getName()).append("` ").append(column.getDataType());
+            columns.append((columns.length() == 0) ? "" : ", ");
 
-            if (column.getAutoIncrement() != null && column.getAutoIncrement())
-                columns.append(" NOT NULL AUTO_INCREMENT");
+            if (column.getAutoIncrement() != null && column.getAutoIncrement()) {
+                final boolean primary = column.getName().equals(creator.getPrimaryColumn());
 
-            else if (column.getNotNull() != null && column.getNotNull())
-                columns.append(" NOT NULL");
+                columns.append(dialect.createAutoIncrement(column.getName(), column.getDataType(), primary));
+                primaryDeclared |= primary && dialect == SqlDialect.SQLITE;
+
+            } else {
+                columns.append(dialect.quote(column.getName())).append(" ").append(column.getDataType());
+
+                if (column.getNotNull() != null && column.getNotNull())
+                    columns.append(" NOT NULL");
+            }
 
             if (column.getDefaultValue() != null)
                 columns.append(" DEFAULT ").append(column.getDefaultValue());
         }
 
-        if (creator.getPrimaryColumn() != null)
-            columns.append(", PRIMARY KEY (`").append(creator.getPrimaryColumn()).append("`)");
+        if (creator.getPrimaryColumn() != null && !primaryDeclared)
+            columns.append(", PRIMARY KEY (").append(dialect.quote(creator.getPrimaryColumn())).append(")");
 
         try {
-            final boolean isSQLite = getUrl() != null && getUrl().startsWith("jdbc:sqlite");
-
-            this.update("CREATE TABLE IF NOT EXISTS `" + creator.getName() + "` (" + columns + ")" + (isSQLite ? "" : " DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_520_ci") + ";", callback);
+            this.update("CREATE TABLE IF NOT EXISTS " + dialect.quote(creator.getName()) + " (" + columns + ")" + dialect.getTableOptions() + ";", callback);
 
         } catch (final Throwable t) {
             if (t.toString().contains("Unknown collation")) {
@@ -117,38 +152,291 @@ public class SimpleDatabaseManager {
     }
 
     /**
-     * Insert the given column-values pairs into the given table
+     * Insert the given column-values pairs into the given table, or update the
+     * existing row with the same primary key in the same statement
      */
     protected final void insert(String table, @NonNull SerializedMap columnsAndValues, @NotNull Callback<Void> callback) {
-        final String columns = Common.join(columnsAndValues.keySet());
-        final String values = Common.join(columnsAndValues.values(), ", ", this::parseValue);
-        final String duplicateUpdate = Common.join(columnsAndValues.entrySet(), ", ", entry -> entry.getKey() + "=VALUES(" + entry.getKey() + ")");
+        final String sql;
+
+        try {
+            sql = this.createUpsertSql(table, columnsAndValues.keySet());
 
-        this.update("INSERT INTO " + this.replaceVariables(table) + " (" + columns + ") VALUES (" + values + ") ON DUPLICATE KEY UPDATE " + duplicateUpdate + ";", callback);
+        } catch (final SQLException ex) {
+            callback.onFail(ex);
+            this.handleError(ex, "Error reading the primary key of " + table);
+
+            return;
+        }
+
+        this.update(sql, callback, columnsAndValues.values().toArray());
     }
 
     /**
-     * Insert the batch map into the database
+     * Insert the batch map into the database using {@link #getBatchSize()} rows per batch
      */
     protected final void insertBatch(String table, @NonNull List<SerializedMap> maps, @NotNull Callback<Void> callback) {
-        final List<String> sqls = new ArrayList<>();
+        this.insertBatch(table, maps, this.getBatchSize(), callback);
+    }
+
+    /**
+     * Insert the batch map into the database. Rows with the same columns share one
+     * prepared statement and are sent to the database in batches of the given size,
+     * everything is committed in one transaction.
+     */
+    protected final void insertBatch(String table, @NonNull List<SerializedMap> maps, int batchSize, @NotNull Callback<Void> callback) {
+        Valid.checkBoolean(batchSize > 0, "Batch size must be positive, got " + batchSize);
+
+        if (maps.isEmpty())
+            return;
+
+        this.connector.checkEstablished();
+
+        if (!this.connector.isConnected()){
+            this.connector.connectUsingLastCredentials();
+        }
+
+        // Group rows by their columns so that each shape is prepared only once
+        final Map<String, List<SerializedMap>> rowsBySql = new LinkedHashMap<>();
+
+        try {
+            for (final SerializedMap map : maps)
+                rowsBySql.computeIfAbsent(this.createUpsertSql(table, map.keySet()), sql -> new ArrayList<>()).add(map);
+
+        } catch (final SQLException ex) {
+            callback.onFail(ex);
+            this.handleError(ex, "Error reading the primary key of " + table);
+
+            return;
+        }
+
+        if (maps.size() > 10_000)
+            Common.log("Updating your database (" + maps.size() + " entries)... PLEASE BE PATIENT THIS WILL TAKE "
+                    + (maps.size() > 50_000 ? "10-20 MINUTES" : "5-10 MINUTES") + " - If server will print a crash report, ignore it, update will proceed.");
+
+        if (maps.size() > batchSize && this.isMissingBatchRewrite())
+            Debugger.debug("mysql", "Inserting " + maps.size() + " rows in batches, add rewriteBatchedStatements=true to your MySQL url to send them as multi-row inserts.");
+
+        final Connection connection;
+
+        try {
+            connection = this.connector.borrowConnection();
+
+        } catch (final SQLException ex) {
+            callback.onFail(ex);
+            this.handleError(ex, "Error getting database connection for batch insert into " + table);
+
+            return;
+        }
+
+        // Inside transaction() we leave committing to it
+        boolean ownTransaction = true;
+
+        try {
+            ownTransaction = connection.getAutoCommit();
+
+            // Prevent automatically sending db instructions
+            if (ownTransaction)
+                connection.setAutoCommit(false);
+
+            for (final Map.Entry<String, List<SerializedMap>> entry : rowsBySql.entrySet()) {
+                Debugger.debug("mysql", "Batch inserting " + entry.getValue().size() + " rows with: " + entry.getKey());
+
+                this.withStatement(connection, entry.getKey(), statement -> {
+                    final long startNanos = System.nanoTime();
+                    int pending = 0;
+
+                    for (final SerializedMap row : entry.getValue()) {
+                        this.bindValues(statement, row.values().toArray());
+                        statement.addBatch();
+
+                        if (++pending == batchSize) {
+                            statement.executeBatch();
+                            pending = 0;
+                        }
+                    }
+
+                    if (pending > 0)
+                        statement.executeBatch();
+
+                    QueryStatistics.record(entry.getKey(), System.nanoTime() - startNanos, entry.getValue().size());
+                    return null;
+                });
+            }
+
+            // This will block the thread
+            if (ownTransaction)
+                connection.commit();
+
+            callback.onSuccess(null);
+
+        } catch (final Throwable t) {
+            try {
+                if (ownTransaction)
+                    connection.rollback();
+
+            } catch (final SQLException ex) {
+                // The connection is likely gone, nothing to roll back
+            }
+
+            final List<String> errorLog = new ArrayList<>();
+
+            errorLog.add(Common.consoleLine());
+            errorLog.add(" [" + TimeUtil.getFormattedDateShort() + "] Failed to save batch sql, please contact the plugin author with this file content: " + t);
+            errorLog.add(Common.consoleLine());
+
+            for (final Map.Entry<String, List<SerializedMap>> entry : rowsBySql.entrySet()) {
+                errorLog.add(entry.getKey());
+
+                for (final SerializedMap row : entry.getValue())
+                    errorLog.add("  " + row.values());
+            }
+
+            FileUtil.write("sql-error.log", errorLog);
+
+            t.printStackTrace();
+            callback.onFail(t);
+
+        } finally {
+            try {
+                if (ownTransaction)
+                    connection.setAutoCommit(true);
+
+            } catch (final SQLException ex) {
+                ex.printStackTrace();
+                callback.onFail(ex);
+            }
+
+            this.connector.releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Run the task in one transaction, everything it inserts, updates or queries through
+     * this manager on this thread uses the same connection and is committed together
+     * when it returns, or rolled back if it throws.
+     * <p>
+     * Batching many writes this way is much faster on SQLite, which syncs the disk on each commit.
+     * When connections are not pooled, queries from other threads wait until the transaction ends.
+     */
+    protected final void transaction(@NonNull Transaction task, @NotNull Callback<Void> callback) {
+        this.connector.checkEstablished();
 
-        for (final SerializedMap map : maps) {
-            final String columns = Common.join(map.keySet());
-            final String values = Common.join(map.values(), ", ", this::parseValue);
-            final String duplicateUpdate = Common.join(map.entrySet(), ", ", entry -> entry.getKey() + "=VALUES(" + entry.getKey() + ")");
+        if (!this.connector.isConnected()){
+            this.connector.connectUsingLastCredentials();
+        }
+
+        final Connection connection;
+
+        try {
+            connection = this.connector.borrowConnection();
+
+        } catch (final SQLException ex) {
+            callback.onFail(ex);
+            this.handleError(ex, "Error getting database connection for transaction");
 
-            sqls.add("INSERT INTO " + table + " (" + columns + ") VALUES (" + values + ") ON DUPLICATE KEY UPDATE " + duplicateUpdate + ";");
+            return;
         }
 
-        this.batchUpdate(sqls, callback);
+        boolean ownTransaction = true;
+
+        try {
+            ownTransaction = connection.getAutoCommit();
+
+            // Already in a transaction on this thread, join it
+            if (ownTransaction) {
+                connection.setAutoCommit(false);
+
+                this.connector.setTransactionConnection(connection);
+            }
+
+            task.run();
+
+            if (ownTransaction)
+                connection.commit();
+
+            callback.onSuccess(null);
+
+        } catch (final Throwable t) {
+            try {
+                if (ownTransaction)
+                    connection.rollback();
+
+            } catch (final SQLException ex) {
+                // The connection is likely gone, nothing to roll back
+            }
+
+            callback.onFail(t);
+
+        } finally {
+            if (ownTransaction) {
+                this.connector.setTransactionConnection(null);
+
+                try {
+                    connection.setAutoCommit(true);
+
+                } catch (final SQLException ex) {
+                    ex.printStackTrace();
+                }
+            }
+
+            this.connector.releaseConnection(connection);
+        }
     }
 
     /**
-     * A helper method to insert compatible value to db
+     * How many rows {@link #insertBatch(String, List, Callback)} sends to the database at once
+     */
+    protected int getBatchSize() {
+        return 1_000;
+    }
+
+    /*
+     * Create the parametrized upsert statement for the given columns in the database dialect,
+     * same columns always give the same SQL
+     */
+    private String createUpsertSql(String table, Set<String> columns) throws SQLException {
+        final SqlDialect dialect = this.connector.getDialect();
+
+        table = this.replaceVariables(table);
+
+        final List<String> keys = dialect.isUpsertKeyRequired() ? this.connector.getPrimaryKeys(table) : new ArrayList<>();
+
+        return dialect.createUpsert(table, columns, keys);
+    }
+
+    /*
+     * Return true if this is a MySQL connection where the driver sends batches row by row
+     */
+    private boolean isMissingBatchRewrite() {
+        final String url = this.getUrl();
+
+        return url != null && url.startsWith("jdbc:mysql") && !url.contains("rewriteBatchedStatements=true");
+    }
+
+    /*
+     * Bind the values to the statement parameters in order
+     */
+    private void bindValues(PreparedStatement statement, Object[] values) throws SQLException {
+        for (int i = 0; i < values.length; i++)
+            this.bindValue(statement, i + 1, values[i]);
+    }
+
+    /*
+     * Bind the value to the statement parameter, values are serialized the same way
+     * they used to be written into SQL so that stored data stays compatible
      */
-    private String parseValue(Object value) {
-        return value == null || value.equals("NULL") ? "NULL" : value instanceof Boolean ? serializeObject(value) : "'" + serializeObject(value) + "'";
+    private void bindValue(PreparedStatement statement, int index, Object value) throws SQLException {
+        if (value == null || value.equals("NULL"))
+            statement.setNull(index, Types.NULL);
+
+        else if (value instanceof Boolean)
+            statement.setBoolean(index, (Boolean) value);
+
+        else if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte)
+            statement.setLong(index, ((Number) value).longValue());
+
+        else
+            statement.setString(index, this.serializeObject(value));
     }
 
     private String serializeObject(Object value){
@@ -174,8 +462,65 @@ public class SimpleDatabaseManager {
         sql = this.replaceVariables(sql);
         Debugger.debug("mysql", "Updating database with: " + sql);
 
-        try (Statement statement = this.connection.createStatement()) {
-            statement.executeUpdate(sql);
+        Connection connection = null;
+
+        try {
+            connection = this.connector.borrowConnection();
+
+            try (Statement statement = connection.createStatement()) {
+                this.applyQueryTimeout(statement);
+
+                final long startNanos = System.nanoTime();
+                final int rows = statement.executeUpdate(sql);
+
+                QueryStatistics.record(sql, System.nanoTime() - startNanos, rows);
+            }
+
+            callback.onSuccess(null);
+        }
+        catch (SQLException e) {
+            callback.onFail(e);
+            this.handleError(e, "Error on updating database with: " + sql);
+        }
+        finally {
+            if (connection != null)
+                this.connector.releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Attempts to execute a new update query with the given parameters bound in place of
+     * the ? marks. The statement is prepared once per connection and then reused.
+     * <p>
+     * Make sure you called connect() first otherwise an error will be thrown
+     */
+    protected final void update(String sql, @NotNull Callback<Void> callback, Object... params) {
+        if (!this.connector.isConnecting()){
+            Valid.checkAsync("Updating database must be done async! Call: " + sql);
+        }
+
+        this.connector.checkEstablished();
+
+        if (!this.connector.isConnected()){
+            this.connector.connectUsingLastCredentials();
+        }
+
+        sql = this.replaceVariables(sql);
+        Debugger.debug("mysql", "Updating database with: " + sql + " (" + params.length + " parameters)");
+
+        try {
+            final String finalSql = sql;
+
+            this.withStatement(sql, statement -> {
+                this.bindValues(statement, params);
+
+                final long startNanos = System.nanoTime();
+                final int rows = statement.executeUpdate();
+
+                QueryStatistics.record(finalSql, System.nanoTime() - startNanos, rows, params);
+                return rows;
+            });
+
             callback.onSuccess(null);
         }
         catch (SQLException e) {
@@ -211,7 +556,7 @@ public class SimpleDatabaseManager {
      * Lists all given columns from all rows in the given table.<br><br>
      * Here you should go over all rows yourself (while resultSet.next()).<br>
      * To use a ready solution for this please see {@link #selectForEach(String, String, String, Callback)} and {@link #forEachRow(ResultSet, Callback)}.<br><br>
-     * Do not forget to close the connection when done in your consumer.
+     * The result set is closed after your consumer returns.
      */
     protected final void select(@NotNull String table, @NotNull String columns, @Nullable String where, @NotNull Callback<ResultSet> callback){
         if (!this.connector.isLoaded()){
@@ -221,6 +566,20 @@ public class SimpleDatabaseManager {
         this.query("SELECT " + columns + " FROM " + table + (where == null ? "" : " WHERE " + where), callback);
     }
 
+    /**
+     * Lists all given columns from all rows in the given table matching the where clause,
+     * with the given parameters bound in place of the ? marks in it.<br><br>
+     * Example: select("Players", "*", "UUID = ? AND Level > ?", callback, uuid, 10)<br><br>
+     * The result set is only valid inside the callback.
+     */
+    protected final void select(@NotNull String table, @NotNull String columns, @NotNull String where, @NotNull Callback<ResultSet> callback, Object... params){
+        if (!this.connector.isLoaded()){
+            return;
+        }
+
+        this.query("SELECT " + columns + " FROM " + table + " WHERE " + where, callback, params);
+    }
+
     /**
      * Go over every row in the given resultSet
      * @param resultSet the resultSet
@@ -295,8 +654,9 @@ public class SimpleDatabaseManager {
      */
     protected final void count(String table, SerializedMap conditions, @NotNull Callback<Integer> callback) {
 
-        // Convert conditions into SQL syntax
-        final Set<String> conditionsList = Common.convertSet(conditions.entrySet(), entry -> entry.getKey() + " = '" + SerializeUtil.serialize(getMode(), entry.getValue()) + "'");
+        // Convert conditions into SQL syntax, values are bound as parameters
+        final List<String> conditionsList = Common.convert(conditions.keySet(), column -> column + " = ?");
+        final Object[] values = Common.convert(conditions.values(), value -> SerializeUtil.serialize(getMode(), value)).toArray();
 
         // Run the query
         final String sql = "SELECT * FROM " + table + (conditionsList.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditionsList)) + ";";
@@ -326,7 +686,7 @@ public class SimpleDatabaseManager {
             public void onFail(Throwable t) {
                 callback.onFail(t);
             }
-        });
+        }, values);
     }
 
     /**
@@ -347,11 +707,78 @@ public class SimpleDatabaseManager {
 
         Debugger.debug("mysql", "Querying database with: " + sql);
 
+        Connection connection = null;
+
+        try {
+            connection = this.connector.borrowConnection();
+
+            try (Statement statement = connection.createStatement()) {
+                this.applyQueryTimeout(statement);
+
+                final long startNanos = System.nanoTime();
+                final CountingResultSet resultSet = new CountingResultSet(statement.executeQuery(sql));
+                final long nanos = System.nanoTime() - startNanos;
+
+                callback.onSuccess(resultSet);
+
+                // Rows are only known once the callback has read them
+                QueryStatistics.record(sql, nanos, resultSet.getRows());
+            }
+        }
+        catch (final SQLException ex) {
+            if (ex instanceof SQLSyntaxErrorException && ex.getMessage().startsWith("Table") && ex.getMessage().endsWith("doesn't exist")){
+                callback.onSuccess(new DummyResultSet());
+                return;
+            }
+
+            callback.onFail(ex);
+            this.handleError(ex, "Error on querying database with: " + sql);
+        }
+        finally {
+            if (connection != null)
+                this.connector.releaseConnection(connection);
+        }
+    }
+
+    /**
+     * Attempts to execute a new query with the given parameters bound in place of
+     * the ? marks. The statement is prepared once per connection and then reused,
+     * so the result set is only valid inside the callback.
+     * <p>
+     * Make sure you called connect() first otherwise an error will be thrown
+     */
+    protected final void query(String sql, @NotNull Callback<ResultSet> callback, Object... params) {
+        Valid.checkAsync("Sending database query must be called async, command: " + sql);
+
+        this.connector.checkEstablished();
+
+        if (!this.connector.isConnected()){
+            this.connector.connectUsingLastCredentials();
+        }
+
+        sql = this.replaceVariables(sql);
+
+        Debugger.debug("mysql", "Querying database with: " + sql + " (" + params.length + " parameters)");
+
         try {
-            final Statement statement = this.connection.createStatement();
-            final ResultSet resultSet = statement.executeQuery(sql);
+            final String finalSql = sql;
+
+            this.withStatement(sql, statement -> {
+                this.bindValues(statement, params);
+
+                final long startNanos = System.nanoTime();
+
+                try (CountingResultSet resultSet = new CountingResultSet(statement.executeQuery())) {
+                    final long nanos = System.nanoTime() - startNanos;
 
-            callback.onSuccess(resultSet);
+                    callback.onSuccess(resultSet);
+
+                    // Rows are only known once the callback has read them
+                    QueryStatistics.record(finalSql, nanos, resultSet.getRows(), params);
+                }
+
+                return null;
+            });
         }
         catch (final SQLException ex) {
             if (ex instanceof SQLSyntaxErrorException && ex.getMessage().startsWith("Table") && ex.getMessage().endsWith("doesn't exist")){
@@ -364,6 +791,43 @@ public class SimpleDatabaseManager {
         }
     }
 
+    /*
+     * Run the task with the cached prepared statement for the sql on a borrowed connection
+     */
+    private <R> R withStatement(String sql, StatementTask<R> task) throws SQLException {
+        final Connection connection = this.connector.borrowConnection();
+
+        try {
+            return this.withStatement(connection, sql, task);
+
+        } finally {
+            this.connector.releaseConnection(connection);
+        }
+    }
+
+    /*
+     * Run the task with the cached prepared statement for the sql on the given connection.
+     * The cache holds the connection lock so two threads never bind parameters to it at once.
+     */
+    private <R> R withStatement(Connection connection, String sql, StatementTask<R> task) throws SQLException {
+        return this.connector.getStatementCache().run(connection, sql, statement -> {
+            statement.clearParameters();
+            this.applyQueryTimeout(statement);
+
+            return task.run(statement);
+        });
+    }
+
+    /*
+     * Let the driver cancel the statement when it runs longer than the configured query timeout
+     */
+    private void applyQueryTimeout(Statement statement) throws SQLException {
+        final int timeout = this.connector.getExecutorSettings().getQueryTimeout();
+
+        if (statement.getQueryTimeout() != timeout)
+            statement.setQueryTimeout(timeout);
+    }
+
     /**
      * Executes a massive batch update
      */
@@ -377,7 +841,24 @@ public class SimpleDatabaseManager {
             this.connector.connectUsingLastCredentials();
         }
 
-        try (Statement batchStatement = this.getConnection().createStatement(ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_UPDATABLE)) {
+        final Connection connection;
+
+        try {
+            connection = this.connector.borrowConnection();
+
+        } catch (final SQLException ex) {
+            callback.onFail(ex);
+            this.handleError(ex, "Error getting database connection for batch update");
+
+            return;
+        }
+
+        // Inside transaction() we leave committing to it
+        boolean ownTransaction = true;
+
+        try (Statement batchStatement = connection.createStatement(ResultSet.TYPE_SCROLL_SENSITIVE, ResultSet.CONCUR_UPDATABLE)) {
+            this.applyQueryTimeout(batchStatement);
+
             final int processedCount = sqls.size();
 
             for (final String sql : sqls)
@@ -387,15 +868,26 @@ public class SimpleDatabaseManager {
                 Common.log("Updating your database (" + processedCount + " entries)... PLEASE BE PATIENT THIS WILL TAKE "
                         + (processedCount > 50_000 ? "10-20 MINUTES" : "5-10 MINUTES") + " - If server will print a crash report, ignore it, update will proceed.");
 
+            ownTransaction = connection.getAutoCommit();
+
             // Prevent automatically sending db instructions
-            this.getConnection().setAutoCommit(false);
+            if (ownTransaction)
+                connection.setAutoCommit(false);
 
             try {
                 // Execute
-                batchStatement.executeBatch();
+                final long startNanos = System.nanoTime();
+                final int[] rows = batchStatement.executeBatch();
+
+                // The database does not tell how long each statement took, split the time evenly
+                final long nanosPerStatement = (System.nanoTime() - startNanos) / Math.max(1, processedCount);
+
+                for (int i = 0; i < processedCount; i++)
+                    QueryStatistics.record(this.replaceVariables(sqls.get(i)), nanosPerStatement, i < rows.length ? Math.max(0, rows[i]) : 0);
 
                 // This will block the thread
-                this.getConnection().commit();
+                if (ownTransaction)
+                    connection.commit();
                 callback.onSuccess(null);
             }
             catch (final Throwable t) {
@@ -420,12 +912,15 @@ public class SimpleDatabaseManager {
 
         } finally {
             try {
-                this.connection.setAutoCommit(true);
+                if (ownTransaction)
+                    connection.setAutoCommit(true);
 
             } catch (final SQLException ex) {
                 ex.printStackTrace();
                 callback.onFail(ex);
             }
+
+            this.connector.releaseConnection(connection);
         }
     }
 
@@ -444,7 +939,7 @@ public class SimpleDatabaseManager {
         sql = this.replaceVariables(sql);
 
         Debugger.debug("mysql", "Preparing statement: " + sql);
-        return this.connection.prepareStatement(sql);
+        return this.getConnection().prepareStatement(sql);
     }
 
     /**
@@ -462,7 +957,147 @@ public class SimpleDatabaseManager {
         sql = this.replaceVariables(sql);
 
         Debugger.debug("mysql", "Preparing statement: " + sql);
-        return this.connection.prepareStatement(sql, type, concurrency);
+        return this.getConnection().prepareStatement(sql, type, concurrency);
+    }
+
+    // --------------------------------------------------------------------
+    // Paged loading
+    // --------------------------------------------------------------------
+
+    /**
+     * Load all rows matching the select in pages, mapping each row to the given class using {@link RowMapper}
+     *
+     * @see #selectPaged(PagedSelect, RowConverter, PageConsumer)
+     */
+    protected final <T> CompletableFuture<Long> selectPaged(@NonNull PagedSelect select, @NonNull Class<T> type, @NonNull PageConsumer<T> consumer) {
+        final RowMapper<T> mapper = RowMapper.of(type);
+
+        return this.selectPaged(select, mapper::map, consumer);
+    }
+
+    /**
+     * Load all rows matching the select page by page on the database thread, ordered by its key column.
+     * Each page continues after the last key of the previous one instead of using OFFSET, so late pages
+     * are as fast as the first, and only one page is kept in memory at a time.
+     * <p>
+     * Each page is converted and given to the consumer, on the main thread one page per tick if
+     * {@link PagedSelect#spreadOverTicks()} was called, otherwise on the database thread. The next page
+     * is only loaded after the consumer returns.
+     *
+     * @param select what to load
+     * @param converter creates your object from the current row
+     * @param consumer called with each page
+     * @return the future completed with the amount of loaded rows, or the error that stopped loading
+     */
+    protected final <T> CompletableFuture<Long> selectPaged(@NonNull PagedSelect select, @NonNull RowConverter<T> converter, @NonNull PageConsumer<T> consumer) {
+        this.connector.checkEstablished();
+
+        final CompletableFuture<Long> future = new CompletableFuture<>();
+
+        this.loadPage(select, converter, consumer, null, 0, future);
+
+        return future;
+    }
+
+    /*
+     * Fetch the page after the given key on the database thread, hand it to the consumer and continue with the next one
+     */
+    private <T> void loadPage(PagedSelect select, RowConverter<T> converter, PageConsumer<T> consumer, Object lastKey, long loaded, CompletableFuture<Long> future) {
+        this.connector.getExecutor().submit(() -> this.fetchPage(select, converter, lastKey)).whenComplete((page, error) -> {
+            if (error != null) {
+                future.completeExceptionally(error);
+
+                return;
+            }
+
+            final Runnable delivery = () -> {
+                try {
+                    if (!page.rows.isEmpty())
+                        consumer.accept(page.rows);
+
+                } catch (final Throwable t) {
+                    future.completeExceptionally(t);
+
+                    return;
+                }
+
+                final long total = loaded + page.rows.size();
+
+                // A short page is the last one
+                if (page.rows.size() < select.getPageSize())
+                    future.complete(total);
+                else
+                    this.loadPage(select, converter, consumer, page.lastKey, total, future);
+            };
+
+            if (select.isSpreadOverTicks())
+                DatabaseExecutor.runOnMainThread(delivery);
+            else
+                delivery.run();
+        });
+    }
+
+    /*
+     * Run the keyset query for one page on this thread
+     */
+    private <T> Page<T> fetchPage(PagedSelect select, RowConverter<T> converter, Object lastKey) throws SQLException {
+        if (!this.connector.isConnected()){
+            this.connector.connectUsingLastCredentials();
+        }
+
+        final List<String> conditions = new ArrayList<>();
+        final List<Object> params = new ArrayList<>();
+
+        if (select.getWhere() != null) {
+            conditions.add("(" + select.getWhere() + ")");
+            params.addAll(Arrays.asList(select.getParams()));
+        }
+
+        if (lastKey != null) {
+            conditions.add(select.getKeyColumn() + " > ?");
+            params.add(lastKey);
+        }
+
+        final String sql = this.replaceVariables("SELECT " + select.getColumns() + " FROM " + select.getTable()
+                + (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions))
+                + " ORDER BY " + select.getKeyColumn() + " LIMIT " + select.getPageSize());
+
+        Debugger.debug("mysql", "Loading page with: " + sql + " (" + params.size() + " parameters)");
+
+        return this.withStatement(sql, statement -> {
+            this.bindValues(statement, params.toArray());
+
+            // MySQL buffers the whole result unless asked to stream it row by row,
+            // other drivers fetch this many rows per round trip
+            statement.setFetchSize(this.isMySQLStreaming() ? Integer.MIN_VALUE : Math.min(select.getFetchSize(), select.getPageSize()));
+
+            final List<T> rows = new ArrayList<>(select.getPageSize());
+            final long startNanos = System.nanoTime();
+            Object key = lastKey;
+
+            try (ResultSet resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    key = resultSet.getObject(select.getKeyColumn());
+
+                    rows.add(converter.convert(resultSet));
+                }
+            }
+
+            // Includes converting since rows are streamed while we convert them
+            QueryStatistics.record(sql, System.nanoTime() - startNanos, rows.size(), params.toArray());
+
+            return new Page<>(rows, key);
+        });
+    }
+
+    /*
+     * Return true if this is the MySQL driver which only streams with the minimum fetch size,
+     * MariaDB streams with any positive fetch size
+     */
+    private boolean isMySQLStreaming() {
+        final String url = this.getUrl();
+
+        return this.connector.getDialect() == SqlDialect.MYSQL && url != null && url.startsWith("jdbc:mysql");
     }
 
     // --------------------------------------------------------------------
@@ -658,6 +1293,139 @@ public class SimpleDatabaseManager {
         void accept(ResultSet set) throws SQLException;
     }
 
+    /**
+     * Describes rows to load with {@link #selectPaged(PagedSelect, RowConverter, PageConsumer)}
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    protected final static class PagedSelect {
+
+        /**
+         * The table name, variables are supported
+         */
+        private final String table;
+
+        /**
+         * The unique, sortable column we continue after on each page, such as the primary key
+         */
+        private final String keyColumn;
+
+        /**
+         * The selected columns, they must include the key column
+         */
+        private String columns = "*";
+
+        /**
+         * The optional condition without the WHERE keyword
+         */
+        private String where;
+
+        /**
+         * Values bound to ? in the condition
+         */
+        private Object[] params = new Object[0];
+
+        /**
+         * How many rows each page has
+         */
+        private int pageSize = 1_000;
+
+        /**
+         * How many rows the driver fetches per round trip
+         */
+        private int fetchSize = 500;
+
+        /**
+         * Should we give pages to the consumer on the main thread, one per tick?
+         */
+        private boolean spreadOverTicks = false;
+
+        /**
+         * Select only the given columns, separated by comma
+         */
+        public PagedSelect columns(String columns) {
+            this.columns = columns;
+
+            return this;
+        }
+
+        /**
+         * Only load rows matching the condition, you can use ? and give their values
+         */
+        public PagedSelect where(String where, Object... params) {
+            this.where = where;
+            this.params = params;
+
+            return this;
+        }
+
+        /**
+         * Set how many rows each page has
+         */
+        public PagedSelect pageSize(int pageSize) {
+            Valid.checkBoolean(pageSize > 0, "Page size must be positive, got " + pageSize);
+            this.pageSize = pageSize;
+
+            return this;
+        }
+
+        /**
+         * Set how many rows the driver fetches per round trip, ignored for MySQL which streams rows
+         */
+        public PagedSelect fetchSize(int fetchSize) {
+            Valid.checkBoolean(fetchSize > 0, "Fetch size must be positive, got " + fetchSize);
+            this.fetchSize = fetchSize;
+
+            return this;
+        }
+
+        /**
+         * Give pages to the consumer on the main thread, one per tick
+         */
+        public PagedSelect spreadOverTicks() {
+            this.spreadOverTicks = true;
+
+            return this;
+        }
+
+        /**
+         * Load rows from the table page by page, ordered by the given unique column
+         */
+        public static PagedSelect of(String table, String keyColumn) {
+            return new PagedSelect(table, keyColumn);
+        }
+    }
+
+    /*
+     * One loaded page and the key of its last row
+     */
+    @RequiredArgsConstructor
+    private final static class Page<T> {
+        private final List<T> rows;
+        private final Object lastKey;
+    }
+
+    /**
+     * Creates your object from the current row of the result set
+     */
+    protected interface RowConverter<T> {
+        T convert(ResultSet set) throws SQLException;
+    }
+
+    /**
+     * Receives pages from {@link #selectPaged(PagedSelect, RowConverter, PageConsumer)}, throw to stop loading
+     */
+    protected interface PageConsumer<T> {
+        void accept(List<T> page) throws Throwable;
+    }
+
+    /**
+     * Work running in {@link #transaction(Transaction, Callback)}, throw to roll it back
+     */
+    protected interface Transaction {
+        void run() throws Throwable;
+    }
+
     public interface Callback<T>{
         /**
          * Called when the execution of a query has finished successfully
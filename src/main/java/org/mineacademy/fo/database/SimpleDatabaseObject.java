@@ -7,24 +7,47 @@ import org.mineacademy.fo.ReflectionUtil;
 import org.mineacademy.fo.SerializeUtil;
 import org.mineacademy.fo.collection.SerializedMap;
 
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.sql.ResultSet;
 import java.util.ArrayList;
 import java.util.List;
 
 public abstract class SimpleDatabaseObject<T> extends SimpleDatabaseManager {
 
+    /**
+     * The static deserialize(ResultSet) method of this class, or null if we map rows by field names
+     */
+    private final MethodHandle deserializer;
+
+    /**
+     * Maps rows to objects and objects to columns by their field names
+     */
+    private RowMapper<T> rowMapper;
+
     public SimpleDatabaseObject() {
         this.addVariable("table", getTableName());
 
-        // Check if deserialize method exist
-        this.getDeserializeMethod();
+        // Resolve how we deserialize rows once instead of for every row
+        this.deserializer = this.findDeserializer();
     }
 
     public abstract String getTableName();
     public abstract Class<T> getObjectClass();
+
+    /**
+     * Return the columns and values to store for the given object.
+     * <p>
+     * By default we store each field of the object under a column of the same name,
+     * override this to control it yourself.
+     */
     @NonNull
-    public abstract SerializedMap serialize(T object);
+    public SerializedMap serialize(T object) {
+        return this.getRowMapper().toMap(object);
+    }
 
     public final void insert(@NotNull T object, @NotNull Callback<Void> callback) {
         this.insert(getTableName(), serialize(object), callback);
@@ -38,6 +61,10 @@ public abstract class SimpleDatabaseObject<T> extends SimpleDatabaseManager {
         this.insertBatch(getTableName(), maps, callback);
     }
 
+    public final void insertBatch(@NonNull List<SerializedMap> maps, int batchSize, @NotNull Callback<Void> callback) {
+        this.insertBatch(getTableName(), maps, batchSize, callback);
+    }
+
     protected final void count(@NotNull Callback<Integer> callback, Object... array) {
         this.count(getTableName(), callback, SerializedMap.ofArray(array));
     }
@@ -76,21 +103,58 @@ public abstract class SimpleDatabaseObject<T> extends SimpleDatabaseManager {
         }
     }
 
-    private Method getDeserializeMethod(){
+    /*
+     * Return the handle to the static deserialize(ResultSet) method, or null if the object class
+     * can be mapped by its field names instead
+     */
+    private MethodHandle findDeserializer(){
         final Method des = ReflectionUtil.getMethod(getClass(), "deserialize", ResultSet.class);
 
-        if (des == null){
+        if (des != null && Modifier.isStatic(des.getModifiers())){
+            try {
+                des.setAccessible(true);
+
+                return MethodHandles.lookup().unreflect(des).asType(MethodType.methodType(Object.class, ResultSet.class));
+
+            } catch (final IllegalAccessException ex) {
+                throw new SerializeUtil.SerializeFailedException("Unable to access " + des + ": " + ex);
+            }
+        }
+
+        try {
+            this.rowMapper = this.getRowMapper();
+
+        } catch (final Throwable t) {
             Logger.printErrors("Unable to deserialize ResultSet to class " + getObjectClass().getSimpleName(),
                     "Your class " + getClass().getSimpleName() + " is extending SimpleDatabaseObject",
                     "and must contain the following method:",
-                    "public static " + getObjectClass().getSimpleName() + " deserialize(ResultSet set)");
+                    "public static " + getObjectClass().getSimpleName() + " deserialize(ResultSet set)",
+                    "or " + getObjectClass().getSimpleName() + " must have a constructor without arguments",
+                    "so that we fill its fields from columns of the same name.");
             throw new SerializeUtil.SerializeFailedException("Unable to deserialize ResultSet to class " + getObjectClass().getSimpleName());
         }
 
-        return des;
+        return null;
     }
 
+    private RowMapper<T> getRowMapper(){
+        if (this.rowMapper == null){
+            this.rowMapper = RowMapper.of(getObjectClass());
+        }
+
+        return this.rowMapper;
+    }
+
+    @SuppressWarnings("unchecked")
     private T invokeDeserialize(ResultSet set){
-        return ReflectionUtil.invokeStatic(getDeserializeMethod(), set);
+        try {
+            return this.deserializer != null ? (T) this.deserializer.invokeExact(set) : this.rowMapper.map(set);
+
+        } catch (final RuntimeException ex) {
+            throw ex;
+
+        } catch (final Throwable t) {
+            throw new SerializeUtil.SerializeFailedException("Unable to deserialize ResultSet to class " + getObjectClass().getSimpleName() + ": " + t);
+        }
     }
 }
\ No newline at end of file
@@ -1,7 +1,6 @@
 package org.mineacademy.fo.database;
 
 import lombok.NonNull;
-import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 import org.mineacademy.fo.ChatUtil;
@@ -11,13 +10,25 @@ import org.mineacademy.fo.Valid;
 import org.mineacademy.fo.collection.SerializedMap;
 import org.mineacademy.fo.debug.Debugger;
 import org.mineacademy.fo.debug.LagCatcher;
+import org.mineacademy.fo.debug.MetricsRegistry;
+import org.mineacademy.fo.model.SimpleTask;
+import org.mineacademy.fo.plugin.SimplePlugin;
 import org.mineacademy.fo.settings.SimpleSettings;
 
 import javax.annotation.Nullable;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Represents a simple database where values are flattened and stored
@@ -35,6 +46,11 @@ import java.util.concurrent.TimeUnit;
  * Also see getExpirationDays(), by default we remove values not touched
  * within the last 90 days.
  * <p>
+ * Override getFlushIntervalSeconds() to collect saves in memory and write them
+ * together periodically, then call {@link #shutdown()} when your plugin stops.
+ * <p>
+ * The same works against a local SQLite file, just connect to a jdbc:sqlite url.
+ * <p>
  * For a less-restricting solution see {@link SimpleDatabaseManager} however you will
  * need to run own queries and implement own table structure that requires MySQL
  * command syntax knowledge.
@@ -44,10 +60,19 @@ import java.util.concurrent.TimeUnit;
 public abstract class SimpleFlatDatabase<T> extends SimpleDatabaseManager {
 
 	/**
-	 * An internal flag to prevent dead lock so that we do not call any
-	 * more queries within the {@link #load(UUID, Object)} or {@link #save(Player, Object)} methods
+	 * Orders loads and saves of the same player while running different players at the same time
+	 */
+	private final KeyedTaskQueue<UUID> queue = new KeyedTaskQueue<>(task -> this.getConnector().getExecutor().execute(task));
+
+	/**
+	 * Saves waiting for the next flush by unique id, when write-behind is enabled
+	 */
+	private final Map<UUID, PendingSave> pendingSaves = new LinkedHashMap<>();
+
+	/**
+	 * The task periodically flushing pending saves, or null
 	 */
-	private boolean isQuerying = false;
+	private SimpleTask flushTask;
 
 	/**
 	 * Creates the table if it does not exist
@@ -60,11 +85,30 @@ public abstract class SimpleFlatDatabase<T> extends SimpleDatabaseManager {
 		Valid.checkBoolean(this.hasVariable("table"), "Please call addVariable in the constructor of your " + this);
 
 		// First, see if the database exists, create it if not
-		this.update("CREATE TABLE IF NOT EXISTS {table}(UUID varchar(64), Name text, Data text, Updated bigint, PRIMARY KEY (`UUID`))", new EmptyCallback<>());
+		this.createTable(TableCreator.of("{table}")
+				.add("UUID", "varchar(64)")
+				.add("Name", "text")
+				.add("Data", "text")
+				.add("Updated", "bigint")
+				.setPrimaryColumn("UUID"));
 
 		// Remove entries that have not been updated in the last X days
 		this.removeOldEntries();
 
+		// Start writing pending saves periodically
+		if (this.flushTask != null)
+			this.flushTask.cancel();
+
+		final int flushInterval = this.getFlushIntervalSeconds();
+
+		this.flushTask = flushInterval > 0 ? Common.runTimer(flushInterval * 20, this::flush) : null;
+
+		MetricsRegistry.gauge(this.getMetricName("pending"), () -> {
+			synchronized (this.pendingSaves) {
+				return this.pendingSaves.size();
+			}
+		});
+
 		// Call any hooks
 		this.onConnectFinish();
 	}
@@ -97,95 +141,113 @@ public abstract class SimpleFlatDatabase<T> extends SimpleDatabaseManager {
 		return 90;
 	}
 
+	/**
+	 * When above 0, the save methods only remember the cache and we call {@link #onSave(Object)}
+	 * and write all remembered caches in one batch every this amount of seconds.
+	 * Saving the same unique ID multiple times before the flush writes it only once.
+	 * <p>
+	 * Call {@link #flush(UUID)} when a player quits and {@link #shutdown()} when your plugin stops.
+	 * Each flush is written in one transaction, which matters most on SQLite where every commit syncs the disk.
+	 * <p>
+	 * Default: 0, we write each save right away
+	 */
+	protected int getFlushIntervalSeconds() {
+		return 0;
+	}
+
 	/**
 	 * Load the data for the given unique ID and his cache
 	 */
-	public final void load(final Player player, final T cache) {
-		this.load(player.getUniqueId(), cache, null, new EmptyCallback<>());
+	public final CompletableFuture<Void> load(final Player player, final T cache) {
+		return this.load(player.getUniqueId(), cache, null, new EmptyCallback<>());
 	}
 
 	/**
 	 * Load the data for the given unique ID and his cache
 	 * @param runAfterLoad callback synced on the main thread
 	 */
-	public final void load(final Player player, final T cache, @Nullable Runnable runAfterLoad) {
-		this.load(player.getUniqueId(), cache, runAfterLoad, new EmptyCallback<>());
+	public final CompletableFuture<Void> load(final Player player, final T cache, @Nullable Runnable runAfterLoad) {
+		return this.load(player.getUniqueId(), cache, runAfterLoad, new EmptyCallback<>());
 	}
 
 	/**
 	 * Load the data for the given unique ID and his cache
 	 */
-	public final void load(final UUID uuid, final T cache) {
-		this.load(uuid, cache, null, new EmptyCallback<>());
+	public final CompletableFuture<Void> load(final UUID uuid, final T cache) {
+		return this.load(uuid, cache, null, new EmptyCallback<>());
 	}
 
 	/**
 	 * Load the data for the given unique ID and his cache async.
+	 * <p>
+	 * Loads and saves for the same unique ID run in the order they were called,
+	 * different unique IDs are loaded at the same time.
+	 *
 	 * @param runAfterLoad callback synced on the main thread
 	 * @param callback callback to be run on query fail
+	 * @return the future completed on the main thread after {@link #onLoad(SerializedMap, Object)} and runAfterLoad ran
 	 */
-	public final void load(final UUID uuid, final T cache, @Nullable Runnable runAfterLoad, @NotNull Callback<ResultSet> callback) {
-		if (!this.getConnector().isLoaded() || this.isQuerying)
-			return;
-
-		LagCatcher.start("mysql");
-		this.isQuerying = true;
+	public final CompletableFuture<Void> load(final UUID uuid, final T cache, @Nullable Runnable runAfterLoad, @NotNull Callback<ResultSet> callback) {
+		if (!this.getConnector().isLoaded())
+			return CompletableFuture.completedFuture(null);
 
 		Debugger.debug("mysql", "---------------- MySQL - Loading data for " + uuid);
 
-		Common.runAsync(() -> {
-			this.query("SELECT * FROM {table} WHERE UUID='" + uuid + "'", new Callback<ResultSet>() {
-				@Override
-				public void onSuccess(ResultSet resultSet) {
-					try {
-						final String dataRaw = resultSet != null && resultSet.next() ? resultSet.getString("Data") : "{}";
-						Debugger.debug("mysql", "JSON: " + dataRaw);
-
-						Common.runLater(() -> {
-
-							try {
-								final SerializedMap data = SerializedMap.fromJson(dataRaw);
-								Debugger.debug("mysql", "Deserialized data: " + data);
-
-								// Call the user specified load method
-								onLoad(data, cache);
-
-								// Invoke sync callback when load finish
-								if (runAfterLoad != null)
-									runAfterLoad.run();
-
-							} catch (final Throwable t) {
-								Common.error(t,
-										"Failed to parse loaded data from MySQL!",
-										"UUID: " + uuid,
-										"Raw data: " + dataRaw,
-										"Error: %error");
-
-							}
-						});
-					}
-					catch (SQLException e){
-						Common.error(e,
-								"Failed to load data from MySQL!",
-								"UUID: " + uuid,
-								"Error: %error");
-					}
-					finally {
-						isQuerying = false;
-						logPerformance("loading");
-					}
-				}
+		// Write what we have not flushed yet so that we load the latest data
+		this.flush(uuid);
 
-				@Override
-				public void onFail(Throwable t) {
-					Common.error(t,
-							"Failed to load data from MySQL!",
-							"UUID: " + uuid,
-							"Error: %error");
-					isQuerying = false;
-				}
-			});
-		});
+		final CompletableFuture<Void> loaded = new CompletableFuture<>();
+
+		this.queue.submit(uuid, () -> {
+			final long startNanos = System.nanoTime();
+
+			try {
+				return this.selectData(uuid);
+
+			} finally {
+				this.logPerformance("loading", startNanos);
+			}
+
+		}).whenComplete((dataRaw, error) -> Common.runLater(() -> {
+			if (error != null) {
+				callback.onFail(error);
+				loaded.completeExceptionally(error);
+
+				Common.error(error,
+						"Failed to load data from MySQL!",
+						"UUID: " + uuid,
+						"Error: %error");
+
+				return;
+			}
+
+			Debugger.debug("mysql", "JSON: " + dataRaw);
+
+			try {
+				final SerializedMap data = SerializedMap.fromJson(dataRaw);
+				Debugger.debug("mysql", "Deserialized data: " + data);
+
+				// Call the user specified load method
+				this.onLoad(data, cache);
+
+				// Invoke sync callback when load finish
+				if (runAfterLoad != null)
+					runAfterLoad.run();
+
+				loaded.complete(null);
+
+			} catch (final Throwable t) {
+				loaded.completeExceptionally(t);
+
+				Common.error(t,
+						"Failed to parse loaded data from MySQL!",
+						"UUID: " + uuid,
+						"Raw data: " + dataRaw,
+						"Error: %error");
+			}
+		}));
+
+		return loaded;
 	}
 
 	/**
@@ -202,8 +264,8 @@ public abstract class SimpleFlatDatabase<T> extends SimpleDatabaseManager {
 	 * <br><br>
 	 * If the onSave returns empty data we delete the row
 	 */
-	public final void save(final Player player, final T cache) {
-		this.save(player.getName(), player.getUniqueId(), cache);
+	public final CompletableFuture<Void> save(final Player player, final T cache) {
+		return this.save(player.getName(), player.getUniqueId(), cache);
 	}
 
 	/**
@@ -211,8 +273,8 @@ public abstract class SimpleFlatDatabase<T> extends SimpleDatabaseManager {
 	 * <br><br>
 	 * If the onSave returns empty data we delete the row
 	 */
-	public final void save(final String name, final UUID uuid, final T cache) {
-		this.save(name, uuid, cache, null, new EmptyCallback<>());
+	public final CompletableFuture<Void> save(final String name, final UUID uuid, final T cache) {
+		return this.save(name, uuid, cache, null, new EmptyCallback<>());
 	}
 
 	/**
@@ -221,23 +283,30 @@ public abstract class SimpleFlatDatabase<T> extends SimpleDatabaseManager {
 	 * If the onSave returns empty data we delete the row
 	 * @param runAfterSave sync callback to be run when save is done
 	 */
-	public final void save(final Player player, final T cache, @Nullable final Runnable runAfterSave) {
-		this.save(player.getName(), player.getUniqueId(), cache, runAfterSave, new EmptyCallback<>());
+	public final CompletableFuture<Void> save(final Player player, final T cache, @Nullable final Runnable runAfterSave) {
+		return this.save(player.getName(), player.getUniqueId(), cache, runAfterSave, new EmptyCallback<>());
 	}
 
 	/**
 	 * Save the data for the given name, unique ID and its cache async.
+	 * <p>
+	 * We call {@link #onSave(Object)} right away, then loads and saves for the same unique ID
+	 * run in the order they were called, different unique IDs are saved at the same time.
 	 * <br><br>
 	 * If the onSave returns empty data we delete the row
+	 * <br><br>
+	 * When {@link #getFlushIntervalSeconds()} is enabled we only remember the cache until the next flush.
+	 *
 	 * @param runAfterSave sync callback to be run when save is done
 	 * @param callback callback to be run when the execution has finished or in case of fail
+	 * @return the future completed on the database thread once the data was written
 	 */
-	public final void save(final String name, final UUID uuid, final T cache, @Nullable final Runnable runAfterSave, @NotNull Callback<Void> callback) {
-		if (!this.getConnector().isLoaded() || this.isQuerying)
-			return;
+	public final CompletableFuture<Void> save(final String name, final UUID uuid, final T cache, @Nullable final Runnable runAfterSave, @NotNull Callback<Void> callback) {
+		if (!this.getConnector().isLoaded())
+			return CompletableFuture.completedFuture(null);
 
-		LagCatcher.start("mysql");
-		this.isQuerying = true;
+		if (this.getFlushIntervalSeconds() > 0)
+			return this.markDirty(name, uuid, cache, runAfterSave, callback);
 
 		// Save using the user configured save method
 		final SerializedMap data = this.onSave(cache);
@@ -246,101 +315,377 @@ public abstract class SimpleFlatDatabase<T> extends SimpleDatabaseManager {
 		Debugger.debug("mysql", "Raw data: " + data);
 		Debugger.debug("mysql", "JSON: " + (data == null ? "null" : data.toJson()));
 
-		Common.runAsync(() -> {
+		return this.queue.<Void> submit(uuid, () -> {
+			final long startNanos = System.nanoTime();
 
 			try {
-				// Remove data if empty
-				this.isStored(uuid, new Callback<Boolean>() {
-					@Override
-					public void onSuccess(Boolean object) {
-						if (data == null || data.isEmpty()) {
-							update("DELETE FROM {table} WHERE UUID= '" + uuid + "';", callback);
-
-							if (Debugger.isDebugged("mysql")) {
-								Debugger.debug("mysql", "Data was empty, row has been removed.");
-							}
-
-						} else if (object != null && object){
-							update("UPDATE {table} SET Data='" + data.toJson() + "', Updated='" + System.currentTimeMillis() + "' WHERE UUID='" + uuid + "';", callback);
-						} else {
-							update("INSERT INTO {table}(UUID, Name, Data, Updated) VALUES ('" + uuid + "', '" + name + "', '" + data.toJson() + "', '" + System.currentTimeMillis() + "');", callback);
-						}
-
-						if (runAfterSave != null) {
-							Common.runLater(runAfterSave);
-						}
-						isQuerying = false;
-					}
-
-					@Override
-					public void onFail(Throwable t) {
-						Common.error(t,
-								"Failed to save data to MySQL!",
-								"UUID: " + uuid,
-								"Error: %error");
-						isQuerying = false;
-					}
-				});
+				this.writeData(name, uuid, data);
+
+				return null;
+
+			} finally {
+				this.logPerformance("saving", startNanos);
+			}
+
+		}).whenComplete((ignored, error) -> {
+			if (error != null) {
+				callback.onFail(error);
 
-			} catch (final Throwable ex) {
-				callback.onFail(ex);
-				Common.error(ex,
+				Common.error(error,
 						"Failed to save data to MySQL!",
 						"UUID: " + uuid,
 						"Error: %error");
 
+				return;
+			}
+
+			callback.onSuccess(null);
+
+			if (runAfterSave != null)
+				Common.runLater(runAfterSave);
+		});
+	}
+
+	/*
+	 * Remember the cache to be saved on the next flush, replacing the one remembered before
+	 */
+	private CompletableFuture<Void> markDirty(final String name, final UUID uuid, final T cache, @Nullable final Runnable runAfterSave, @NotNull final Callback<Void> callback) {
+		synchronized (this.pendingSaves) {
+			PendingSave pending = this.pendingSaves.get(uuid);
+
+			if (pending == null) {
+				pending = new PendingSave();
+
+				this.pendingSaves.put(uuid, pending);
+
+			} else
+				MetricsRegistry.counter(this.getMetricName("coalesced")).increment();
+
+			pending.name = name;
+			pending.cache = cache;
+			pending.callbacks.add(callback);
+
+			if (runAfterSave != null)
+				pending.runAfterSave.add(runAfterSave);
+
+			return pending.future;
+		}
+	}
+
+	/**
+	 * Write all saves waiting for the next flush in one batch. We call {@link #onSave(Object)}
+	 * on this thread, writing happens async.
+	 *
+	 * @return the future completed once the batch was written
+	 */
+	public final CompletableFuture<Void> flush() {
+		final Map<UUID, PendingSave> batch;
+
+		synchronized (this.pendingSaves) {
+			if (this.pendingSaves.isEmpty())
+				return CompletableFuture.completedFuture(null);
+
+			batch = new LinkedHashMap<>(this.pendingSaves);
+			this.pendingSaves.clear();
+		}
+
+		return this.writeBatch(batch);
+	}
+
+	/**
+	 * Write the save waiting for the next flush for the given unique ID, if any,
+	 * such as when the player quits. We call {@link #onSave(Object)} on this thread, writing happens async.
+	 *
+	 * @param uuid
+	 * @return the future completed once the data was written
+	 */
+	public final CompletableFuture<Void> flush(final UUID uuid) {
+		final PendingSave pending;
+
+		synchronized (this.pendingSaves) {
+			pending = this.pendingSaves.remove(uuid);
+		}
+
+		return pending == null ? CompletableFuture.completedFuture(null) : this.writeBatch(new LinkedHashMap<>(Collections.singletonMap(uuid, pending)));
+	}
+
+	/**
+	 * Stop flushing periodically and write all pending saves, waiting up to 30 seconds for them.
+	 * Call this from the main thread when your plugin stops, before closing the connection.
+	 * {@link SimpleDatabaseConnector#close()} calls this for databases added to it as managers.
+	 */
+	public final void shutdown() {
+		if (this.flushTask != null) {
+			this.flushTask.cancel();
+
+			this.flushTask = null;
+		}
+
+		MetricsRegistry.removeGauge(this.getMetricName("pending"));
+
+		// Database threads do not depend on the scheduler so they keep working while we wait
+		try {
+			this.flush().get(30, TimeUnit.SECONDS);
+
+		} catch (final TimeoutException ex) {
+			Common.warning("Timed out waiting for " + this + " to save data to MySQL, some data may be lost!");
+
+		} catch (final ExecutionException ex) {
+			// Already logged by the writer
+
+		} catch (final InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/*
+	 * Serialize the pending saves and write them in one multi-row upsert, deleting rows with empty data,
+	 * all in one transaction
+	 */
+	private CompletableFuture<Void> writeBatch(final Map<UUID, PendingSave> batch) {
+		final List<SerializedMap> rows = new ArrayList<>();
+		final List<String> removed = new ArrayList<>();
+		final long now = System.currentTimeMillis();
+
+		for (final Iterator<Map.Entry<UUID, PendingSave>> it = batch.entrySet().iterator(); it.hasNext();) {
+			final Map.Entry<UUID, PendingSave> entry = it.next();
+			final PendingSave pending = entry.getValue();
+
+			try {
+				final SerializedMap data = this.onSave(pending.cache);
+
+				if (data == null || data.isEmpty())
+					removed.add(entry.getKey().toString());
+				else
+					rows.add(SerializedMap.ofArray("UUID", entry.getKey().toString(), "Name", Common.getOrEmpty(pending.name), "Data", data.toJson(), "Updated", now));
+
+			} catch (final Throwable t) {
+				pending.complete(t);
+
+				Common.error(t,
+						"Failed to save data to MySQL!",
+						"UUID: " + entry.getKey(),
+						"Error: %error");
+
+				it.remove();
+			}
+		}
+
+		if (batch.isEmpty())
+			return CompletableFuture.completedFuture(null);
+
+		Debugger.debug("mysql", "---------------- MySQL - Flushing " + rows.size() + " saves and " + removed.size() + " removals");
+
+		return this.queue.<Void> submitAll(new ArrayList<>(batch.keySet()), () -> {
+			final long startNanos = System.nanoTime();
+
+			try {
+				this.runTransaction(() -> {
+					if (!rows.isEmpty())
+						this.runInsertBatch(rows);
+
+					if (!removed.isEmpty())
+						this.runUpdate("DELETE FROM {table} WHERE UUID IN (" + Common.join(removed, ", ", uuid -> "?") + ")", removed.toArray());
+				});
+
+				MetricsRegistry.timer(this.getMetricName("flush")).record(System.nanoTime() - startNanos);
+				MetricsRegistry.counter(this.getMetricName("flush.rows")).add(batch.size());
+
+				return null;
+
 			} finally {
-				this.isQuerying = false;
+				this.logPerformance("flushing", startNanos);
+			}
+
+		}).whenComplete((ignored, error) -> {
+			if (error != null)
+				Common.error(error,
+						"Failed to save data to MySQL!",
+						"Entries: " + batch.size(),
+						"Error: %error");
+
+			final MetricsRegistry.Timer lag = MetricsRegistry.timer(this.getMetricName("lag"));
+
+			for (final PendingSave pending : batch.values()) {
+				if (error == null)
+					lag.record(System.nanoTime() - pending.dirtySince);
+
+				pending.complete(error);
+			}
+		});
+	}
 
-				this.logPerformance("saving");
+	/*
+	 * Run the transaction on this thread, throwing the error if it failed
+	 */
+	private void runTransaction(final Transaction task) throws Throwable {
+		final Throwable[] failure = { null };
+
+		this.transaction(task, new Callback<Void>() {
+			@Override
+			public void onSuccess(Void object) {
+			}
+
+			@Override
+			public void onFail(Throwable t) {
+				failure[0] = t;
 			}
 		});
+
+		if (failure[0] != null)
+			throw failure[0];
 	}
 
 	/*
-	 * Utility method to finish LagCatcher mysql measure and log
-	 * if there was some lag, or if we detected mysql being run
-	 * from the main thread.
+	 * Run the batch insert on this thread, throwing the error if it failed
+	 */
+	private void runInsertBatch(final List<SerializedMap> rows) throws Throwable {
+		final Throwable[] failure = { null };
+
+		this.insertBatch("{table}", rows, new Callback<Void>() {
+			@Override
+			public void onSuccess(Void object) {
+			}
+
+			@Override
+			public void onFail(Throwable t) {
+				failure[0] = t;
+			}
+		});
+
+		if (failure[0] != null)
+			throw failure[0];
+	}
+
+	/*
+	 * Return the metric name for this table
+	 */
+	private String getMetricName(final String name) {
+		return "database.flat." + this.replaceVariables("{table}") + "." + name;
+	}
+
+	/*
+	 * Utility method to record how long the database took and log
+	 * if there was some lag
 	 *
 	 * @param operation
+	 * @param startNanos
 	 */
-	private void logPerformance(final String operation) {
-		final boolean isMainThread = Bukkit.isPrimaryThread();
+	private void logPerformance(final String operation, final long startNanos) {
+		final long duration = System.nanoTime() - startNanos;
+		final double tookMs = duration / 1_000_000D;
+
+		MetricsRegistry.timer("mysql").record(duration);
 
-		LagCatcher.end("mysql", isMainThread ? 10 : MathUtil.atLeast(200, SimpleSettings.LAG_THRESHOLD_MILLIS),
-				ChatUtil.capitalize(operation) + " data to MySQL took {time} ms" + (isMainThread ? " - To prevent slowing the server, " + operation + " can be made async (carefully)" : ""));
+		if (SimpleSettings.LAG_THRESHOLD_MILLIS != -1 && tookMs > MathUtil.atLeast(200, SimpleSettings.LAG_THRESHOLD_MILLIS) && LagCatcher.isPrintingMessages())
+			Common.log(ChatUtil.capitalize(operation) + " data to MySQL took " + MathUtil.formatTwoDigits(tookMs) + " ms");
 	}
 
 	/*
-	 * Checks if the given unique id is stored in the database
-	 *
-	 * @param uuid
-	 * @return
-	 * @throws SQLException
+	 * Return the stored JSON data for the given unique id, or an empty JSON object if there is none
+	 */
+	private String selectData(@NonNull final UUID uuid) throws Throwable {
+		final String[] data = { "{}" };
+
+		this.runQuery("SELECT Data FROM {table} WHERE UUID = ?", resultSet -> {
+			if (resultSet.next())
+				data[0] = resultSet.getString("Data");
+
+		}, uuid.toString());
+
+		return data[0];
+	}
+
+	/*
+	 * Write the data for the given unique id, removing the row if the data is empty
 	 */
-	private void isStored(@NonNull final UUID uuid, Callback<Boolean> callback) throws SQLException {
-		this.query("SELECT * FROM {table} WHERE UUID= '" + uuid + "'", new Callback<ResultSet>() {
+	private void writeData(final String name, @NonNull final UUID uuid, @Nullable final SerializedMap data) throws Throwable {
+		if (data == null || data.isEmpty()) {
+			this.runUpdate("DELETE FROM {table} WHERE UUID = ?", uuid.toString());
+
+			Debugger.debug("mysql", "Data was empty, row has been removed.");
+			return;
+		}
+
+		// Insert or update in one statement so concurrent saves from other servers cannot race us
+		this.runUpsert(SerializedMap.ofArray("UUID", uuid.toString(), "Name", Common.getOrEmpty(name), "Data", data.toJson(), "Updated", System.currentTimeMillis()));
+	}
+
+	/*
+	 * Run the upsert of the row on this thread, throwing the error if it failed
+	 */
+	private void runUpsert(final SerializedMap row) throws Throwable {
+		final Throwable[] failure = { null };
+
+		this.insert("{table}", row, new Callback<Void>() {
+			@Override
+			public void onSuccess(Void object) {
+			}
+
+			@Override
+			public void onFail(Throwable t) {
+				failure[0] = t;
+			}
+		});
+
+		if (failure[0] != null)
+			throw failure[0];
+	}
+
+	/*
+	 * Run the update on this thread, throwing the error if it failed
+	 */
+	private void runUpdate(final String sql, final Object... params) throws Throwable {
+		final Throwable[] failure = { null };
+
+		this.update(sql, new Callback<Void>() {
+			@Override
+			public void onSuccess(Void object) {
+			}
+
+			@Override
+			public void onFail(Throwable t) {
+				failure[0] = t;
+			}
+		}, params);
+
+		if (failure[0] != null)
+			throw failure[0];
+	}
+
+	/*
+	 * Run the query on this thread and read its result, throwing the error if it failed
+	 */
+	private void runQuery(final String sql, final RowReader reader, final Object... params) throws Throwable {
+		final Throwable[] failure = { null };
+
+		this.query(sql, new Callback<ResultSet>() {
 			@Override
 			public void onSuccess(ResultSet resultSet) {
-				if (resultSet == null) {
-					callback.onSuccess(false);
-					return;
-				}
+				try {
+					if (resultSet != null)
+						reader.read(resultSet);
 
-				try{
-					if (resultSet.next()) {
-						callback.onSuccess(resultSet.getString("UUID") != null);
-					}
-				} catch (SQLException ex){
-					callback.onFail(ex);
+				} catch (final SQLException ex) {
+					failure[0] = ex;
 				}
 			}
 
 			@Override
 			public void onFail(Throwable t) {
-				callback.onFail(t);
+				failure[0] = t;
 			}
-		});
+		}, params);
+
+		if (failure[0] != null)
+			throw failure[0];
+	}
+
+	/*
+	 * Reads the result set of a query
+	 */
+	private interface RowReader {
+		void read(ResultSet resultSet) throws SQLException;
 	}
 
 	/**
@@ -349,4 +694,46 @@ public abstract class SimpleFlatDatabase<T> extends SimpleDatabaseManager {
 	 * Return an empty data to delete the row
 	 */
 	protected abstract SerializedMap onSave(T data);
+
+	/*
+	 * A save waiting for the next flush
+	 */
+	private final class PendingSave {
+
+		/**
+		 * When the first save since the last flush was called
+		 */
+		private final long dirtySince = System.nanoTime();
+
+		/**
+		 * Completed once we write the data
+		 */
+		private final CompletableFuture<Void> future = new CompletableFuture<>();
+
+		private final List<Callback<Void>> callbacks = new ArrayList<>();
+		private final List<Runnable> runAfterSave = new ArrayList<>();
+
+		private String name;
+		private T cache;
+
+		/*
+		 * Notify everyone who called save, error is null on success
+		 */
+		private void complete(@Nullable final Throwable error) {
+			for (final Callback<Void> callback : this.callbacks)
+				if (error == null)
+					callback.onSuccess(null);
+				else
+					callback.onFail(error);
+
+			if (error == null) {
+				if (!this.runAfterSave.isEmpty() && SimplePlugin.hasInstance() && SimplePlugin.getInstance().isEnabled())
+					Common.runLater(() -> this.runAfterSave.forEach(Runnable::run));
+
+				this.future.complete(null);
+
+			} else
+				this.future.completeExceptionally(error);
+		}
+	}
 }
@@ -0,0 +1,177 @@
+package org.mineacademy.fo.database;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.mineacademy.fo.Common;
+import org.mineacademy.fo.debug.Debugger;
+
+/**
+ * The SQL flavors we generate statements for, detected from the connection metadata
+ */
+public enum SqlDialect {
+
+	/**
+	 * MySQL and MariaDB, upserts use ON DUPLICATE KEY UPDATE
+	 */
+	MYSQL,
+
+	/**
+	 * SQLite 3.24+, upserts use ON CONFLICT
+	 */
+	SQLITE,
+
+	/**
+	 * PostgreSQL 9.5+, upserts use ON CONFLICT
+	 */
+	POSTGRESQL,
+
+	/**
+	 * H2, upserts use MERGE INTO
+	 */
+	H2;
+
+	/**
+	 * Return true if upserts need to know the unique key columns of the table
+	 *
+	 * @return
+	 */
+	public boolean isUpsertKeyRequired() {
+		return this == SQLITE || this == POSTGRESQL;
+	}
+
+	/**
+	 * Create a parametrized statement inserting the given columns, or updating the existing
+	 * row when one with the same unique key exists, in one round trip
+	 *
+	 * @param table
+	 * @param columns the columns in the order you bind them
+	 * @param keys the primary or unique key columns, only needed when {@link #isUpsertKeyRequired()}
+	 *             and if empty we create a plain insert
+	 * @return
+	 */
+	public String createUpsert(String table, Collection<String> columns, Collection<String> keys) {
+		final String insert = "INSERT INTO " + table + " (" + Common.join(columns) + ") VALUES (" + Common.join(columns, ", ", column -> "?") + ")";
+
+		if (this == MYSQL)
+			return insert + " ON DUPLICATE KEY UPDATE " + Common.join(columns, ", ", column -> column + "=VALUES(" + column + ")") + ";";
+
+		if (this == H2)
+			return "MERGE INTO " + table + " (" + Common.join(columns) + ")" + (keys.isEmpty() ? "" : " KEY (" + Common.join(keys) + ")") + " VALUES (" + Common.join(columns, ", ", column -> "?") + ");";
+
+		if (keys.isEmpty())
+			return insert + ";";
+
+		final List<String> updated = new ArrayList<>();
+
+		for (final String column : columns)
+			if (!containsIgnoreCase(keys, column))
+				updated.add(column);
+
+		return insert + " ON CONFLICT (" + Common.join(keys) + ") " + (updated.isEmpty() ? "DO NOTHING" : "DO UPDATE SET " + Common.join(updated, ", ", column -> column + " = excluded." + column)) + ";";
+	}
+
+	/**
+	 * Quote the table or column name so it may be a keyword. PostgreSQL and H2 names are left
+	 * unquoted there because quoting makes them case sensitive, unlike names in your queries.
+	 *
+	 * @param identifier
+	 * @return
+	 */
+	public String quote(String identifier) {
+		if (this == MYSQL)
+			return "`" + identifier + "`";
+
+		if (this == SQLITE)
+			return "\"" + identifier + "\"";
+
+		return identifier;
+	}
+
+	/**
+	 * Return the definition of an auto incremented column
+	 *
+	 * @param column
+	 * @param dataType
+	 * @param primary if the column is the primary key of the table, SQLite then declares the key here
+	 * @return
+	 */
+	public String createAutoIncrement(String column, String dataType, boolean primary) {
+		if (this == MYSQL)
+			return this.quote(column) + " " + dataType + " NOT NULL AUTO_INCREMENT";
+
+		// Only the rowid alias can be incremented and it must be declared this exact way
+		if (this == SQLITE)
+			return this.quote(column) + (primary ? " INTEGER PRIMARY KEY AUTOINCREMENT" : " " + dataType + " NOT NULL");
+
+		return this.quote(column) + " " + dataType + " GENERATED BY DEFAULT AS IDENTITY";
+	}
+
+	/**
+	 * Return what we append to CREATE TABLE, MySQL needs utf8mb4 to store all unicode characters
+	 *
+	 * @return
+	 */
+	public String getTableOptions() {
+		return this == MYSQL ? " DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_520_ci" : "";
+	}
+
+	/*
+	 * SQLite and H2 keep the case of column names, PostgreSQL lowercases them
+	 */
+	private static boolean containsIgnoreCase(Collection<String> keys, String column) {
+		for (final String key : keys)
+			if (key.equalsIgnoreCase(column))
+				return true;
+
+		return false;
+	}
+
+	/**
+	 * Detect the dialect from the connection metadata, falling back to MySQL
+	 *
+	 * @param connection
+	 * @return
+	 */
+	public static SqlDialect detect(Connection connection) {
+		String product;
+
+		try {
+			product = connection.getMetaData().getDatabaseProductName();
+
+		} catch (SQLException | AbstractMethodError ex) {
+			product = null;
+		}
+
+		final SqlDialect dialect = fromProductName(product);
+		Debugger.debug("mysql", "Detected " + dialect + " dialect from database " + product);
+
+		return dialect;
+	}
+
+	/**
+	 * Return the dialect for the database product name from JDBC metadata, falling back to MySQL
+	 *
+	 * @param product
+	 * @return
+	 */
+	public static SqlDialect fromProductName(String product) {
+		if (product != null) {
+			final String lowercase = product.toLowerCase();
+
+			if (lowercase.contains("sqlite"))
+				return SQLITE;
+
+			if (lowercase.contains("postgres"))
+				return POSTGRESQL;
+
+			if (lowercase.equals("h2"))
+				return H2;
+		}
+
+		return MYSQL;
+	}
+}
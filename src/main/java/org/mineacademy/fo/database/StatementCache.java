@@ -0,0 +1,252 @@
+package org.mineacademy.fo.database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps prepared statements open per connection so the database only parses
+ * each SQL shape once instead of once per query.
+ * <p>
+ * Statements are not thread safe, so they are only used through {@link #run(Connection, String, StatementTask)}
+ * which marks them in use while the task runs. A task running the same SQL again while the cached
+ * statement is in use, such as a nested query from a row callback, gets its own statement so that
+ * it does not close the result set being read. Tasks run without holding any lock, and a statement
+ * is never closed while a task uses it.
+ */
+final class StatementCache {
+
+	/**
+	 * How many statements we keep open per connection, least recently used ones are closed first
+	 */
+	private static final int MAX_STATEMENTS_PER_CONNECTION = 64;
+
+	/**
+	 * Open statements of each connection, guarded by this cache
+	 */
+	private final Map<Connection, ConnectionStatements> statements = new IdentityHashMap<>();
+
+	/**
+	 * Run the task with an open prepared statement for the SQL on the given connection,
+	 * preparing it if needed
+	 *
+	 * @param <R>
+	 * @param connection
+	 * @param sql
+	 * @param task
+	 * @return
+	 * @throws SQLException
+	 */
+	<R> R run(Connection connection, String sql, StatementTask<R> task) throws SQLException {
+		final ConnectionStatements cached = this.getStatements(connection);
+		PreparedStatement statement = null;
+
+		synchronized (cached) {
+
+			// Unless invalidated, take the cached statement or prepare it when there is none yet
+			if (!cached.closed) {
+				statement = cached.statements.get(sql);
+
+				if (statement == null || !cached.inUse.contains(statement)) {
+					if (statement == null || statement.isClosed()) {
+						statement = connection.prepareStatement(sql);
+
+						cached.statements.put(sql, statement);
+					}
+
+					cached.inUse.add(statement);
+
+				} else
+					statement = null;
+			}
+		}
+
+		// Invalidated or the cached statement is busy, run without caching
+		if (statement == null)
+			try (PreparedStatement uncached = connection.prepareStatement(sql)) {
+				return task.run(uncached);
+			}
+
+		try {
+			return task.run(statement);
+
+		} finally {
+			cached.release(sql, statement);
+		}
+	}
+
+	/**
+	 * Close and forget all statements of the given connection, call before closing it
+	 *
+	 * @param connection
+	 */
+	void invalidate(Connection connection) {
+		final ConnectionStatements cached;
+
+		synchronized (this) {
+			cached = this.statements.remove(connection);
+		}
+
+		if (cached != null)
+			cached.close();
+	}
+
+	/**
+	 * Close and forget all statements
+	 */
+	void clear() {
+		final List<ConnectionStatements> removed;
+
+		synchronized (this) {
+			removed = new ArrayList<>(this.statements.values());
+
+			this.statements.clear();
+		}
+
+		for (final ConnectionStatements cached : removed)
+			cached.close();
+	}
+
+	/*
+	 * Return the statements of the connection, creating them if needed
+	 */
+	private ConnectionStatements getStatements(Connection connection) {
+		final List<ConnectionStatements> closedConnections = new ArrayList<>();
+		ConnectionStatements cached;
+
+		synchronized (this) {
+			cached = this.statements.get(connection);
+
+			if (cached == null) {
+				this.removeClosedConnections(closedConnections);
+
+				cached = new ConnectionStatements();
+				this.statements.put(connection, cached);
+			}
+		}
+
+		for (final ConnectionStatements closed : closedConnections)
+			closed.close();
+
+		return cached;
+	}
+
+	/*
+	 * Forget statements of connections closed behind our back, such as by the driver on timeout,
+	 * we close them after leaving the lock
+	 */
+	private void removeClosedConnections(List<ConnectionStatements> removed) {
+		for (final Iterator<Map.Entry<Connection, ConnectionStatements>> it = this.statements.entrySet().iterator(); it.hasNext();) {
+			final Map.Entry<Connection, ConnectionStatements> entry = it.next();
+			boolean closed;
+
+			try {
+				closed = entry.getKey().isClosed();
+
+			} catch (final SQLException ex) {
+				closed = true;
+			}
+
+			if (closed) {
+				removed.add(entry.getValue());
+
+				it.remove();
+			}
+		}
+	}
+
+	/*
+	 * Close the statement ignoring errors
+	 */
+	private static void closeQuietly(PreparedStatement statement) {
+		try {
+			statement.close();
+
+		} catch (final SQLException ex) {
+			// Already closed or the connection is gone
+		}
+	}
+
+	/**
+	 * Work to do with a prepared statement
+	 *
+	 * @param <R>
+	 */
+	interface StatementTask<R> {
+
+		/**
+		 * Bind parameters, run the statement and read its results
+		 *
+		 * @param statement
+		 * @return
+		 * @throws SQLException
+		 */
+		R run(PreparedStatement statement) throws SQLException;
+	}
+
+	/*
+	 * The open statements of one connection, its monitor guards using them
+	 */
+	private static final class ConnectionStatements {
+
+		/**
+		 * Statements by their SQL, least recently used first
+		 */
+		private final Map<String, PreparedStatement> statements = new LinkedHashMap<String, PreparedStatement>(16, 0.75F, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+				if (this.size() > MAX_STATEMENTS_PER_CONNECTION) {
+
+					// A statement in use is closed once its task is done
+					if (!ConnectionStatements.this.inUse.contains(eldest.getValue()))
+						closeQuietly(eldest.getValue());
+
+					return true;
+				}
+
+				return false;
+			}
+		};
+
+		/**
+		 * Statements a task is running right now
+		 */
+		private final Set<PreparedStatement> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+
+		/**
+		 * True once the connection was invalidated
+		 */
+		private boolean closed;
+
+		/*
+		 * Mark the statement as no longer in use, closing it if it was evicted or invalidated meanwhile
+		 */
+		private synchronized void release(String sql, PreparedStatement statement) {
+			this.inUse.remove(statement);
+
+			if (this.closed || this.statements.get(sql) != statement)
+				closeQuietly(statement);
+		}
+
+		/*
+		 * Close all statements, those in use are closed once their task is done
+		 */
+		private synchronized void close() {
+			this.closed = true;
+
+			for (final PreparedStatement statement : this.statements.values())
+				if (!this.inUse.contains(statement))
+					closeQuietly(statement);
+
+			this.statements.clear();
+		}
+	}
+}
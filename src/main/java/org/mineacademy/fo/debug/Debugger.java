@@ -6,7 +6,6 @@ import lombok.NoArgsConstructor;
 import lombok.NonNull;
 import org.bukkit.Bukkit;
 import org.mineacademy.fo.Common;
-import org.mineacademy.fo.FileUtil;
 import org.mineacademy.fo.TimeUtil;
 import org.mineacademy.fo.constants.FoConstants;
 import org.mineacademy.fo.exception.FoException;
@@ -136,6 +135,10 @@ public final class Debugger {
 	/**
 	 * Logs the error in the console and writes all details into the errors.log file
 	 *
+	 * The file is written on a background thread, see {@link ErrorLogWriter}. An error identical to one
+	 * still waiting to be written, or written in the last 10 minutes, is only counted and summarized
+	 * in the file, it is not logged to the console again.
+	 *
 	 * @param t
 	 * @param messages
 	 */
@@ -144,6 +147,12 @@ public final class Debugger {
 		if (Bukkit.getServer() == null) // Instance not set, e.g. when not using Bukkit
 			return;
 
+		final String fingerprint = fingerprint(t);
+
+		// Waiting to be written or written recently, just count it
+		if (ErrorLogWriter.countIfKnown(fingerprint))
+			return;
+
 		final String systemInfo = "Running " + Bukkit.getName() + " " + Bukkit.getBukkitVersion() + " and Java " + System.getProperty("java.version");
 
 		try {
@@ -194,7 +203,7 @@ public final class Debugger {
 			Bukkit.getLogger().severe(header + "! Please check your error.log and report this issue with the information in that file. " + systemInfo);
 
 			// Finally, save the error file
-			FileUtil.write(FoConstants.File.ERRORS, lines);
+			ErrorLogWriter.submit(fingerprint, lines);
 
 		} catch (final Throwable secondError) {
 			Bukkit.getLogger().log(Level.SEVERE, "Got error when saving another error! Saving error:", secondError);
@@ -206,6 +215,31 @@ public final class Debugger {
 		list.addAll(Arrays.asList(messages));
 	}
 
+	/*
+	 * Identify the error by its type and stack trace including causes, the first line
+	 * being a short summary of where the error happened
+	 */
+	private static String fingerprint(Throwable t) {
+		if (t == null)
+			return "Unknown error";
+
+		final StackTraceElement[] trace = t.getStackTrace();
+		final StringBuilder fingerprint = new StringBuilder(t.getClass().getName());
+
+		if (trace.length > 0)
+			fingerprint.append(" at ").append(trace[0]);
+
+		do {
+			fingerprint.append('\n').append(t.getClass().getName());
+
+			for (final StackTraceElement element : t.getStackTrace())
+				fingerprint.append('\n').append(element);
+
+		} while ((t = t.getCause()) != null);
+
+		return fingerprint.toString();
+	}
+
 	// ----------------------------------------------------------------------------------------------------
 	// Utility methods
 	// ----------------------------------------------------------------------------------------------------
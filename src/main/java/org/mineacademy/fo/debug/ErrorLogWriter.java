@@ -0,0 +1,331 @@
+package org.mineacademy.fo.debug;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.zip.GZIPOutputStream;
+
+import org.bukkit.Bukkit;
+import org.mineacademy.fo.FileUtil;
+import org.mineacademy.fo.TimeUtil;
+import org.mineacademy.fo.constants.FoConstants;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Writes error reports from {@link Debugger#saveError(Throwable, String...)} to the error.log
+ * file on a background thread.
+ *
+ * Reports are kept in a bounded buffer and flushed periodically. Identical stack traces
+ * are only written once per flush with a counter of how many times they occurred,
+ * and repeats of recently written errors are summarized in a single line.
+ * The file is compressed and rotated once it grows too large.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ErrorLogWriter {
+
+	/**
+	 * How many different errors we keep before dropping the oldest ones
+	 */
+	private static final int BUFFER_CAPACITY = 100;
+
+	/**
+	 * How often we write pending errors to the file
+	 */
+	private static final int FLUSH_INTERVAL_SECONDS = 5;
+
+	/**
+	 * How long we remember written errors to summarize their repeats
+	 */
+	private static final long REPEAT_WINDOW_MILLIS = TimeUnit.MINUTES.toMillis(10);
+
+	/**
+	 * The size after which the error file is compressed and a new one is started
+	 */
+	private static final long MAX_FILE_SIZE = 5 * 1024 * 1024;
+
+	/**
+	 * How many compressed error files we keep
+	 */
+	private static final int MAX_ARCHIVES = 5;
+
+	/**
+	 * Errors waiting to be written, by their stack trace fingerprint
+	 */
+	private static final Map<String, PendingError> pendingErrors = new LinkedHashMap<>();
+
+	/**
+	 * Recently written errors, fingerprint - time written
+	 */
+	private static final Map<String, Long> writtenErrors = new LinkedHashMap<>();
+
+	/**
+	 * How many errors we had to drop because the buffer was full
+	 */
+	private static int droppedErrors = 0;
+
+	/**
+	 * The background writer, started on first error
+	 */
+	private static ScheduledExecutorService writer;
+
+	/**
+	 * True once the plugin is disabled, we then write errors right away
+	 */
+	private static boolean stopped = false;
+
+	/**
+	 * Guards writing to the file, separate from the buffer so errors can be queued while we write
+	 */
+	private static final Object fileLock = new Object();
+
+	/**
+	 * Count another occurrence of the error if it is already waiting to be written or was written recently.
+	 *
+	 * Return true if counted, so that you do not need to build the report again.
+	 *
+	 * @param fingerprint
+	 * @return
+	 */
+	public static boolean countIfKnown(String fingerprint) {
+		final boolean counted;
+		final boolean stopped;
+
+		synchronized (ErrorLogWriter.class) {
+			counted = count(fingerprint);
+			stopped = ErrorLogWriter.stopped;
+		}
+
+		// No writer is left to write the count
+		if (counted && stopped)
+			flush();
+
+		return counted;
+	}
+
+	/**
+	 * Queue the error report to be written. If the same error is already waiting,
+	 * we only count another occurrence.
+	 *
+	 * @param fingerprint
+	 * @param lines
+	 */
+	public static void submit(String fingerprint, List<String> lines) {
+		final boolean stopped;
+
+		synchronized (ErrorLogWriter.class) {
+			stopped = ErrorLogWriter.stopped;
+
+			if (!count(fingerprint))
+				queue(fingerprint, new PendingError(lines));
+
+			if (writer == null && !stopped) {
+				writer = Executors.newSingleThreadScheduledExecutor(task -> {
+					final Thread thread = new Thread(task, "Foundation Error Writer");
+					thread.setDaemon(true);
+
+					return thread;
+				});
+
+				writer.scheduleWithFixedDelay(ErrorLogWriter::flush, FLUSH_INTERVAL_SECONDS, FLUSH_INTERVAL_SECONDS, TimeUnit.SECONDS);
+			}
+		}
+
+		// The plugin is disabled, write it now since nobody will do it later
+		if (stopped)
+			flush();
+	}
+
+	/*
+	 * Count another occurrence of a pending or recently written error, returning false if it is new
+	 */
+	private static boolean count(String fingerprint) {
+		final PendingError pending = pendingErrors.get(fingerprint);
+
+		if (pending != null) {
+			pending.occurrences++;
+
+			return true;
+		}
+
+		final Long written = writtenErrors.get(fingerprint);
+
+		if (written != null && System.currentTimeMillis() - written < REPEAT_WINDOW_MILLIS) {
+			queue(fingerprint, new PendingError(null));
+
+			return true;
+		}
+
+		return false;
+	}
+
+	/*
+	 * Add the error to the buffer, dropping the oldest one if it is full
+	 */
+	private static void queue(String fingerprint, PendingError error) {
+		if (pendingErrors.size() >= BUFFER_CAPACITY) {
+			final Iterator<String> oldest = pendingErrors.keySet().iterator();
+
+			oldest.next();
+			oldest.remove();
+
+			droppedErrors++;
+		}
+
+		pendingErrors.put(fingerprint, error);
+	}
+
+	/**
+	 * Writes all pending errors to the file now, called automatically
+	 * periodically and when the plugin is disabled
+	 */
+	public static void flush() {
+		final List<String> lines = new ArrayList<>();
+
+		synchronized (ErrorLogWriter.class) {
+			if (pendingErrors.isEmpty())
+				return;
+
+			final long now = System.currentTimeMillis();
+
+			for (final Map.Entry<String, PendingError> entry : pendingErrors.entrySet()) {
+				final PendingError error = entry.getValue();
+
+				if (error.lines == null)
+					lines.add("[" + TimeUtil.getFormattedDate() + "] Previously logged error occurred " + error.occurrences + " more time(s): " + entry.getKey().split("\n")[0]);
+
+				else {
+					lines.addAll(error.lines);
+
+					if (error.occurrences > 1)
+						lines.add("(This error occurred " + error.occurrences + " times since " + TimeUtil.getFormattedDate(error.firstOccurrence) + ")" + System.lineSeparator());
+				}
+
+				writtenErrors.remove(entry.getKey());
+				writtenErrors.put(entry.getKey(), now);
+			}
+
+			if (droppedErrors > 0)
+				lines.add("(" + droppedErrors + " error(s) were not logged because too many different errors occurred at once)" + System.lineSeparator());
+
+			pendingErrors.clear();
+			droppedErrors = 0;
+
+			// Forget errors written long ago, oldest first
+			for (final Iterator<Long> it = writtenErrors.values().iterator(); it.hasNext();)
+				if (now - it.next() >= REPEAT_WINDOW_MILLIS)
+					it.remove();
+				else
+					break;
+		}
+
+		write(lines);
+	}
+
+	/**
+	 * Flush pending errors and stop the background writer, called when the plugin is disabled.
+	 * Errors reported after this are written right away.
+	 */
+	public static void shutdown() {
+		final ScheduledExecutorService writer;
+
+		synchronized (ErrorLogWriter.class) {
+			writer = ErrorLogWriter.writer;
+			ErrorLogWriter.writer = null;
+			stopped = true;
+		}
+
+		if (writer != null) {
+			writer.shutdown();
+
+			try {
+				writer.awaitTermination(5, TimeUnit.SECONDS);
+			} catch (final InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		flush();
+	}
+
+	/*
+	 * Rotate the file if needed and append the lines
+	 */
+	private static void write(List<String> lines) {
+		synchronized (fileLock) {
+			try {
+				final File file = FileUtil.getFile(FoConstants.File.ERRORS);
+
+				if (file.exists() && file.length() > MAX_FILE_SIZE)
+					rotate(file);
+
+				FileUtil.write(file, lines, StandardOpenOption.APPEND);
+
+			} catch (final Throwable t) {
+				Bukkit.getLogger().log(Level.SEVERE, "Failed to write " + lines.size() + " lines to " + FoConstants.File.ERRORS, t);
+			}
+		}
+	}
+
+	/*
+	 * Compress the given file next to it and delete the oldest archives over the limit
+	 */
+	private static void rotate(File file) throws IOException {
+		final String baseName = file.getName().replace(".log", "");
+		final File archive = new File(file.getParentFile(), baseName + "-" + System.currentTimeMillis() + ".log.gz");
+
+		try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(archive.toPath()))) {
+			Files.copy(file.toPath(), out);
+		}
+
+		Files.delete(file.toPath());
+
+		final File[] archives = file.getParentFile().listFiles((dir, name) -> name.startsWith(baseName + "-") && name.endsWith(".log.gz"));
+
+		if (archives != null && archives.length > MAX_ARCHIVES) {
+			Arrays.sort(archives, Comparator.comparingLong(File::lastModified));
+
+			for (int i = 0; i < archives.length - MAX_ARCHIVES; i++)
+				Files.deleteIfExists(archives[i].toPath());
+		}
+	}
+
+	/*
+	 * An error waiting to be written
+	 */
+	private static final class PendingError {
+
+		/**
+		 * The full report, or null if we only count repeats of a recently written error
+		 */
+		private final List<String> lines;
+
+		/**
+		 * When we first got this error
+		 */
+		private final long firstOccurrence = System.currentTimeMillis();
+
+		/**
+		 * How many times we got this error since the last flush
+		 */
+		private int occurrences = 1;
+
+		PendingError(List<String> lines) {
+			this.lines = lines;
+		}
+	}
+}
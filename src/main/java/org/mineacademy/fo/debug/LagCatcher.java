@@ -1,9 +1,12 @@
 package org.mineacademy.fo.debug;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.annotation.Nullable;
 
 import org.mineacademy.fo.Common;
 import org.mineacademy.fo.MathUtil;
@@ -19,19 +22,35 @@ import lombok.Setter;
 /**
  * A simple yet effective way to calculate duration
  * between two points in code
+ *
+ * Measured sections are also recorded into a timer of the same name
+ * in {@link MetricsRegistry} so you can read its percentiles later, up to
+ * the first {@link #MAX_METRIC_SECTIONS} names. Pass a metric name to
+ * {@link #end(String, int, String, String)} when the section name contains
+ * changing values such as command arguments.
  */
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public final class LagCatcher {
 
+	/**
+	 * How many sections we record into {@link MetricsRegistry} at most, timers are kept forever
+	 */
+	private static final int MAX_METRIC_SECTIONS = 256;
+
 	/**
 	 * Stores sections with the time time they started to be measured
 	 */
-	private static volatile Map<String, Long> startTimesMap = new HashMap<>();
+	private static final Map<String, Long> startTimesMap = new ConcurrentHashMap<>();
 
 	/**
 	 * Stores sections with a list of lag durations for each section
 	 */
-	private static volatile Map<String, List<Long>> durationsMap = new HashMap<>();
+	private static final Map<String, List<Long>> durationsMap = new ConcurrentHashMap<>();
+
+	/**
+	 * Names of timers we record sections into
+	 */
+	private static final Set<String> metricSections = ConcurrentHashMap.newKeySet();
 
 	/**
 	 * Used to completely disable "X took Y ms" messages from being printed in to your console.
@@ -87,7 +106,22 @@ public final class LagCatcher {
 	 * @param message
 	 */
 	public static void end(String section, int thresholdMs, String message) {
-		final double lag = finishAndCalculate(section);
+		end(section, thresholdMs, message, section);
+	}
+
+	/**
+	 * Stops measuring time in a code section and print a custom console message
+	 * when it took over the given threshold, recording the time into the given timer
+	 * <p>
+	 * Use {section} and {time} to replace the debugged section and how long it took
+	 *
+	 * @param section
+	 * @param thresholdMs
+	 * @param message
+	 * @param metricName the timer name in {@link MetricsRegistry}, or null to not record it
+	 */
+	public static void end(String section, int thresholdMs, String message, @Nullable String metricName) {
+		final double lag = finishAndCalculate(section, metricName);
 
 		if (lag > thresholdMs && SimpleSettings.LAG_THRESHOLD_MILLIS != -1) {
 			message = (SimplePlugin.hasInstance() ? "[" + SimplePlugin.getNamed() + " " + SimplePlugin.getVersion() + "] " : "") + message
@@ -95,7 +129,7 @@ public final class LagCatcher {
 					.replace("{time}", MathUtil.formatTwoDigits(lag));
 
 			if (printingMessages)
-				System.out.println(message);
+				print(message);
 		}
 	}
 
@@ -118,10 +152,10 @@ public final class LagCatcher {
 		for (int i = 0; i < cycles; i++) {
 			LagCatcher.start(name);
 			code.run();
-			lagMap.add(finishAndCalculate(name));
+			lagMap.add(finishAndCalculate(name, name));
 		}
 
-		System.out.println("Test '" + name + "' took " + MathUtil.formatTwoDigits(finishAndCalculate(name + "-whole")) + " ms. Average " + MathUtil.average(lagMap) + " ms");
+		print("Test '" + name + "' took " + MathUtil.formatTwoDigits(finishAndCalculate(name + "-whole", name + "-whole")) + " ms. Average " + MathUtil.average(lagMap) + " ms");
 
 		// Measure individual sub sections of the performance test
 		if (!durationsMap.isEmpty()) {
@@ -132,10 +166,10 @@ public final class LagCatcher {
 				for (final long sectionDuration : entry.getValue())
 					duration += sectionDuration;
 
-				System.out.println("\tSection '" + section + "' took " + MathUtil.formatTwoDigits(duration / 1_000_000D));
+				print("\tSection '" + section + "' took " + MathUtil.formatTwoDigits(duration / 1_000_000D));
 			}
 
-			System.out.println("Section measurement ended.");
+			print("Section measurement ended.");
 
 			durationsMap.clear();
 		}
@@ -193,20 +227,53 @@ public final class LagCatcher {
 
 		if (printingMessages)
 			if (SimplePlugin.hasInstance())
-				Common.logNoPrefix("[{plugin_name} {plugin_version}] " + message);
+				print("[{plugin_name} {plugin_version}] " + message);
 			else
-				System.out.println("[LagCatcher] " + message);
+				print("[LagCatcher] " + message);
 	}
 
 	/**
 	 * Calculates how long a section took (in ms) and removes it from the timings map
 	 *
 	 * @param section
+	 * @param metricName
 	 * @return
 	 */
-	private static double finishAndCalculate(String section) {
+	private static double finishAndCalculate(String section, @Nullable String metricName) {
 		final Long nanoTime = startTimesMap.remove(section);
 
-		return nanoTime == null ? 0D : (System.nanoTime() - nanoTime) / 1_000_000D;
+		if (nanoTime == null)
+			return 0D;
+
+		final long duration = System.nanoTime() - nanoTime;
+
+		if (metricName != null)
+			record(metricName, duration);
+
+		return duration / 1_000_000D;
+	}
+
+	/*
+	 * Record the duration into the timer unless we already record too many sections
+	 */
+	private static void record(String metricName, long duration) {
+		if (!metricSections.contains(metricName)) {
+			if (metricSections.size() >= MAX_METRIC_SECTIONS)
+				return;
+
+			metricSections.add(metricName);
+		}
+
+		MetricsRegistry.timer(metricName).record(duration);
+	}
+
+	/*
+	 * Print the message to the console through our logger when available
+	 */
+	private static void print(String message) {
+		if (SimplePlugin.hasInstance())
+			Common.logNoPrefix(message);
+		else
+			System.out.println(message);
 	}
 }
\ No newline at end of file
@@ -0,0 +1,435 @@
+package org.mineacademy.fo.debug;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.mineacademy.fo.MathUtil;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * A thread-safe registry of named timers, counters and gauges
+ * you can use to find out how your plugin performs.
+ *
+ * Timers record durations into a log-linear histogram so you can read
+ * p50/p95/p99/max latencies. Recording does not lock nor allocate.
+ *
+ * {@link LagCatcher} reports every measured section here automatically.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class MetricsRegistry {
+
+	/**
+	 * Registered timers by name
+	 */
+	private static final Map<String, Timer> timers = new ConcurrentHashMap<>();
+
+	/**
+	 * Registered counters by name
+	 */
+	private static final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+	/**
+	 * Registered gauges by name
+	 */
+	private static final Map<String, LongSupplier> gauges = new ConcurrentHashMap<>();
+
+	/**
+	 * Return the timer by the given name, creating it if it does not exist
+	 *
+	 * @param name
+	 * @return
+	 */
+	public static Timer timer(String name) {
+		final Timer timer = timers.get(name);
+
+		return timer != null ? timer : timers.computeIfAbsent(name, key -> new Timer());
+	}
+
+	/**
+	 * Remove the timer by the given name, for example when what it measured is gone
+	 *
+	 * @param name
+	 */
+	public static void removeTimer(String name) {
+		timers.remove(name);
+	}
+
+	/**
+	 * Return the counter by the given name, creating it if it does not exist
+	 *
+	 * @param name
+	 * @return
+	 */
+	public static Counter counter(String name) {
+		final Counter counter = counters.get(name);
+
+		return counter != null ? counter : counters.computeIfAbsent(name, key -> new Counter());
+	}
+
+	/**
+	 * Register a gauge reading its value from the given supplier when we take a snapshot,
+	 * replacing the previous gauge by the same name
+	 *
+	 * @param name
+	 * @param supplier
+	 */
+	public static void gauge(String name, LongSupplier supplier) {
+		gauges.put(name, supplier);
+	}
+
+	/**
+	 * Remove the gauge by the given name
+	 *
+	 * @param name
+	 */
+	public static void removeGauge(String name) {
+		gauges.remove(name);
+	}
+
+	/**
+	 * Return snapshots of all timers sorted by name
+	 *
+	 * @param reset should we reset the timers after taking the snapshot?
+	 * @return
+	 */
+	public static Map<String, TimerSnapshot> snapshotTimers(boolean reset) {
+		final Map<String, TimerSnapshot> snapshots = new TreeMap<>();
+
+		for (final Map.Entry<String, Timer> entry : timers.entrySet())
+			snapshots.put(entry.getKey(), reset ? entry.getValue().snapshotAndReset() : entry.getValue().snapshot());
+
+		return snapshots;
+	}
+
+	/**
+	 * Return values of all counters sorted by name
+	 *
+	 * @param reset should we reset the counters after reading them?
+	 * @return
+	 */
+	public static Map<String, Long> snapshotCounters(boolean reset) {
+		final Map<String, Long> snapshots = new TreeMap<>();
+
+		for (final Map.Entry<String, Counter> entry : counters.entrySet())
+			snapshots.put(entry.getKey(), reset ? entry.getValue().sumThenReset() : entry.getValue().get());
+
+		return snapshots;
+	}
+
+	/**
+	 * Return current values of all gauges sorted by name
+	 *
+	 * @return
+	 */
+	public static Map<String, Long> snapshotGauges() {
+		final Map<String, Long> snapshots = new TreeMap<>();
+
+		for (final Map.Entry<String, LongSupplier> entry : gauges.entrySet())
+			try {
+				snapshots.put(entry.getKey(), entry.getValue().getAsLong());
+
+			} catch (final Throwable t) {
+				// Gauge of something already unloaded, skip
+			}
+
+		return snapshots;
+	}
+
+	/**
+	 * Reset all timers and counters, gauges are left registered
+	 */
+	public static void reset() {
+		for (final Timer timer : timers.values())
+			timer.reset();
+
+		for (final Counter counter : counters.values())
+			counter.sumThenReset();
+	}
+
+	/**
+	 * Return a human readable report of all metrics, one per line
+	 *
+	 * @param reset should we reset timers and counters after reading them?
+	 * @return
+	 */
+	public static List<String> dump(boolean reset) {
+		final List<String> lines = new ArrayList<>();
+
+		for (final Map.Entry<String, TimerSnapshot> entry : snapshotTimers(reset).entrySet())
+			lines.add(entry.getKey() + ": " + entry.getValue());
+
+		for (final Map.Entry<String, Long> entry : snapshotCounters(reset).entrySet())
+			lines.add(entry.getKey() + ": " + entry.getValue());
+
+		for (final Map.Entry<String, Long> entry : snapshotGauges().entrySet())
+			lines.add(entry.getKey() + ": " + entry.getValue());
+
+		return lines;
+	}
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Classes
+	// ------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * A simple counter
+	 */
+	public static final class Counter extends LongAdder {
+
+		private static final long serialVersionUID = 1L;
+
+		private Counter() {
+		}
+
+		/**
+		 * Return the current count
+		 *
+		 * @return
+		 */
+		public long get() {
+			return this.sum();
+		}
+	}
+
+	/**
+	 * Records durations into a log-linear histogram with 16 buckets per power of two,
+	 * so percentiles are accurate within about 6%. Durations up to about 18 minutes
+	 * are recorded precisely, longer ones are counted as the maximum.
+	 */
+	public static final class Timer {
+
+		/**
+		 * Bits used for the linear part of each power of two
+		 */
+		private static final int SUB_BUCKET_BITS = 4;
+
+		/**
+		 * Buckets per power of two
+		 */
+		private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+		/**
+		 * The highest power of two we track, in nanoseconds
+		 */
+		private static final int MAX_EXPONENT = 40;
+
+		/**
+		 * The histogram buckets
+		 */
+		private final AtomicLongArray buckets = new AtomicLongArray((MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS);
+
+		/**
+		 * Total recorded values
+		 */
+		private final LongAdder count = new LongAdder();
+
+		/**
+		 * Sum of all recorded durations
+		 */
+		private final LongAdder totalNanos = new LongAdder();
+
+		/**
+		 * The longest recorded duration
+		 */
+		private final AtomicLong maxNanos = new AtomicLong();
+
+		private Timer() {
+		}
+
+		/**
+		 * Convenience method returning the current time to pass to {@link #stop(long)}
+		 *
+		 * @return
+		 */
+		public long start() {
+			return System.nanoTime();
+		}
+
+		/**
+		 * Record the time elapsed since the given {@link #start()} time
+		 *
+		 * @param startNanos
+		 */
+		public void stop(long startNanos) {
+			this.record(System.nanoTime() - startNanos);
+		}
+
+		/**
+		 * Record the given duration in nanoseconds
+		 *
+		 * @param nanos
+		 */
+		public void record(long nanos) {
+			if (nanos < 0)
+				nanos = 0;
+
+			this.buckets.incrementAndGet(bucketIndex(nanos));
+			this.count.increment();
+			this.totalNanos.add(nanos);
+
+			long max;
+
+			while (nanos > (max = this.maxNanos.get()))
+				if (this.maxNanos.compareAndSet(max, nanos))
+					break;
+		}
+
+		/**
+		 * Return the current statistics
+		 *
+		 * @return
+		 */
+		public TimerSnapshot snapshot() {
+			return this.snapshot(false);
+		}
+
+		/**
+		 * Return the current statistics and start over
+		 *
+		 * @return
+		 */
+		public TimerSnapshot snapshotAndReset() {
+			return this.snapshot(true);
+		}
+
+		/**
+		 * Forget all recorded values
+		 */
+		public void reset() {
+			this.snapshot(true);
+		}
+
+		/*
+		 * Read the buckets and calculate percentiles
+		 */
+		private TimerSnapshot snapshot(boolean reset) {
+			final long[] values = new long[this.buckets.length()];
+			long count = 0;
+
+			for (int i = 0; i < values.length; i++) {
+				values[i] = reset ? this.buckets.getAndSet(i, 0) : this.buckets.get(i);
+				count += values[i];
+			}
+
+			final long total = reset ? this.totalNanos.sumThenReset() : this.totalNanos.sum();
+			final long max = reset ? this.maxNanos.getAndSet(0) : this.maxNanos.get();
+
+			if (reset)
+				this.count.reset();
+
+			return new TimerSnapshot(count, count == 0 ? 0 : total / count,
+					percentile(values, count, 0.50, max), percentile(values, count, 0.95, max), percentile(values, count, 0.99, max), max);
+		}
+
+		/*
+		 * Find the value at the given percentile, capped at the maximum
+		 */
+		private static long percentile(long[] values, long count, double percentile, long max) {
+			if (count == 0)
+				return 0;
+
+			final long rank = (long) Math.ceil(percentile * count);
+			long seen = 0;
+
+			for (int i = 0; i < values.length; i++) {
+				seen += values[i];
+
+				if (seen >= rank)
+					return Math.min(bucketUpperBound(i), max);
+			}
+
+			return max;
+		}
+
+		/*
+		 * Values below 16 ns have their own bucket, above that we use the highest bit as
+		 * the power of two and the next 4 bits as the linear position within it
+		 */
+		private static int bucketIndex(long nanos) {
+			if (nanos < SUB_BUCKETS)
+				return (int) nanos;
+
+			final int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+
+			if (exponent > MAX_EXPONENT)
+				return (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS - 1;
+
+			final int subBucket = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+
+			return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+		}
+
+		/*
+		 * The highest value stored in the given bucket
+		 */
+		private static long bucketUpperBound(int index) {
+			if (index < SUB_BUCKETS)
+				return index;
+
+			final int exponent = index / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+			final long subBucket = index % SUB_BUCKETS;
+			final int shift = exponent - SUB_BUCKET_BITS;
+
+			return ((SUB_BUCKETS + subBucket + 1) << shift) - 1;
+		}
+	}
+
+	/**
+	 * Statistics of a timer at one point in time, all durations are in nanoseconds
+	 */
+	@Getter
+	@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+	public static final class TimerSnapshot {
+
+		/**
+		 * How many durations were recorded
+		 */
+		private final long count;
+
+		/**
+		 * The average duration
+		 */
+		private final long mean;
+
+		/**
+		 * The median duration
+		 */
+		private final long p50;
+
+		/**
+		 * 95% of durations were shorter or equal to this
+		 */
+		private final long p95;
+
+		/**
+		 * 99% of durations were shorter or equal to this
+		 */
+		private final long p99;
+
+		/**
+		 * The longest duration
+		 */
+		private final long max;
+
+		@Override
+		public String toString() {
+			return "count=" + this.count + " mean=" + formatMillis(this.mean) + " p50=" + formatMillis(this.p50) + " p95=" + formatMillis(this.p95)
+					+ " p99=" + formatMillis(this.p99) + " max=" + formatMillis(this.max);
+		}
+
+		private static String formatMillis(long nanos) {
+			return MathUtil.formatTwoDigits(nanos / 1_000_000D) + "ms";
+		}
+	}
+}
@@ -0,0 +1,303 @@
+package org.mineacademy.fo.debug;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.mineacademy.fo.Common;
+import org.mineacademy.fo.FileUtil;
+import org.mineacademy.fo.MathUtil;
+import org.mineacademy.fo.TimeUtil;
+import org.mineacademy.fo.debug.MetricsRegistry.Timer;
+import org.mineacademy.fo.debug.MetricsRegistry.TimerSnapshot;
+import org.mineacademy.fo.model.SimpleTask;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * An opt-in profiler telling how much of each server tick is spent
+ * inside Foundation-driven code, such as menus, commands, bosses or scoreboards.
+ *
+ * Entry points call {@link #start()} and {@link #stop(Subsystem, long)}, which only
+ * read a single flag when the profiler is disabled. When enabled, time is summed
+ * per subsystem and folded into per-tick statistics at the end of each tick.
+ *
+ * Time is inclusive, so variables replaced inside a command count both
+ * for the command and for variables. Packet listeners and variables may run
+ * off the main thread and are then attributed to the tick they finished in.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class TickProfiler {
+
+	/**
+	 * How long one tick may take at 20 TPS, in nanoseconds
+	 */
+	private static final long TICK_BUDGET_NANOS = 50_000_000;
+
+	/**
+	 * The amount of subsystems we track
+	 */
+	private static final int SUBSYSTEMS = Subsystem.values().length;
+
+	/**
+	 * Is the profiler running?
+	 */
+	@Getter
+	private static volatile boolean enabled = false;
+
+	/**
+	 * Time spent in each subsystem during the current tick
+	 */
+	private static final LongAdder[] tickNanos = newAdders();
+
+	/**
+	 * Calls to each subsystem during the current tick
+	 */
+	private static final LongAdder[] tickCalls = newAdders();
+
+	/**
+	 * Time spent in each subsystem since the profiler was started
+	 */
+	private static final long[] totalNanos = new long[SUBSYSTEMS];
+
+	/**
+	 * Calls to each subsystem since the profiler was started
+	 */
+	private static final long[] totalCalls = new long[SUBSYSTEMS];
+
+	/**
+	 * How many ticks were profiled
+	 */
+	private static long profiledTicks = 0;
+
+	/**
+	 * When the profiler was started
+	 */
+	private static long startTime = 0;
+
+	/**
+	 * The task closing each tick, only runs while enabled
+	 */
+	private static SimpleTask collector;
+
+	/**
+	 * Start profiling, forgetting previous results
+	 */
+	public static synchronized void enable() {
+		if (enabled)
+			return;
+
+		reset();
+
+		collector = Common.runTimer(1, TickProfiler::collectTick);
+		enabled = true;
+	}
+
+	/**
+	 * Stop profiling, results are kept until you enable it again or call {@link #reset()}
+	 */
+	public static synchronized void disable() {
+		enabled = false;
+
+		if (collector != null) {
+			collector.cancel();
+			collector = null;
+
+			// Count what was measured in the last unfinished tick
+			collectTick();
+		}
+	}
+
+	/**
+	 * Forget all results
+	 */
+	public static synchronized void reset() {
+		for (int i = 0; i < SUBSYSTEMS; i++) {
+			tickNanos[i].reset();
+			tickCalls[i].reset();
+			totalNanos[i] = 0;
+			totalCalls[i] = 0;
+
+			timer(Subsystem.values()[i]).reset();
+		}
+
+		profiledTicks = 0;
+		startTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Return the current time to pass to {@link #stop(Subsystem, long)}, or 0 when disabled
+	 *
+	 * @return
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Attribute the time since the given {@link #start()} time to the subsystem
+	 *
+	 * @param subsystem
+	 * @param startNanos
+	 */
+	public static void stop(Subsystem subsystem, long startNanos) {
+		if (startNanos == 0)
+			return;
+
+		final int index = subsystem.ordinal();
+
+		tickNanos[index].add(System.nanoTime() - startNanos);
+		tickCalls[index].increment();
+	}
+
+	/**
+	 * Return a human readable report of the results, one subsystem per line
+	 *
+	 * @return
+	 */
+	public static synchronized List<String> getReport() {
+		final List<String> lines = new ArrayList<>();
+		final long ticks = Math.max(1, profiledTicks);
+
+		lines.add("Profiled " + profiledTicks + " ticks since " + TimeUtil.getFormattedDate(startTime) + (enabled ? " (still running)" : ""));
+
+		for (final Subsystem subsystem : Subsystem.values()) {
+			final int index = subsystem.ordinal();
+
+			if (totalCalls[index] == 0)
+				continue;
+
+			final long averageNanos = totalNanos[index] / ticks;
+			final TimerSnapshot perTick = timer(subsystem).snapshot();
+
+			lines.add(subsystem.getName() + ": " + totalCalls[index] + " calls, " + formatMillis(totalNanos[index]) + " total, "
+					+ formatMillis(averageNanos) + "/tick (" + MathUtil.formatTwoDigits(averageNanos * 100D / TICK_BUDGET_NANOS) + "% of tick), "
+					+ "busy ticks p95 " + formatMillis(perTick.getP95()) + " max " + formatMillis(perTick.getMax()));
+		}
+
+		if (lines.size() == 1)
+			lines.add("No Foundation code was run.");
+
+		return lines;
+	}
+
+	/**
+	 * Write the report to a new file in the profiler/ folder and return it
+	 *
+	 * @return
+	 */
+	public static File export() {
+		final File file = FileUtil.getFile("profiler/profile-" + System.currentTimeMillis() + ".txt");
+
+		FileUtil.write(file, getReport());
+
+		return file;
+	}
+
+	/*
+	 * Fold the time measured during the last tick into the totals
+	 */
+	private static synchronized void collectTick() {
+		for (int i = 0; i < SUBSYSTEMS; i++) {
+			final long calls = tickCalls[i].sumThenReset();
+			final long nanos = tickNanos[i].sumThenReset();
+
+			if (calls == 0)
+				continue;
+
+			totalCalls[i] += calls;
+			totalNanos[i] += nanos;
+
+			timer(Subsystem.values()[i]).record(nanos);
+		}
+
+		profiledTicks++;
+	}
+
+	/*
+	 * Per-tick time of the subsystem, only counting ticks it ran in
+	 */
+	private static Timer timer(Subsystem subsystem) {
+		return MetricsRegistry.timer("profiler." + subsystem.getKey());
+	}
+
+	private static LongAdder[] newAdders() {
+		final LongAdder[] adders = new LongAdder[SUBSYSTEMS];
+
+		for (int i = 0; i < adders.length; i++)
+			adders[i] = new LongAdder();
+
+		return adders;
+	}
+
+	private static String formatMillis(long nanos) {
+		return MathUtil.formatThreeDigits(nanos / 1_000_000D) + " ms";
+	}
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Classes
+	// ------------------------------------------------------------------------------------------------------------
+
+	/**
+	 * The parts of Foundation we measure
+	 */
+	@RequiredArgsConstructor
+	public enum Subsystem {
+
+		/**
+		 * Clicking in menus
+		 */
+		MENU("menu", "Menu clicks"),
+
+		/**
+		 * Replacing variables in messages
+		 */
+		VARIABLES("variables", "Variables"),
+
+		/**
+		 * Running commands
+		 */
+		COMMAND("command", "Commands"),
+
+		/**
+		 * Packet listeners from {@link org.mineacademy.fo.model.PacketListener}
+		 */
+		PACKET("packet", "Packet listeners"),
+
+		/**
+		 * Custom enchantment events
+		 */
+		ENCHANTMENT("enchantment", "Custom enchants"),
+
+		/**
+		 * Tasks of spawned custom bosses
+		 */
+		BOSS("boss", "Boss tasks"),
+
+		/**
+		 * Animated boss bar tasks
+		 */
+		BOSS_BAR("boss_bar", "Boss bar tasks"),
+
+		/**
+		 * Scoreboard updates
+		 */
+		SCOREBOARD("scoreboard", "Scoreboards");
+
+		/**
+		 * The key used for the metric name
+		 */
+		@Getter
+		private final String key;
+
+		/**
+		 * The name shown in the report
+		 */
+		@Getter
+		private final String name;
+	}
+}
@@ -18,6 +18,8 @@ import org.bukkit.projectiles.ProjectileSource;
 import org.mineacademy.fo.EntityUtil;
 import org.mineacademy.fo.MinecraftVersion;
 import org.mineacademy.fo.MinecraftVersion.V;
+import org.mineacademy.fo.debug.TickProfiler;
+import org.mineacademy.fo.debug.TickProfiler.Subsystem;
 import org.mineacademy.fo.remain.Remain;
 
 import java.util.Map.Entry;
@@ -104,6 +106,8 @@ public final class FoundationEnchantmentListener implements Listener {
 	 * @param executer the function to execute
 	 */
 	public void execute(ItemStack item, BiConsumer<SimpleEnchantment, Integer> executer){
+		final long profileStart = TickProfiler.start();
+
 		try{
 			for (final Entry<SimpleEnchantment, Integer> e : SimpleEnchantment.findEnchantments(item).entrySet()) {
 				executer.accept(e.getKey(), e.getValue());
@@ -112,6 +116,8 @@ public final class FoundationEnchantmentListener implements Listener {
 			if (Remain.hasItemMeta()){
 				ex.printStackTrace();
 			}
+		} finally {
+			TickProfiler.stop(Subsystem.ENCHANTMENT, profileStart);
 		}
 	}
 }
@@ -12,6 +12,8 @@ import org.bukkit.event.player.PlayerSwapHandItemsEvent;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.mineacademy.fo.Common;
+import org.mineacademy.fo.debug.TickProfiler;
+import org.mineacademy.fo.debug.TickProfiler.Subsystem;
 import org.mineacademy.fo.menu.button.Button;
 import org.mineacademy.fo.menu.model.MenuClickLocation;
 import org.mineacademy.fo.remain.Remain;
@@ -68,6 +70,20 @@ public final class MenuListener implements Listener {
 	 */
 	@EventHandler(priority = EventPriority.HIGH)
 	public void onMenuClick(final InventoryClickEvent event) {
+		final long profileStart = TickProfiler.start();
+
+		try {
+			this.handleMenuClick(event);
+
+		} finally {
+			TickProfiler.stop(Subsystem.MENU, profileStart);
+		}
+	}
+
+	/*
+	 * Handles clicking in menus
+	 */
+	private void handleMenuClick(final InventoryClickEvent event) {
 		if (!(event.getWhoClicked() instanceof Player))
 			return;
 
@@ -4,9 +4,11 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 import org.bukkit.Bukkit;
 import org.bukkit.ChatColor;
@@ -21,12 +23,17 @@ import org.mineacademy.fo.command.PermsCommand;
 import org.mineacademy.fo.plugin.SimplePlugin;
 import org.mineacademy.fo.settings.SimpleLocalization;
 
+import lombok.AccessLevel;
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.RequiredArgsConstructor;
 
 /**
  * A draft API for enumerating chat messages into pages.
  *
+ * Pages are rendered lazily from a {@link PageSource} only when viewed,
+ * so you can paginate large data sets without building every line up front.
+ *
  * See {@link PermsCommand} for an early implementation.
  */
 @Getter
@@ -41,6 +48,11 @@ public final class ChatPaginator {
 	 */
 	public static final int FOUNDATION_HEIGHT = 15;
 
+	/**
+	 * How many recently viewed pages we keep rendered
+	 */
+	private static final int CACHED_PAGES = 5;
+
 	/**
 	 * How many lines per page? Maximum on screen is 20 minus header and footer.
 	 */
@@ -57,9 +69,23 @@ public final class ChatPaginator {
 	private final List<SimpleComponent> header = new ArrayList<>();
 
 	/**
-	 * The pages with their content.
+	 * The source of lines we render pages from.
 	 */
-	private final Map<Integer, List<SimpleComponent>> pages = new HashMap<>();
+	private PageSource source = PageSource.of(new ArrayList<>());
+
+	/**
+	 * Recently viewed pages, rendered from {@link #source}.
+	 */
+	@Getter(AccessLevel.NONE)
+	private final Map<Integer, List<SimpleComponent>> renderedPages = new LinkedHashMap<Integer, List<SimpleComponent>>(16, 0.75F, true) {
+
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Integer, List<SimpleComponent>> eldest) {
+			return this.size() > CACHED_PAGES;
+		}
+	};
 
 	/**
 	 * The footer included on every page.
@@ -160,10 +186,7 @@ public final class ChatPaginator {
 	 * @return
 	 */
 	public ChatPaginator setPages(SimpleComponent... components) {
-		this.pages.clear();
-		this.pages.putAll(Common.fillPages(this.linesPerPage, Arrays.asList(components)));
-
-		return this;
+		return this.setPages(Arrays.asList(components));
 	}
 
 	/**
@@ -173,12 +196,7 @@ public final class ChatPaginator {
 	 * @return
 	 */
 	public ChatPaginator setPages(String... messages) {
-		final List<SimpleComponent> pages = new ArrayList<>();
-
-		for (final String message : messages)
-			pages.add(SimpleComponent.of(message));
-
-		return this.setPages(pages);
+		return this.setPages(Arrays.asList(messages), SimpleComponent::of);
 	}
 
 	/**
@@ -188,12 +206,88 @@ public final class ChatPaginator {
 	 * @return
 	 */
 	public ChatPaginator setPages(Collection<SimpleComponent> components) {
-		this.pages.clear();
-		this.pages.putAll(Common.fillPages(this.linesPerPage, components));
+		return this.setPages(PageSource.of(new ArrayList<>(components)));
+	}
+
+	/**
+	 * Set the content type, only rendering items into components
+	 * for the page being viewed
+	 *
+	 * @param <T>
+	 * @param items
+	 * @param renderer
+	 * @return
+	 */
+	public <T> ChatPaginator setPages(List<T> items, Function<T, SimpleComponent> renderer) {
+		return this.setPages(PageSource.of(items, renderer));
+	}
+
+	/**
+	 * Set the source we render pages from when they are viewed
+	 *
+	 * @param source
+	 * @return
+	 */
+	public ChatPaginator setPages(@NonNull PageSource source) {
+		this.source = source;
+		this.renderedPages.clear();
 
 		return this;
 	}
 
+	/**
+	 * Return how many pages there are
+	 *
+	 * @return
+	 */
+	public int getPageCount() {
+		final int size = this.source.size();
+
+		return size / this.linesPerPage + (size % this.linesPerPage == 0 ? 0 : 1);
+	}
+
+	/**
+	 * Return the lines on the given page starting from 0, rendering
+	 * the page if it was not viewed recently. Returns an empty list
+	 * for pages out of bounds.
+	 *
+	 * @param page
+	 * @return
+	 */
+	public List<SimpleComponent> getPage(int page) {
+		if (page < 0 || page >= this.getPageCount())
+			return new ArrayList<>();
+
+		List<SimpleComponent> rendered = this.renderedPages.get(page);
+
+		if (rendered == null) {
+			final int from = page * this.linesPerPage;
+			final int to = Math.min(from + this.linesPerPage, this.source.size());
+
+			rendered = this.source.getLines(from, to);
+			this.renderedPages.put(page, rendered);
+		}
+
+		return rendered;
+	}
+
+	/**
+	 * Return all pages with their content. This renders every page,
+	 * use {@link #getPage(int)} to only render the viewed page.
+	 *
+	 * @deprecated renders all pages at once, use {@link #getPage(int)} and {@link #getPageCount()}
+	 * @return
+	 */
+	@Deprecated
+	public Map<Integer, List<SimpleComponent>> getPages() {
+		final Map<Integer, List<SimpleComponent>> pages = new LinkedHashMap<>();
+
+		for (int page = 0; page < this.getPageCount(); page++)
+			pages.put(page, this.getPage(page));
+
+		return pages;
+	}
+
 	/**
 	 * Set the content type
 	 *
@@ -241,6 +335,25 @@ public final class ChatPaginator {
 			Common.runLater(() -> this.send0(sender, page));
 	}
 
+	/**
+	 * Load the pages off the main thread using the given loader, such as a database query,
+	 * then show the given page to the sender on the main thread
+	 *
+	 * @param sender
+	 * @param page
+	 * @param loader
+	 */
+	public void sendAsync(CommandSender sender, int page, Supplier<PageSource> loader) {
+		Common.runAsync(() -> {
+			final PageSource loaded = loader.get();
+
+			Common.runLater(() -> {
+				this.setPages(loaded);
+				this.send0(sender, page);
+			});
+		});
+	}
+
 	private void send0(CommandSender sender, int page) {
 		if (sender instanceof Player) {
 			final Player player = (Player) sender;
@@ -264,9 +377,8 @@ public final class ChatPaginator {
 
 			int amount = 1;
 
-			for (final List<SimpleComponent> components : this.pages.values())
-				for (final SimpleComponent component : components)
-					component.replace("{count}", amount++).send(sender);
+			for (final SimpleComponent component : this.source.getLines(0, this.source.size()))
+				component.replace("{count}", amount++).send(sender);
 
 			for (final SimpleComponent component : this.footer)
 				component.send(sender);
@@ -276,4 +388,65 @@ public final class ChatPaginator {
 	public static String getPageNbtTag() {
 		return "FoPages_" + SimplePlugin.getNamed();
 	}
+
+	/**
+	 * Supplies the lines for pages on demand, so that only
+	 * the page being viewed is rendered
+	 */
+	public interface PageSource {
+
+		/**
+		 * Return the total amount of lines
+		 *
+		 * @return
+		 */
+		int size();
+
+		/**
+		 * Render the lines from the given index inclusive to the given index exclusive
+		 *
+		 * @param fromIndex
+		 * @param toIndex
+		 * @return
+		 */
+		List<SimpleComponent> getLines(int fromIndex, int toIndex);
+
+		/**
+		 * Create a new source from already rendered components
+		 *
+		 * @param components
+		 * @return
+		 */
+		static PageSource of(List<SimpleComponent> components) {
+			return of(components, component -> component);
+		}
+
+		/**
+		 * Create a new source rendering the given items into components when viewed
+		 *
+		 * @param <T>
+		 * @param items
+		 * @param renderer
+		 * @return
+		 */
+		static <T> PageSource of(List<T> items, Function<T, SimpleComponent> renderer) {
+			return new PageSource() {
+
+				@Override
+				public int size() {
+					return items.size();
+				}
+
+				@Override
+				public List<SimpleComponent> getLines(int fromIndex, int toIndex) {
+					final List<SimpleComponent> lines = new ArrayList<>(toIndex - fromIndex);
+
+					for (final T item : items.subList(fromIndex, toIndex))
+						lines.add(renderer.apply(item));
+
+					return lines;
+				}
+			};
+		}
+	}
 }
@@ -0,0 +1,466 @@
+package org.mineacademy.fo.model;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.UUID;
+
+import org.mineacademy.fo.ChatUtil;
+import org.mineacademy.fo.Common;
+import org.mineacademy.fo.Valid;
+import org.mineacademy.fo.plugin.SimplePlugin;
+
+import lombok.Getter;
+
+/**
+ * Remembers the last messages per player and server-wide and answers
+ * if a new message is at least X% similar to any of them, using the same
+ * similarity measure as {@link ChatUtil#getSimilarityPercentage(String, String)}.
+ *
+ * Messages are indexed by MinHash signatures of their 3-letter shingles, so that
+ * isSimilar methods only compare against messages sharing a signature band instead
+ * of the whole window. The index approximates the similarity measure, a similar
+ * message may rarely be missed when its shingles differ a lot, for example when
+ * letters are swapped all over it. Short messages and thresholds below 50% are
+ * compared directly, skipping messages whose length alone rules them out and using
+ * an edit distance that gives up as soon as the threshold cannot be reached.
+ *
+ * Useful for anti-spam checks. The class is thread-safe so you can
+ * call it from the async chat event.
+ */
+public final class ChatSimilarityIndex {
+
+	/**
+	 * The amount of MinHash functions per signature
+	 */
+	private static final int SIGNATURE_SIZE = 16;
+
+	/**
+	 * How many hash values form one band, single rows make any shared
+	 * minimum hash a candidate so that similar messages are found first
+	 */
+	private static final int ROWS_PER_BAND = 1;
+
+	/**
+	 * Messages shorter than this are compared directly without signatures
+	 */
+	private static final int MIN_INDEXED_LENGTH = 12;
+
+	/**
+	 * The seeds for our hash functions, fixed so signatures are comparable
+	 */
+	private static final int[] SEEDS = new int[SIGNATURE_SIZE];
+
+	static {
+		final Random random = new Random(0x5F3759DFL);
+
+		for (int i = 0; i < SIGNATURE_SIZE; i++)
+			SEEDS[i] = random.nextInt() | 1;
+	}
+
+	/**
+	 * How many messages we remember per player
+	 */
+	@Getter
+	private final int playerWindowSize;
+
+	/**
+	 * How many messages we remember server-wide
+	 */
+	@Getter
+	private final int serverWindowSize;
+
+	/**
+	 * The recent messages of each player
+	 */
+	private final Map<UUID, Window> playerWindows = new HashMap<>();
+
+	/**
+	 * The recent messages of all players
+	 */
+	private final Window serverWindow;
+
+	/**
+	 * Create a new index remembering the given amount of last messages
+	 * per player and server-wide
+	 *
+	 * @param playerWindowSize
+	 * @param serverWindowSize
+	 */
+	public ChatSimilarityIndex(int playerWindowSize, int serverWindowSize) {
+		Valid.checkBoolean(playerWindowSize > 0 && serverWindowSize > 0, "Window sizes must be greater than 0");
+
+		this.playerWindowSize = playerWindowSize;
+		this.serverWindowSize = serverWindowSize;
+		this.serverWindow = new Window(serverWindowSize);
+	}
+
+	/**
+	 * Remember the message the player has sent, both for the player and server-wide
+	 *
+	 * @param sender
+	 * @param message
+	 */
+	public synchronized void add(UUID sender, String message) {
+		final Sample sample = new Sample(message);
+
+		this.playerWindows.computeIfAbsent(sender, uuid -> new Window(this.playerWindowSize)).add(sample);
+		this.serverWindow.add(sample);
+	}
+
+	/**
+	 * Return true if the message is at least as similar as the given threshold (0.00 - 1.00)
+	 * to any of the last messages of the given player
+	 *
+	 * @param sender
+	 * @param message
+	 * @param threshold
+	 * @return
+	 */
+	public synchronized boolean isSimilarToPlayer(UUID sender, String message, double threshold) {
+		final Window window = this.playerWindows.get(sender);
+
+		return window != null && window.findSimilar(new Sample(message), threshold) != null;
+	}
+
+	/**
+	 * Return true if the message is at least as similar as the given threshold (0.00 - 1.00)
+	 * to any of the last messages sent on the server
+	 *
+	 * @param message
+	 * @param threshold
+	 * @return
+	 */
+	public synchronized boolean isSimilarToServer(String message, double threshold) {
+		return this.serverWindow.findSimilar(new Sample(message), threshold) != null;
+	}
+
+	/**
+	 * Return the most recent message of the given player at least as similar
+	 * as the given threshold, or null if none. The message is returned
+	 * normalized, that is lowercased and without colors.
+	 *
+	 * Unlike the isSimilar methods this compares against the messages from the
+	 * newest one until one matches, without using the index.
+	 *
+	 * @param sender
+	 * @param message
+	 * @param threshold
+	 * @return
+	 */
+	public synchronized String findSimilarFromPlayer(UUID sender, String message, double threshold) {
+		final Window window = this.playerWindows.get(sender);
+		final Sample similar = window != null ? window.findMostRecentSimilar(new Sample(message), threshold) : null;
+
+		return similar != null ? similar.text : null;
+	}
+
+	/**
+	 * Forget messages of the given player, call this when he disconnects.
+	 * His messages are still kept in the server-wide window.
+	 *
+	 * @param sender
+	 */
+	public synchronized void remove(UUID sender) {
+		this.playerWindows.remove(sender);
+	}
+
+	/**
+	 * Forget all messages
+	 */
+	public synchronized void clear() {
+		this.playerWindows.clear();
+		this.serverWindow.clear();
+	}
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Helpers
+	// ------------------------------------------------------------------------------------------------------------
+
+	/*
+	 * Remove colors, casing and optionally accents the same way getSimilarityPercentage does
+	 */
+	private static String normalize(String message) {
+		if (message == null)
+			return "";
+
+		if (SimplePlugin.getInstance().similarityStripAccents())
+			message = ChatUtil.replaceDiacritic(message);
+
+		return Common.stripColors(message).toLowerCase();
+	}
+
+	/*
+	 * Return true if the similarity between the two messages is at least the threshold,
+	 * empty messages are only similar to each other and messages with nothing left
+	 * after removing colors are similar to none, like in getSimilarityPercentage
+	 */
+	private static boolean isSimilar(Sample first, Sample second, double threshold) {
+		if (first.empty && second.empty)
+			return true;
+
+		final String longer = first.text.length() >= second.text.length() ? first.text : second.text;
+		final String shorter = longer == first.text ? second.text : first.text;
+
+		if (longer.isEmpty())
+			return false;
+
+		// The most edits we can make while keeping (longer - distance) / longer >= threshold
+		final int maxDistance = (int) Math.floor(longer.length() * (1 - threshold) + 1E-9);
+
+		if (maxDistance < 0)
+			return false;
+
+		if (longer.length() - shorter.length() > maxDistance)
+			return false;
+
+		return boundedEditDistance(longer, shorter, maxDistance) <= maxDistance;
+	}
+
+	/*
+	 * Levenshtein distance only computed within the diagonal band of the given width,
+	 * returning maxDistance + 1 as soon as we know the distance is greater
+	 */
+	private static int boundedEditDistance(String longer, String shorter, int maxDistance) {
+		final int longerLength = longer.length();
+		final int shorterLength = shorter.length();
+		final int outOfBounds = maxDistance + 1;
+
+		int[] previous = new int[shorterLength + 1];
+		int[] current = new int[shorterLength + 1];
+
+		for (int j = 0; j <= shorterLength; j++)
+			previous[j] = j <= maxDistance ? j : outOfBounds;
+
+		for (int i = 1; i <= longerLength; i++) {
+			final int from = Math.max(1, i - maxDistance);
+			final int to = Math.min(shorterLength, i + maxDistance);
+			final char letter = longer.charAt(i - 1);
+
+			current[0] = i <= maxDistance ? i : outOfBounds;
+
+			if (from > 1)
+				current[from - 1] = outOfBounds;
+
+			int rowMinimum = current[0];
+
+			for (int j = from; j <= to; j++) {
+				final int cost = letter == shorter.charAt(j - 1) ? 0 : 1;
+				final int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+
+				current[j] = Math.min(value, outOfBounds);
+				rowMinimum = Math.min(rowMinimum, current[j]);
+			}
+
+			if (to < shorterLength)
+				current[to + 1] = outOfBounds;
+
+			if (rowMinimum > maxDistance)
+				return outOfBounds;
+
+			final int[] swap = previous;
+			previous = current;
+			current = swap;
+		}
+
+		return previous[shorterLength];
+	}
+
+	/*
+	 * Final mixing step of MurmurHash3
+	 */
+	private static int mix(int hash) {
+		hash ^= hash >>> 16;
+		hash *= 0x85EBCA6B;
+		hash ^= hash >>> 13;
+		hash *= 0xC2B2AE35;
+		hash ^= hash >>> 16;
+
+		return hash;
+	}
+
+	// ------------------------------------------------------------------------------------------------------------
+	// Classes
+	// ------------------------------------------------------------------------------------------------------------
+
+	/*
+	 * A normalized message with its band keys
+	 */
+	private static final class Sample {
+
+		/**
+		 * The normalized message
+		 */
+		private final String text;
+
+		/**
+		 * True if the message was empty before normalizing
+		 */
+		private final boolean empty;
+
+		/**
+		 * The keys of the signature bands, null for short messages
+		 */
+		private final long[] bandKeys;
+
+		Sample(String message) {
+			this.text = normalize(message);
+			this.empty = message == null || message.isEmpty();
+			this.bandKeys = this.text.length() < MIN_INDEXED_LENGTH ? null : computeBandKeys(this.text);
+		}
+
+		/*
+		 * Compute the MinHash signature of 3-letter shingles and fold it into band keys
+		 */
+		private static long[] computeBandKeys(String text) {
+			final int[] signature = new int[SIGNATURE_SIZE];
+
+			for (int k = 0; k < SIGNATURE_SIZE; k++)
+				signature[k] = Integer.MAX_VALUE;
+
+			for (int i = 0; i + 3 <= text.length(); i++) {
+				final int shingle = (text.charAt(i) * 31 + text.charAt(i + 1)) * 31 + text.charAt(i + 2);
+
+				for (int k = 0; k < SIGNATURE_SIZE; k++) {
+					final int hash = mix(shingle ^ SEEDS[k]);
+
+					if (hash < signature[k])
+						signature[k] = hash;
+				}
+			}
+
+			final long[] bandKeys = new long[SIGNATURE_SIZE / ROWS_PER_BAND];
+
+			for (int band = 0; band < bandKeys.length; band++) {
+				long key = band;
+
+				for (int row = 0; row < ROWS_PER_BAND; row++)
+					key = key * 0x100000001B3L + signature[band * ROWS_PER_BAND + row];
+
+				bandKeys[band] = key;
+			}
+
+			return bandKeys;
+		}
+	}
+
+	/*
+	 * A rolling window of recent messages with their band index
+	 */
+	private static final class Window {
+
+		/**
+		 * How many messages we keep
+		 */
+		private final int capacity;
+
+		/**
+		 * The messages from oldest to newest
+		 */
+		private final ArrayDeque<Sample> samples;
+
+		/**
+		 * Indexed messages by their band keys
+		 */
+		private final Map<Long, List<Sample>> buckets = new HashMap<>();
+
+		/**
+		 * Messages too short to be indexed from oldest to newest, compared directly
+		 */
+		private final ArrayDeque<Sample> unindexed = new ArrayDeque<>();
+
+		Window(int capacity) {
+			this.capacity = capacity;
+			this.samples = new ArrayDeque<>(capacity);
+		}
+
+		void add(Sample sample) {
+			if (this.samples.size() >= this.capacity)
+				this.evict(this.samples.pollFirst());
+
+			this.samples.addLast(sample);
+
+			if (sample.bandKeys != null)
+				for (final long key : sample.bandKeys)
+					this.buckets.computeIfAbsent(key, k -> new ArrayList<>(2)).add(sample);
+			else
+				this.unindexed.addLast(sample);
+		}
+
+		private void evict(Sample sample) {
+
+			// We evict the oldest message so it is also the oldest unindexed one
+			if (sample.bandKeys == null) {
+				this.unindexed.pollFirst();
+
+				return;
+			}
+
+			for (final long key : sample.bandKeys) {
+				final List<Sample> bucket = this.buckets.get(key);
+
+				if (bucket != null) {
+					bucket.remove(sample);
+
+					if (bucket.isEmpty())
+						this.buckets.remove(key);
+				}
+			}
+		}
+
+		/*
+		 * Return any message similar to the query, comparing only messages sharing
+		 * a band with it and those too short to be indexed
+		 */
+		Sample findSimilar(Sample query, double threshold) {
+
+			// Shingles say little about short messages or low thresholds, just scan the window
+			if (query.bandKeys == null || threshold < 0.5)
+				return this.findMostRecentSimilar(query, threshold);
+
+			final Set<Sample> checked = Collections.newSetFromMap(new IdentityHashMap<>());
+
+			for (final long key : query.bandKeys) {
+				final List<Sample> bucket = this.buckets.get(key);
+
+				if (bucket != null)
+					for (final Sample sample : bucket)
+						if (checked.add(sample) && isSimilar(query, sample, threshold))
+							return sample;
+			}
+
+			for (final Sample sample : this.unindexed)
+				if (isSimilar(query, sample, threshold))
+					return sample;
+
+			return null;
+		}
+
+		/*
+		 * Return the newest message similar to the query
+		 */
+		Sample findMostRecentSimilar(Sample query, double threshold) {
+			for (final Iterator<Sample> it = this.samples.descendingIterator(); it.hasNext();) {
+				final Sample sample = it.next();
+
+				if (isSimilar(query, sample, threshold))
+					return sample;
+			}
+
+			return null;
+		}
+
+		void clear() {
+			this.samples.clear();
+			this.buckets.clear();
+			this.unindexed.clear();
+		}
+	}
+}
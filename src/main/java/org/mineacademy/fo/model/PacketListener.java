@@ -23,6 +23,8 @@ import org.mineacademy.fo.MinecraftVersion.V;
 import org.mineacademy.fo.ReflectionUtil;
 import org.mineacademy.fo.annotation.AutoRegister;
 import org.mineacademy.fo.collection.SerializedMap;
+import org.mineacademy.fo.debug.TickProfiler;
+import org.mineacademy.fo.debug.TickProfiler.Subsystem;
 import org.mineacademy.fo.exception.EventHandledException;
 import org.mineacademy.fo.exception.FoException;
 import org.mineacademy.fo.exception.RegexTimeoutException;
@@ -88,11 +90,25 @@ public abstract class PacketListener {
 			public void onPacketReceiving(final PacketEvent event) {
 
 				if (event.getPlayer() != null)
-					consumer.accept(event);
+					acceptProfiled(consumer, event);
 			}
 		});
 	}
 
+	/*
+	 * Pass the event to the consumer and measure it when the profiler is enabled
+	 */
+	private static void acceptProfiled(final Consumer<PacketEvent> consumer, final PacketEvent event) {
+		final long profileStart = TickProfiler.start();
+
+		try {
+			consumer.accept(event);
+
+		} finally {
+			TickProfiler.stop(Subsystem.PACKET, profileStart);
+		}
+	}
+
 	// ------------------------------------------------------------------------------------------------------------
 	// Sending
 	// ------------------------------------------------------------------------------------------------------------
@@ -124,7 +140,7 @@ public abstract class PacketListener {
 			public void onPacketSending(final PacketEvent event) {
 
 				if (event.getPlayer() != null)
-					consumer.accept(event);
+					acceptProfiled(consumer, event);
 			}
 
 			@Override
@@ -221,6 +237,20 @@ public abstract class PacketListener {
 
 		@Override
 		public void onPacketSending(final PacketEvent event) {
+			final long profileStart = TickProfiler.start();
+
+			try {
+				this.handlePacketSending(event);
+
+			} finally {
+				TickProfiler.stop(Subsystem.PACKET, profileStart);
+			}
+		}
+
+		/*
+		 * Reads the chat packet, calls onMessage and writes the edited message back
+		 */
+		private void handlePacketSending(final PacketEvent event) {
 			if (event.getPlayer() == null)
 				return;
 
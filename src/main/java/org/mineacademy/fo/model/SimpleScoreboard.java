@@ -19,6 +19,8 @@ import org.mineacademy.fo.MinecraftVersion;
 import org.mineacademy.fo.MinecraftVersion.V;
 import org.mineacademy.fo.SerializeUtil;
 import org.mineacademy.fo.Valid;
+import org.mineacademy.fo.debug.TickProfiler;
+import org.mineacademy.fo.debug.TickProfiler.Subsystem;
 import org.mineacademy.fo.plugin.SimplePlugin;
 
 import lombok.Getter;
@@ -337,6 +339,8 @@ public class SimpleScoreboard {
 		Valid.checkBoolean(this.updateTask == null, "Scoreboard " + this + " already running");
 
 		this.updateTask = Bukkit.getScheduler().runTaskTimer(SimplePlugin.getInstance(), () -> {
+			final long profileStart = TickProfiler.start();
+
 			try {
 				this.onUpdate();
 
@@ -360,6 +364,9 @@ public class SimpleScoreboard {
 						"Stopping rendering for safety.");
 
 				this.stop();
+
+			} finally {
+				TickProfiler.stop(Subsystem.SCOREBOARD, profileStart);
 			}
 		}, 0, this.updateDelayTicks);
 	}
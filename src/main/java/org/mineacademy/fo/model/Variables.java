@@ -9,6 +9,8 @@ import org.mineacademy.fo.GeoAPI.GeoResponse;
 import org.mineacademy.fo.collection.StrictList;
 import org.mineacademy.fo.collection.StrictMap;
 import org.mineacademy.fo.collection.expiringmap.ExpiringMap;
+import org.mineacademy.fo.debug.TickProfiler;
+import org.mineacademy.fo.debug.TickProfiler.Subsystem;
 import org.mineacademy.fo.plugin.SimplePlugin;
 import org.mineacademy.fo.remain.Remain;
 import org.mineacademy.fo.settings.SimpleLocalization;
@@ -227,6 +229,20 @@ public final class Variables {
 	 * @return
 	 */
 	public static String replace(String message, CommandSender sender, Map<String, Object> replacements, boolean colorize, boolean replaceScript) {
+		final long profileStart = TickProfiler.start();
+
+		try {
+			return replace0(message, sender, replacements, colorize, replaceScript);
+
+		} finally {
+			TickProfiler.stop(Subsystem.VARIABLES, profileStart);
+		}
+	}
+
+	/*
+	 * Replaces variables in the message, see replace()
+	 */
+	private static String replace0(String message, CommandSender sender, Map<String, Object> replacements, boolean colorize, boolean replaceScript) {
 		if (message == null || message.isEmpty())
 			return "";
 
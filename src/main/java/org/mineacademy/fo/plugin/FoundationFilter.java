@@ -15,8 +15,12 @@ import org.bukkit.plugin.Plugin;
 import org.mineacademy.fo.Common;
 
 import java.io.PrintStream;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.logging.LogRecord;
 
 /**
@@ -55,72 +59,378 @@ final class FoundationFilter {
 		}
 	}
 
+	/**
+	 * Matched anywhere in the message
+	 */
+	private static final String[] BUILT_IN_CONTAINS = {
+
+			// Log4j2 exploit
+			"${jndi:ldap:",
+
+			// Disable some annoying hikaripool or discordsrv messages
+			"HikariPool-1 - Starting...",
+			"HikariPool-1 - Start completed.",
+			"[DiscordSRV] [JDA] Login Successful!",
+			"[DiscordSRV] [JDA] Connected to WebSocket"
+	};
+
+	/**
+	 * Filter a warning since we've already patched this with NashornPlus extension
+	 */
+	private static final String NASHORN_WARNING = "Warning: Nashorn engine is planned to be removed from a future JDK release";
+
+	/**
+	 * One less spammy message for server owners
+	 */
+	private static final String DEPEND_WARNING_SUFFIX = "which is not a depend, softdepend or loadbefore of this plugin.";
+
+	/**
+	 * Workaround for Spigot/Paper not removing [Not Secure] console misinformation
+	 */
+	private static final String NOT_SECURE_PREFIX = "[Not Secure] ";
+
+	/**
+	 * The automaton for our built-in messages, matched case-sensitive
+	 */
+	private static final FilterAutomaton BUILT_IN_FILTER = new FilterAutomaton(BUILT_IN_CONTAINS, NASHORN_WARNING, DEPEND_WARNING_SUFFIX);
+
+	/**
+	 * The automaton for inbuilt commands and user-defined filters, matched lowercase,
+	 * compiled in {@link #compile()}
+	 */
+	private static volatile FilterAutomaton userFilter = FilterAutomaton.EMPTY;
+
+	/**
+	 * Compile inbuilt commands and {@link SimplePlugin#getConsoleFilter()} into a single
+	 * automaton, called after the plugin has been enabled or reloaded
+	 */
+	static void compile() {
+		final List<String> filters = new ArrayList<>();
+
+		// Only filter this after plugin has been fully enabled
+		if (SimplePlugin.hasInstance() && SimplePlugin.getInstance().getMainCommand() != null) {
+
+			// Filter inbuilt Foundation or ChatControl commands
+			filters.add("issued server command: /" + SimplePlugin.getInstance().getMainCommand().getLabel().toLowerCase() + " internal");
+			filters.add("issued server command: /#flp");
+
+			// Filter user-defined commands
+			for (final String filter : SimplePlugin.getInstance().getConsoleFilter())
+				filters.add(filter.toLowerCase());
+		}
+
+		userFilter = new FilterAutomaton(filters.toArray(new String[filters.size()]), null, null);
+	}
+
 	/*
 	 * Return true if the message is filtered
+	 *
+	 * We strip colors and run both automatons in a single pass over the message
 	 */
 	static boolean isFiltered(String message) {
 		if (message == null || message.isEmpty())
 			return false;
 
-		// Replace & color codes
-		for (final ChatColor color : ChatColor.values()) {
-			message = message.replace("&" + color.getChar(), "");
-			message = message.replace(color.toString(), "");
-		}
+		final FilterAutomaton userFilter = FoundationFilter.userFilter;
+		final boolean checkInsecure = SimplePlugin.hasInstance() && SimplePlugin.getInstance().filterInsecureChat();
 
-		// Log4j2 exploit
-		if (message.contains("${jndi:ldap:"))
-			return true;
+		final int length = message.length();
 
-		// Filter a warning since we've already patched this with NashornPlus extension
-		if (message.equals("Warning: Nashorn engine is planned to be removed from a future JDK release"))
-			return true;
+		int builtInState = 0;
+		int userState = 0;
+		int strippedLength = 0;
 
-		// One less spammy message for server owners
-		if (message.endsWith("which is not a depend, softdepend or loadbefore of this plugin."))
-			return true;
+		int equalsMatchedAt = -1;
+		int suffixMatchedAt = -1;
+		boolean userMatched = userFilter.matchesEverything();
+
+		// Index in NOT_SECURE_PREFIX we matched so far, -1 if not matching
+		int insecureIndex = checkInsecure ? 0 : -1;
+		boolean leadingWhitespace = true;
 
-		// Disable some annoying hikaripool or discordsrv messages
-		if (message.contains("HikariPool-1 - Starting...") || message.contains("HikariPool-1 - Start completed.")
-				|| message.contains("[DiscordSRV] [JDA] Login Successful!") || message.contains("[DiscordSRV] [JDA] Connected to WebSocket"))
+		for (int i = 0; i < length; i++) {
+			final char letter = message.charAt(i);
+
+			// Skip & and section sign color codes
+			if ((letter == '&' || letter == ChatColor.COLOR_CHAR) && i + 1 < length && isColorCode(message.charAt(i + 1))) {
+				i++;
+
+				continue;
+			}
+
+			strippedLength++;
+
+			builtInState = BUILT_IN_FILTER.next(builtInState, letter);
+			final int builtInMatch = BUILT_IN_FILTER.getMatch(builtInState);
+
+			if ((builtInMatch & FilterAutomaton.MATCH_CONTAINS) != 0)
+				return true;
+
+			if ((builtInMatch & FilterAutomaton.MATCH_EQUALS) != 0)
+				equalsMatchedAt = strippedLength;
+
+			if ((builtInMatch & FilterAutomaton.MATCH_SUFFIX) != 0)
+				suffixMatchedAt = strippedLength;
+
+			if (!userMatched) {
+				userState = userFilter.next(userState, Character.toLowerCase(letter));
+
+				if (userFilter.getMatch(userState) != 0)
+					userMatched = true;
+			}
+
+			if (insecureIndex != -1 && insecureIndex < NOT_SECURE_PREFIX.length()) {
+				if (leadingWhitespace && letter <= ' ')
+					continue;
+
+				leadingWhitespace = false;
+				insecureIndex = NOT_SECURE_PREFIX.charAt(insecureIndex) == letter ? insecureIndex + 1 : -1;
+			}
+		}
+
+		if (equalsMatchedAt == strippedLength && strippedLength == NASHORN_WARNING.length())
 			return true;
 
-		boolean hasInstance = SimplePlugin.hasInstance();
+		if (suffixMatchedAt == strippedLength)
+			return true;
 
-		// Workaround for Spigot/Paper not removing [Not Secure] console misinformation
-		// The only thing that is insecure is Microsoft itself from it not being able to read your messages
-		if (hasInstance && SimplePlugin.getInstance().filterInsecureChat() && message.trim().startsWith("[Not Secure] ")) {
-			message = message.replace("[Not Secure] ", "");
+		if (insecureIndex == NOT_SECURE_PREFIX.length()) {
+			final String stripped = stripColors(message).replace(NOT_SECURE_PREFIX, "");
 
 			// Color support
 			if (Bukkit.getConsoleSender() != null)
-				Bukkit.getConsoleSender().sendMessage(Common.colorize(message));
+				Bukkit.getConsoleSender().sendMessage(Common.colorize(stripped));
 			else
-				System.out.println(message);
+				System.out.println(stripped);
 
 			return true;
 		}
 
-		message = message.toLowerCase();
+		return userMatched;
+	}
 
-		// Only filter this after plugin has been fully enabled
-		if (hasInstance && SimplePlugin.getInstance().getMainCommand() != null) {
+	/*
+	 * Remove & and section sign color codes the same way {@link #isFiltered(String)} skips them
+	 */
+	private static String stripColors(String message) {
+		final StringBuilder stripped = new StringBuilder(message.length());
 
-			// Filter inbuilt Foundation or ChatControl commands
-			if (message.contains("issued server command: /" + SimplePlugin.getInstance().getMainCommand().getLabel() + " internal") || message.contains("issued server command: /#flp"))
-				return true;
+		for (int i = 0; i < message.length(); i++) {
+			final char letter = message.charAt(i);
 
-			// Filter user-defined commands
-			if (SimplePlugin.hasInstance())
-				for (String filter : SimplePlugin.getInstance().getConsoleFilter()) {
-					filter = filter.toLowerCase();
+			if ((letter == '&' || letter == ChatColor.COLOR_CHAR) && i + 1 < message.length() && isColorCode(message.charAt(i + 1)))
+				i++;
+			else
+				stripped.append(letter);
+		}
+
+		return stripped.toString();
+	}
+
+	/*
+	 * Return true if the letter is a lowercase color or decoration code
+	 */
+	private static boolean isColorCode(char letter) {
+		return (letter >= '0' && letter <= '9') || (letter >= 'a' && letter <= 'f') || (letter >= 'k' && letter <= 'o') || letter == 'r';
+	}
+}
 
-					if (message.startsWith(filter) || message.contains(filter))
-						return true;
+/**
+ * A precompiled Aho-Corasick automaton finding many patterns in a single pass
+ */
+final class FilterAutomaton {
+
+	/**
+	 * An automaton matching nothing
+	 */
+	static final FilterAutomaton EMPTY = new FilterAutomaton(new String[0], null, null);
+
+	/**
+	 * The state matched a pattern anywhere in the message
+	 */
+	static final int MATCH_CONTAINS = 1;
+
+	/**
+	 * The state matched the pattern the entire message must equal
+	 */
+	static final int MATCH_EQUALS = 2;
+
+	/**
+	 * The state matched the pattern the message must end with
+	 */
+	static final int MATCH_SUFFIX = 4;
+
+	/**
+	 * Maps characters to their column in {@link #transitions}, 0 for characters not in any pattern
+	 */
+	private final Map<Character, Integer> alphabet = new HashMap<>();
+
+	/**
+	 * Same as {@link #alphabet}, but as an array for ASCII characters
+	 */
+	private final int[] asciiAlphabet = new int[128];
+
+	/**
+	 * State - Column - Next state
+	 */
+	private final int[][] transitions;
+
+	/**
+	 * The match flags for each state
+	 */
+	private final int[] matches;
+
+	/**
+	 * True if an empty pattern was given, matching every message
+	 */
+	private final boolean matchesEverything;
+
+	/**
+	 * Compile the given patterns
+	 *
+	 * @param contains patterns to find anywhere in the message
+	 * @param equals the pattern the message may equal, or null
+	 * @param suffix the pattern the message may end with, or null
+	 */
+	FilterAutomaton(String[] contains, String equals, String suffix) {
+		final List<String> patterns = new ArrayList<>();
+		final List<Integer> flags = new ArrayList<>();
+		boolean matchesEverything = false;
+
+		for (final String pattern : contains)
+			if (pattern.isEmpty())
+				matchesEverything = true;
+			else {
+				patterns.add(pattern);
+				flags.add(MATCH_CONTAINS);
+			}
+
+		if (equals != null) {
+			patterns.add(equals);
+			flags.add(MATCH_EQUALS);
+		}
+
+		if (suffix != null) {
+			patterns.add(suffix);
+			flags.add(MATCH_SUFFIX);
+		}
+
+		this.matchesEverything = matchesEverything;
+
+		// Assign columns to characters
+		for (final String pattern : patterns)
+			for (final char letter : pattern.toCharArray())
+				if (!this.alphabet.containsKey(letter)) {
+					final int column = this.alphabet.size() + 1;
+
+					this.alphabet.put(letter, column);
+
+					if (letter < 128)
+						this.asciiAlphabet[letter] = column;
+				}
+
+		final int columns = this.alphabet.size() + 1;
+
+		// Build the trie
+		final List<int[]> trie = new ArrayList<>();
+		final List<Integer> matches = new ArrayList<>();
+
+		trie.add(new int[columns]);
+		matches.add(0);
+
+		for (int i = 0; i < patterns.size(); i++) {
+			int state = 0;
+
+			for (final char letter : patterns.get(i).toCharArray()) {
+				final int column = this.alphabet.get(letter);
+
+				if (trie.get(state)[column] == 0) {
+					trie.get(state)[column] = trie.size();
+
+					trie.add(new int[columns]);
+					matches.add(0);
 				}
+
+				state = trie.get(state)[column];
+			}
+
+			matches.set(state, matches.get(state) | flags.get(i));
 		}
 
-		return false;
+		// Turn the trie into a deterministic automaton using failure links, breadth first
+		this.transitions = trie.toArray(new int[trie.size()][]);
+		this.matches = new int[matches.size()];
+
+		for (int i = 0; i < this.matches.length; i++)
+			this.matches[i] = matches.get(i);
+
+		final int[] failure = new int[this.transitions.length];
+		final Deque<Integer> queue = new ArrayDeque<>();
+
+		for (int column = 1; column < columns; column++)
+			if (this.transitions[0][column] != 0)
+				queue.add(this.transitions[0][column]);
+
+		while (!queue.isEmpty()) {
+			final int state = queue.poll();
+
+			// A state also matches everything its longest proper suffix matches
+			this.matches[state] |= this.matches[failure[state]];
+
+			for (int column = 1; column < columns; column++) {
+				final int child = this.transitions[state][column];
+
+				if (child != 0) {
+					failure[child] = this.transitions[failure[state]][column];
+
+					queue.add(child);
+
+				} else
+					this.transitions[state][column] = this.transitions[failure[state]][column];
+			}
+		}
+	}
+
+	/**
+	 * Return the state after reading the given character
+	 *
+	 * @param state
+	 * @param letter
+	 * @return
+	 */
+	int next(int state, char letter) {
+		final int column;
+
+		if (letter < 128)
+			column = this.asciiAlphabet[letter];
+
+		else {
+			final Integer found = this.alphabet.get(letter);
+
+			column = found != null ? found : 0;
+		}
+
+		// Characters in no pattern always lead back to the start
+		return column == 0 ? 0 : this.transitions[state][column];
+	}
+
+	/**
+	 * Return the match flags for the given state
+	 *
+	 * @param state
+	 * @return
+	 */
+	int getMatch(int state) {
+		return this.matches[state];
+	}
+
+	/**
+	 * Return true if an empty pattern was compiled, matching every message
+	 *
+	 * @return
+	 */
+	boolean matchesEverything() {
+		return this.matchesEverything;
 	}
 }
 
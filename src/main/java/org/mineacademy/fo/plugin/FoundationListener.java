@@ -17,7 +17,6 @@ import org.mineacademy.fo.model.*;
 import org.mineacademy.fo.settings.SimpleLocalization;
 
 import java.util.List;
-import java.util.Map;
 
 /**
  * Listens for some events we handle for you automatically
@@ -83,12 +82,9 @@ final class FoundationListener implements Listener {
 		}
 
 		final ChatPaginator chatPages = (ChatPaginator) player.getMetadata(nbtPageTag).get(0).value();
-		final Map<Integer, List<SimpleComponent>> pages = chatPages.getPages();
+		final int pageCount = chatPages.getPageCount();
 
-		// Remove empty lines
-		pages.entrySet().removeIf(entry -> entry.getValue().isEmpty());
-
-		if (!pages.containsKey(page)) {
+		if (page < 0 || page >= pageCount) {
 			final String playerMessage = SimpleLocalization.Pages.NO_PAGE;
 
 			if (Messenger.ENABLED)
@@ -104,7 +100,7 @@ final class FoundationListener implements Listener {
 			for (final SimpleComponent component : chatPages.getHeader())
 				component.send(player);
 
-			final List<SimpleComponent> messagesOnPage = pages.get(page);
+			final List<SimpleComponent> messagesOnPage = chatPages.getPage(page);
 			int count = 1;
 
 			for (final SimpleComponent comp : messagesOnPage)
@@ -112,7 +108,7 @@ final class FoundationListener implements Listener {
 
 			int whiteLines = chatPages.getLinesPerPage();
 
-			if (whiteLines == 15 && pages.size() == 1)
+			if (whiteLines == 15 && pageCount == 1)
 				if (messagesOnPage.size() < 17)
 					whiteLines = 7;
 				else
@@ -126,10 +122,10 @@ final class FoundationListener implements Listener {
 		}
 
 		// Fill in the pagination line
-		if (MinecraftVersion.atLeast(V.v1_7) && pages.size() > 1) {
+		if (MinecraftVersion.atLeast(V.v1_7) && pageCount > 1) {
 			Common.tellNoPrefix(player, " ");
 
-			final int pagesDigits = (int) (Math.log10(pages.size()) + 1);
+			final int pagesDigits = (int) (Math.log10(pageCount) + 1);
 			final int multiply = 23 - (int) MathUtil.ceiling(pagesDigits);
 
 			final SimpleComponent pagination = SimpleComponent.of(chatPages.getThemeColor() + "&m" + Common.duplicate("-", multiply) + "&r");
@@ -141,9 +137,9 @@ final class FoundationListener implements Listener {
 
 			pagination.append("&f" + (page + 1)).onHover(SimpleLocalization.Pages.GO_TO_FIRST_PAGE).onClickRunCmd("/#flp 1");
 			pagination.append("/");
-			pagination.append(pages.size() + "").onHover(SimpleLocalization.Pages.TOOLTIP);
+			pagination.append(pageCount + "").onHover(SimpleLocalization.Pages.TOOLTIP);
 
-			if (page + 1 >= pages.size())
+			if (page + 1 >= pageCount)
 				pagination.append(" &7» ");
 			else
 				pagination.append(" &6» ").onHover(SimpleLocalization.Pages.GO_TO_PAGE.replace("{page}", String.valueOf(page + 2))).onClickRunCmd("/#flp " + (page + 2));
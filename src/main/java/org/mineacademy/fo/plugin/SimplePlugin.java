@@ -30,6 +30,8 @@ import org.mineacademy.fo.command.SimpleCommand;
 import org.mineacademy.fo.command.SimpleCommandGroup;
 import org.mineacademy.fo.command.SimpleSubCommand;
 import org.mineacademy.fo.debug.Debugger;
+import org.mineacademy.fo.debug.ErrorLogWriter;
+import org.mineacademy.fo.debug.TickProfiler;
 import org.mineacademy.fo.event.SimpleListener;
 import org.mineacademy.fo.exception.FoException;
 import org.mineacademy.fo.menu.AdvancedMenu;
@@ -313,6 +315,9 @@ public abstract class SimplePlugin extends JavaPlugin implements Listener {
 			if (!this.isEnabled())
 				return;
 
+			// Compile console filters now that settings and the main command are loaded
+			FoundationFilter.compile();
+
 			// Start update check
 			if (this.getUpdateCheck() != null)
 				this.getUpdateCheck().run();
@@ -675,6 +680,12 @@ public abstract class SimplePlugin extends JavaPlugin implements Listener {
 
 		this.unregisterReloadables();
 
+		// Write configurations still waiting to be saved
+		ConfigWriter.shutdown();
+
+		// Write errors still waiting in the buffer
+		ErrorLogWriter.shutdown();
+
 		try {
 			for (final Player online : Remain.getOnlinePlayers())
 				SimpleScoreboard.clearBoardsFor(online);
@@ -826,6 +837,8 @@ public abstract class SimplePlugin extends JavaPlugin implements Listener {
 
 			this.startingReloadables = false;
 
+			FoundationFilter.compile();
+
 			if (HookManager.isDiscordSRVLoaded()) {
 				DiscordListener.DiscordListenerImpl.getInstance().resubscribe();
 
@@ -870,6 +883,7 @@ public abstract class SimplePlugin extends JavaPlugin implements Listener {
 		this.getServer().getMessenger().unregisterIncomingPluginChannel(this);
 		this.getServer().getMessenger().unregisterOutgoingPluginChannel(this);
 
+		TickProfiler.disable();
 		Common.cancelTasks();
 
 		this.mainCommand = null;
@@ -1114,7 +1128,7 @@ public abstract class SimplePlugin extends JavaPlugin implements Listener {
 	 * messages from other plugins or the server itself, preventing unnecessary console spam.
 	 *
 	 * You can return a list of messages that will be matched using "startsWith OR contains" method
-	 * and will be filtered.
+	 * and will be filtered. The list is compiled once when the plugin is enabled or reloaded.
 	 *
 	 * @return
 	 */
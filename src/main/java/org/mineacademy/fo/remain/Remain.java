@@ -2,6 +2,9 @@ package org.mineacademy.fo.remain;
 
 import com.google.gson.Gson;
 import com.google.gson.JsonObject;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
 import net.md_5.bungee.api.ChatMessageType;
 import net.md_5.bungee.api.chat.BaseComponent;
 import net.md_5.bungee.api.chat.TextComponent;
@@ -36,6 +39,7 @@ import org.mineacademy.fo.MinecraftVersion.V;
 import org.mineacademy.fo.ReflectionUtil.ReflectionException;
 import org.mineacademy.fo.collection.SerializedMap;
 import org.mineacademy.fo.collection.StrictMap;
+import org.mineacademy.fo.collection.expiringmap.ExpiringMap;
 import org.mineacademy.fo.exception.FoException;
 import org.mineacademy.fo.model.UUIDToNameConverter;
 import org.mineacademy.fo.plugin.SimplePlugin;
@@ -49,6 +53,7 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
 import java.util.*;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.regex.Matcher;
@@ -75,6 +80,21 @@ public final class Remain {
 	 */
 	private final static Gson gson = new Gson();
 
+	/**
+	 * The maximum amount of messages we remember the legacy/json conversion for
+	 */
+	private static final int CHAT_CONVERSION_CACHE_SIZE = 2_000;
+
+	/**
+	 * Recently converted json messages to their legacy form, see {@link #toLegacyText(String, boolean)}
+	 */
+	private static final Map<String, LegacyConversion> legacyTextCache = ExpiringMap.builder().maxSize(CHAT_CONVERSION_CACHE_SIZE).expiration(10, TimeUnit.MINUTES).build();
+
+	/**
+	 * Recently converted legacy messages to their json form, see {@link #toJson(String)}
+	 */
+	private static final Map<String, String> jsonCache = ExpiringMap.builder().maxSize(CHAT_CONVERSION_CACHE_SIZE).expiration(10, TimeUnit.MINUTES).build();
+
 	// ----------------------------------------------------------------------------------------------------
 	// Methods below
 	// ----------------------------------------------------------------------------------------------------
@@ -797,28 +817,46 @@ public final class Remain {
 	 */
 	public static String toLegacyText(final String json, final boolean denyEvents) throws InteractiveTextFoundException {
 		Valid.checkBoolean(bungeeApiPresent, "(Un)packing chat requires Spigot 1.7.10 or newer");
-		final StringBuilder text = new StringBuilder();
 
 		// Translate options does not want to work well with ChatControl
 		if (json.contains("\"translate\""))
-			return text.append("").toString();
+			return "";
+
+		LegacyConversion conversion = legacyTextCache.get(json);
+
+		if (conversion == null) {
+			conversion = convertToLegacy(json);
+
+			legacyTextCache.put(json, conversion);
+		}
+
+		if (conversion.isInteractive() && denyEvents)
+			throw new InteractiveTextFoundException();
+
+		return conversion.getText();
+	}
+
+	/*
+	 * Converts the json into legacy text, remembering if it had click/hover events
+	 * so that we can cache the result regardless of whether events are denied
+	 */
+	private static LegacyConversion convertToLegacy(final String json) {
+		final StringBuilder text = new StringBuilder();
+		boolean interactive = false;
 
 		try {
 			for (final BaseComponent comp : ComponentSerializer.parse(json)) {
-				if ((comp.getHoverEvent() != null || comp.getClickEvent() != null) && denyEvents)
-					throw new InteractiveTextFoundException();
+				if (comp.getHoverEvent() != null || comp.getClickEvent() != null)
+					interactive = true;
 
 				text.append(comp.toLegacyText());
 			}
 
 		} catch (final Throwable throwable) {
-
-			// Do not catch our own exception
-			if (throwable instanceof InteractiveTextFoundException)
-				throw throwable;
+			// Malformed json, return what we got so far
 		}
 
-		return text.toString();
+		return new LegacyConversion(text.toString(), interactive);
 	}
 
 	/**
@@ -850,7 +888,163 @@ public final class Remain {
 	public static String toJson(final String message) {
 		Valid.checkBoolean(bungeeApiPresent, "(Un)packing chat requires Spigot 1.7.10 or newer");
 
-		return toJson(TextComponent.fromLegacyText(message));
+		String json = jsonCache.get(message);
+
+		if (json == null) {
+			json = legacyToJsonDirect(message);
+
+			if (json == null)
+				json = toJson(TextComponent.fromLegacyText(message));
+
+			jsonCache.put(message, json);
+		}
+
+		return json;
+	}
+
+	/*
+	 * Converts plain text with legacy colors to json directly without building components,
+	 * producing the same styling as {@link TextComponent#fromLegacyText(String)}.
+	 *
+	 * Returns null for messages we leave up to BungeeCord, i.e. those with links
+	 * (which BungeeCord makes clickable) or with malformed color codes.
+	 */
+	private static String legacyToJsonDirect(final String message) {
+		if (message.isEmpty())
+			return null;
+
+		final int length = message.length();
+		final StringBuilder json = new StringBuilder(length + 32).append("{\"extra\":[");
+		final StringBuilder text = new StringBuilder();
+
+		String color = "white";
+		String hexColor = null;
+		boolean bold = false, italic = false, underlined = false, strikethrough = false, obfuscated = false;
+		boolean first = true;
+
+		for (int i = 0; i < length; i++) {
+			final char c = message.charAt(i);
+
+			if (c == '.' && i + 1 < length && Character.isLetter(message.charAt(i + 1)))
+				return null; // Possibly a link
+
+			if (c != ChatColor.COLOR_CHAR) {
+				text.append(c);
+
+				continue;
+			}
+
+			if (i + 1 >= length)
+				return null;
+
+			final char code = Character.toLowerCase(message.charAt(++i));
+			String newColor = null;
+			String newHex = null;
+
+			if (code == 'x') {
+				if (i + 12 >= length)
+					return null;
+
+				final StringBuilder hex = new StringBuilder("#");
+
+				for (int j = 0; j < 6; j++) {
+					final char hexDigit = Character.toLowerCase(message.charAt(i + 2 + j * 2));
+
+					if (message.charAt(i + 1 + j * 2) != ChatColor.COLOR_CHAR || Character.digit(hexDigit, 16) == -1)
+						return null;
+
+					hex.append(hexDigit);
+				}
+
+				i += 12;
+				newHex = hex.toString();
+
+			} else {
+				final ChatColor chatColor = ChatColor.getByChar(code);
+
+				if (chatColor == null)
+					return null;
+
+				if (chatColor == ChatColor.RESET)
+					newColor = "white";
+
+				else if (chatColor.isColor())
+					newColor = chatColor.name().toLowerCase();
+			}
+
+			// Flush the text written so far with its style
+			if (text.length() > 0) {
+				appendJsonComponent(json, first, text, hexColor != null ? hexColor : color, bold, italic, underlined, strikethrough, obfuscated);
+
+				first = false;
+				text.setLength(0);
+			}
+
+			if (newColor != null || newHex != null) {
+				color = newColor != null ? newColor : color;
+				hexColor = newHex;
+				bold = italic = underlined = strikethrough = obfuscated = false;
+
+			} else if (code == 'l')
+				bold = true;
+			else if (code == 'o')
+				italic = true;
+			else if (code == 'n')
+				underlined = true;
+			else if (code == 'm')
+				strikethrough = true;
+			else if (code == 'k')
+				obfuscated = true;
+		}
+
+		if (text.length() > 0 || first)
+			appendJsonComponent(json, first, text, hexColor != null ? hexColor : color, bold, italic, underlined, strikethrough, obfuscated);
+
+		return json.append("],\"text\":\"\"}").toString();
+	}
+
+	/*
+	 * Appends a single text component in json format to the builder
+	 */
+	private static void appendJsonComponent(final StringBuilder json, final boolean first, final CharSequence text, final String color,
+			final boolean bold, final boolean italic, final boolean underlined, final boolean strikethrough, final boolean obfuscated) {
+
+		if (!first)
+			json.append(',');
+
+		json.append("{");
+
+		if (bold)
+			json.append("\"bold\":true,");
+
+		if (italic)
+			json.append("\"italic\":true,");
+
+		if (underlined)
+			json.append("\"underlined\":true,");
+
+		if (strikethrough)
+			json.append("\"strikethrough\":true,");
+
+		if (obfuscated)
+			json.append("\"obfuscated\":true,");
+
+		json.append("\"color\":\"").append(color).append("\",\"text\":\"");
+
+		for (int i = 0; i < text.length(); i++) {
+			final char c = text.charAt(i);
+
+			if (c == '"' || c == '\\')
+				json.append('\\').append(c);
+
+			else if (c < ' ')
+				json.append(String.format("\\u%04x", (int) c));
+
+			else
+				json.append(c);
+		}
+
+		json.append("\"}");
 	}
 
 	/**
@@ -3098,6 +3292,24 @@ public final class Remain {
 
 	// ------------------------ Utility ------------------------
 
+	/*
+	 * Holds the cached result of converting json into legacy text
+	 */
+	@Getter
+	@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+	private static final class LegacyConversion {
+
+		/**
+		 * The legacy text
+		 */
+		private final String text;
+
+		/**
+		 * Did the json have click or hover events?
+		 */
+		private final boolean interactive;
+	}
+
 	/**
 	 * Thrown when message contains hover or click events which would otherwise got
 	 * removed.
@@ -1,8 +1,13 @@
 package org.mineacademy.fo.settings;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
 
 import org.mineacademy.fo.Valid;
@@ -18,10 +23,17 @@ public class ConfigSection {
 
 	/**
 	 * The data map holding keys and values of this config section. A
-	 * value can be another config section.
+	 * value can be another config section. Change it through {@link #put(String, Object)}
+	 * and {@link #remove(String)} so that the index stays up to date.
 	 */
 	final Map<String, Object> map = new LinkedHashMap<>();
 
+	/**
+	 * All values in the configuration by their full path so that we can look them up
+	 * without walking the sections, only the root section has it.
+	 */
+	private final Map<String, Object> index;
+
 	/**
 	 * The root of this configuration
 	 */
@@ -42,11 +54,28 @@ public class ConfigSection {
 	 */
 	private final String fullPath;
 
+	/**
+	 * True if this section or any of its children changed since we last saved it.
+	 * A dirty child always has a dirty parent, so clean sections can be skipped.
+	 */
+	private boolean dirty;
+
+	/**
+	 * True if this section was removed or replaced in its configuration and is no longer indexed
+	 */
+	private boolean detached;
+
+	/**
+	 * How many times values were put or removed in this configuration, only used on the root section
+	 */
+	private int modifications;
+
 	ConfigSection() {
 		this.path = "";
 		this.fullPath = "";
 		this.parent = null;
 		this.root = this;
+		this.index = new HashMap<>();
 	}
 
 	ConfigSection(@NonNull ConfigSection parent, @NonNull String path) {
@@ -54,6 +83,8 @@ public class ConfigSection {
 		this.parent = parent;
 		this.root = parent.root;
 		this.fullPath = createPath(parent, path);
+		this.index = null;
+		this.detached = parent.detached;
 	}
 
 	// ------------------------------------------------------------------------------------
@@ -103,6 +134,14 @@ public class ConfigSection {
 	 * Clears all keys in this config section
 	 */
 	public final void clear() {
+		if (!this.map.isEmpty()) {
+			this.root.modifications++;
+			this.markDirty();
+		}
+
+		for (final Map.Entry<String, Object> entry : this.map.entrySet())
+			this.unindex(this.createChildPath(entry.getKey()), entry.getValue());
+
 		this.map.clear();
 	}
 
@@ -150,14 +189,25 @@ public class ConfigSection {
 
 		final String key = path.substring(trailingIndex);
 		if (section == this) {
-			if (value == null)
-				this.map.remove(key);
-			else
-				this.map.put(key, value);
+			final Object previous = value == null ? this.remove(key) : this.put(key, value);
+
+			if (!isUnchanged(previous, value))
+				this.markDirty();
 		} else
 			section.store(key, value);
 	}
 
+	/*
+	 * Return true if storing the value over the previous one changes nothing,
+	 * the same list or map could have been edited in place so it counts as a change
+	 */
+	private static boolean isUnchanged(Object previous, Object value) {
+		if (previous == value)
+			return !(value instanceof Collection || value instanceof Map);
+
+		return Objects.equals(previous, value);
+	}
+
 	/**
 	 * Gets a key (or null if not set) at the given path
 	 *
@@ -172,26 +222,23 @@ public class ConfigSection {
 		if (this.root == null)
 			throw new IllegalStateException("Cannot access section without a root");
 
-		int leadingIndex = -1, trailingIndex;
-		ConfigSection section = this;
-		while ((leadingIndex = path.indexOf('.', trailingIndex = leadingIndex + 1)) != -1) {
-			final String currentPath = path.substring(trailingIndex, leadingIndex);
+		// Sections removed from the configuration are no longer indexed, walk them instead
+		if (this.detached) {
+			int leadingIndex = -1, trailingIndex;
+			ConfigSection section = this;
+			while ((leadingIndex = path.indexOf('.', trailingIndex = leadingIndex + 1)) != -1) {
+				final Object value = section.map.get(path.substring(trailingIndex, leadingIndex));
 
-			if (section.retrieve(currentPath) == null)
-				return null;
+				if (!(value instanceof ConfigSection))
+					return null;
 
-			section = section.retrieveConfigurationSection(currentPath);
+				section = (ConfigSection) value;
+			}
 
-			if (section == null)
-				return null;
+			return section.map.get(path.substring(trailingIndex));
 		}
 
-		final String key = path.substring(trailingIndex);
-
-		if (section == this)
-			return this.map.get(key);
-
-		return section.retrieve(key);
+		return this.root.index.get(this.createChildPath(path));
 	}
 
 	/**
@@ -234,12 +281,197 @@ public class ConfigSection {
 		final String key = path.substring(trailingIndex);
 		if (section == this) {
 			final ConfigSection result = new ConfigSection(this, key);
-			this.map.put(key, result);
+			this.put(key, result);
+			this.markDirty();
 			return result;
 		}
 		return section.createSection(key);
 	}
 
+	/*
+	 * Return how many times values were put or removed anywhere in this configuration
+	 */
+	final int getModifications() {
+		return this.root.modifications;
+	}
+
+	/*
+	 * Return true if this section or any of its children changed since we last saved it
+	 */
+	final boolean isDirty() {
+		return this.dirty;
+	}
+
+	/*
+	 * Mark this section and all of its parents as changed
+	 */
+	final void markDirty() {
+		for (ConfigSection section = this; section != null && !section.dirty; section = section.parent)
+			section.dirty = true;
+	}
+
+	/*
+	 * Mark this section and its children as saved, clean children are skipped
+	 */
+	final void clearDirty() {
+		if (!this.dirty)
+			return;
+
+		this.dirty = false;
+
+		for (final Object value : this.map.values())
+			if (value instanceof ConfigSection)
+				((ConfigSection) value).clearDirty();
+	}
+
+	/*
+	 * Return a deep copy of this section which is safe to read on another thread
+	 */
+	final ConfigSection copy() {
+		final ConfigSection copy = new ConfigSection();
+
+		this.copyTo(copy);
+		return copy;
+	}
+
+	/*
+	 * Copy values of this section into the given one, copying child sections, lists and maps
+	 */
+	private void copyTo(ConfigSection target) {
+		for (final Map.Entry<String, Object> entry : this.map.entrySet()) {
+			final Object value = entry.getValue();
+
+			if (value instanceof ConfigSection) {
+				final ConfigSection child = new ConfigSection(target, entry.getKey());
+
+				target.put(entry.getKey(), child);
+				((ConfigSection) value).copyTo(child);
+
+			} else
+				target.put(entry.getKey(), copyValue(value));
+		}
+	}
+
+	/*
+	 * Copy lists and maps so that changing the original does not change the copy
+	 */
+	private static Object copyValue(Object value) {
+		if (value instanceof List) {
+			final List<Object> copy = new ArrayList<>();
+
+			for (final Object element : (List<?>) value)
+				copy.add(copyValue(element));
+
+			return copy;
+		}
+
+		if (value instanceof Map) {
+			final Map<Object, Object> copy = new LinkedHashMap<>();
+
+			for (final Map.Entry<?, ?> entry : ((Map<?, ?>) value).entrySet())
+				copy.put(entry.getKey(), copyValue(entry.getValue()));
+
+			return copy;
+		}
+
+		return value;
+	}
+
+	/*
+	 * Put the value to this section and index it, returning the previous value
+	 */
+	private Object put(String key, Object value) {
+
+		// A section moved here from elsewhere or from another configuration still has
+		// its old path, copy it into a new child section so that it is indexed where it is now
+		if (value instanceof ConfigSection && !this.isChildAt((ConfigSection) value, key)) {
+			ConfigSection source = (ConfigSection) value;
+
+			// Copying a section into itself would copy what we are adding
+			for (ConfigSection section = this; section != null; section = section.parent)
+				if (section == source) {
+					source = source.copy();
+
+					break;
+				}
+
+			final ConfigSection child = new ConfigSection(this, key);
+			final Object previous = this.put(key, child);
+
+			source.copyTo(child);
+			return previous;
+		}
+
+		final Object previous = this.map.put(key, value);
+
+		if (previous == value)
+			return previous;
+
+		this.root.modifications++;
+
+		final String childPath = this.createChildPath(key);
+
+		if (previous instanceof ConfigSection)
+			this.unindex(childPath, previous);
+
+		if (!this.detached)
+			this.root.index.put(childPath, value);
+
+		return previous;
+	}
+
+	/*
+	 * Return true if the section was created as the child of this section at the given key
+	 * and is still attached to it, so its path and indexing are right
+	 */
+	private boolean isChildAt(ConfigSection section, String key) {
+		return section.parent == this && section.path.equals(key) && section.detached == this.detached;
+	}
+
+	/*
+	 * Remove the value from this section and the index, returning it
+	 */
+	private Object remove(String key) {
+		final Object previous = this.map.remove(key);
+
+		if (previous != null) {
+			this.root.modifications++;
+			this.unindex(this.createChildPath(key), previous);
+		}
+
+		return previous;
+	}
+
+	/*
+	 * Remove the value at the full path from the index, for sections along with all
+	 * of their values, and mark the sections as detached
+	 */
+	private void unindex(String fullPath, Object value) {
+
+		// Nothing below a detached section is indexed
+		if (this.detached)
+			return;
+
+		this.root.index.remove(fullPath);
+
+		if (value instanceof ConfigSection) {
+			final ConfigSection section = (ConfigSection) value;
+
+			for (final Map.Entry<String, Object> entry : section.map.entrySet())
+				this.unindex(fullPath + "." + entry.getKey(), entry.getValue());
+
+			if (section.root == this.root)
+				section.detached = true;
+		}
+	}
+
+	/*
+	 * Return the full path of the given path relative to this section
+	 */
+	private String createChildPath(String path) {
+		return this.fullPath.isEmpty() ? path : this.fullPath + "." + path;
+	}
+
 	/*
 	 * Helper to map children keys to the given output
 	 */
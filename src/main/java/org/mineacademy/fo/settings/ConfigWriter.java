@@ -0,0 +1,305 @@
+package org.mineacademy.fo.settings;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.mineacademy.fo.Common;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+/**
+ * Writes saved configurations to disk on a background thread.
+ *
+ * The caller snapshots the configuration and we render and write it later,
+ * so that saving the same file many times in a row only writes it once.
+ * Files are written to a temporary file first and then moved over the old one,
+ * so a crash while writing never leaves a half written configuration behind.
+ * Content identical to what is already on the disk is not written at all.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public final class ConfigWriter {
+
+	/**
+	 * How long we wait for more saves of the same file before writing it
+	 */
+	private static final long DEBOUNCE_MILLIS = 500;
+
+	/**
+	 * Renders waiting to be written, by absolute file path
+	 */
+	private static final Map<String, PendingWrite> pendingWrites = new LinkedHashMap<>();
+
+	/**
+	 * The path we are writing right now, or null
+	 */
+	private static String writingPath;
+
+	/**
+	 * The background writer, started on first save
+	 */
+	private static ScheduledExecutorService writer;
+
+	/**
+	 * Guards writing files so that flushing waits for a write in progress
+	 */
+	private static final Object fileLock = new Object();
+
+	/**
+	 * What we last wrote to each file by absolute path, guarded by {@link #fileLock}
+	 */
+	private static final Map<String, WrittenFile> writtenFiles = new HashMap<>();
+
+	/**
+	 * Queue the file to be written, replacing what was queued for it before
+	 *
+	 * @param file
+	 * @param task
+	 */
+	static synchronized void submit(File file, RenderTask task) {
+		final String path = file.getAbsolutePath();
+		final PendingWrite previous = pendingWrites.put(path, new PendingWrite(file, task));
+
+		// Already scheduled, the write will pick up the newest render
+		if (previous != null)
+			return;
+
+		if (writer == null) {
+			writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+				final Thread thread = new Thread(runnable, "Foundation Config Writer");
+				thread.setDaemon(true);
+
+				return thread;
+			});
+		}
+
+		writer.schedule(() -> flush(file), DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Render and write the file now, dropping what was queued for it
+	 *
+	 * @param file
+	 * @param task
+	 */
+	static void write(File file, RenderTask task) {
+		synchronized (fileLock) {
+			synchronized (ConfigWriter.class) {
+				pendingWrites.remove(file.getAbsolutePath());
+			}
+
+			write(new PendingWrite(file, task));
+		}
+	}
+
+	/**
+	 * Write the file now if it is queued or being written, returning once it is on the disk
+	 *
+	 * @param file
+	 */
+	public static void flush(File file) {
+		final String path = file.getAbsolutePath();
+
+		synchronized (ConfigWriter.class) {
+			if (!pendingWrites.containsKey(path) && !path.equals(writingPath))
+				return;
+		}
+
+		synchronized (fileLock) {
+			final PendingWrite pending;
+
+			synchronized (ConfigWriter.class) {
+				pending = pendingWrites.remove(path);
+
+				if (pending != null)
+					writingPath = path;
+			}
+
+			try {
+				if (pending != null)
+					write(pending);
+
+			} finally {
+				synchronized (ConfigWriter.class) {
+					writingPath = null;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Write all queued files now
+	 */
+	public static void flush() {
+		final List<File> files = new ArrayList<>();
+
+		synchronized (ConfigWriter.class) {
+			for (final PendingWrite pending : pendingWrites.values())
+				files.add(pending.file);
+		}
+
+		for (final File file : files)
+			flush(file);
+	}
+
+	/**
+	 * Write all queued files and stop the background writer, called when the plugin is disabled
+	 */
+	public static void shutdown() {
+		final ScheduledExecutorService writer;
+
+		synchronized (ConfigWriter.class) {
+			writer = ConfigWriter.writer;
+			ConfigWriter.writer = null;
+		}
+
+		// Never interrupt the writer, a file it is writing would be lost since it is no longer queued.
+		// Queued writes run within their short delay, we write whatever is left below
+		if (writer != null) {
+			writer.shutdown();
+
+			try {
+				writer.awaitTermination(5, TimeUnit.SECONDS);
+			} catch (final InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		flush();
+	}
+
+	/*
+	 * Render the file and replace it with the new content
+	 */
+	private static void write(PendingWrite pending) {
+		try {
+			final String data = pending.task.render();
+
+			if (data == null)
+				return;
+
+			final File file = pending.file;
+			final byte[] bytes = data.getBytes(StandardCharsets.UTF_8);
+			final byte[] hash = hash(bytes);
+
+			if (isOnDisk(file, bytes, hash))
+				return;
+
+			final File parent = file.getCanonicalFile().getParentFile();
+
+			if (parent != null)
+				parent.mkdirs();
+
+			final File temporary = new File(parent, file.getName() + ".tmp");
+
+			Files.write(temporary.toPath(), bytes);
+
+			try {
+				Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+			} catch (final AtomicMoveNotSupportedException ex) {
+				Files.move(temporary.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+
+			writtenFiles.put(file.getAbsolutePath(), new WrittenFile(hash, file.length(), file.lastModified()));
+
+		} catch (final IOException ex) {
+			Common.error(ex, "Error saving " + pending.file);
+
+		} catch (final Throwable t) {
+			Common.error(t, "Error rendering " + pending.file + " for saving");
+		}
+	}
+
+	/*
+	 * Return true if the file already has the given content. We trust the hash of what we
+	 * wrote last unless the file was changed since, in which case we compare its content.
+	 */
+	private static boolean isOnDisk(File file, byte[] bytes, byte[] hash) throws IOException {
+		if (!file.exists() || file.length() != bytes.length)
+			return false;
+
+		final String path = file.getAbsolutePath();
+		final WrittenFile written = writtenFiles.get(path);
+
+		if (written != null && written.length == file.length() && written.lastModified == file.lastModified())
+			return Arrays.equals(written.hash, hash);
+
+		if (!Arrays.equals(Files.readAllBytes(file.toPath()), bytes))
+			return false;
+
+		writtenFiles.put(path, new WrittenFile(hash, file.length(), file.lastModified()));
+		return true;
+	}
+
+	/*
+	 * Return the SHA-256 hash of the given content
+	 */
+	private static byte[] hash(byte[] bytes) {
+		try {
+			return MessageDigest.getInstance("SHA-256").digest(bytes);
+
+		} catch (final NoSuchAlgorithmException ex) {
+			throw new IllegalStateException("SHA-256 is not supported", ex);
+		}
+	}
+
+	/**
+	 * Renders the content of the file from a snapshot taken when it was saved
+	 */
+	interface RenderTask {
+
+		/**
+		 * Return the content to write, or null to leave the file as it is
+		 *
+		 * @return
+		 * @throws Exception
+		 */
+		String render() throws Exception;
+	}
+
+	/*
+	 * A file waiting to be written
+	 */
+	private static final class PendingWrite {
+
+		private final File file;
+		private final RenderTask task;
+
+		PendingWrite(File file, RenderTask task) {
+			this.file = file;
+			this.task = task;
+		}
+	}
+
+	/*
+	 * The hash of what we last wrote to a file and how the file looked after
+	 */
+	private static final class WrittenFile {
+
+		private final byte[] hash;
+		private final long length;
+		private final long lastModified;
+
+		WrittenFile(byte[] hash, long length, long lastModified) {
+			this.hash = hash;
+			this.length = length;
+			this.lastModified = lastModified;
+		}
+	}
+}
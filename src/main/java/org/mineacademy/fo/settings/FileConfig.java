@@ -30,6 +30,7 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 /**
@@ -116,6 +117,16 @@ public abstract class FileConfig {
 	 */
 	private boolean saving = false;
 
+	/*
+	 * Values converted by get() by their path and type, thrown away when the section changes
+	 */
+	private final Map<String, Map<Class<?>, Object>> convertedValues = new ConcurrentHashMap<>();
+
+	/*
+	 * How many times the section was modified when we cached the converted values
+	 */
+	private volatile int convertedModifications = -1;
+
 	protected FileConfig() {
 	}
 
@@ -198,6 +209,16 @@ public abstract class FileConfig {
 
 		if (raw != null) {
 
+			// Values deserialized with parameters depend on them, so we only cache those without
+			final boolean cache = deserializeParams.length == 0;
+
+			if (cache) {
+				final Object converted = this.getConverted(path, type);
+
+				if (converted != null)
+					return (T) converted;
+			}
+
 			// Workaround for empty lists
 			if (raw.equals("[]") && type == List.class){
 				raw = new ArrayList<>();
@@ -208,15 +229,74 @@ public abstract class FileConfig {
 				raw = ((Integer) raw).longValue();
 			}
 
+			final Object stored = raw;
+
 			raw = SerializeUtil.deserialize(this.mode, type, raw, deserializeParams);
 			this.checkAssignable(path, raw, type);
 
+			// We hand out the stored list or map itself, it can be changed without calling set
+			if (raw == stored && (raw instanceof Collection || raw instanceof Map)) {
+				this.section.markDirty();
+				this.convertedValues.clear();
+			}
+
+			if (cache && raw != stored)
+				this.putConverted(path, type, raw);
+
 			return (T) raw;
 		}
 
 		return def;
 	}
 
+	/*
+	 * Return a copy of the value we converted before at the given path, or null if none
+	 */
+	private Object getConverted(final String path, final Class<?> type) {
+		final int modifications = this.section.getModifications();
+
+		if (modifications != this.convertedModifications) {
+			this.convertedValues.clear();
+			this.convertedModifications = modifications;
+
+			return null;
+		}
+
+		final Map<Class<?>, Object> byType = this.convertedValues.get(path);
+		final Object converted = byType == null ? null : byType.get(type);
+
+		return converted == null ? null : copyConverted(converted);
+	}
+
+	/*
+	 * Remember a copy of the converted value if it is safe to share
+	 */
+	private void putConverted(final String path, final Class<?> type, final Object converted) {
+		final Object copy = copyConverted(converted);
+
+		if (copy != null && this.section.getModifications() == this.convertedModifications)
+			this.convertedValues.computeIfAbsent(path, key -> new ConcurrentHashMap<>()).put(type, copy);
+	}
+
+	/*
+	 * Return the value itself if it cannot be changed, a copy for locations and items,
+	 * or null for any other type we do not know to be safe to cache
+	 */
+	private static Object copyConverted(final Object value) {
+		if (value instanceof Location)
+			return ((Location) value).clone();
+
+		if (value instanceof ItemStack)
+			return ((ItemStack) value).clone();
+
+		if (value instanceof String || value instanceof Boolean || value instanceof Integer || value instanceof Long
+				|| value instanceof Double || value instanceof Float || value instanceof Enum || value instanceof UUID
+				|| value instanceof SimpleTime || value instanceof SimpleSound || value instanceof BoxedMessage)
+			return value;
+
+		return null;
+	}
+
 	/*
 	 * Attempts to copy a key at the given path from inbuilt JAR to the disk.
 	 */
@@ -1203,27 +1283,35 @@ public abstract class FileConfig {
 	 * Helper to load configuration from a file
 	 */
 	final void load(@NonNull File file) {
+
+		// Write the last save first so that we read what was saved
+		ConfigWriter.flush(file);
+
+		final String path = file.getAbsolutePath();
+		final boolean loadedBefore;
+		ConfigSection section;
+
 		synchronized (loadedSections) {
+			section = loadedSections.get(path);
+			loadedBefore = section != null;
+
+			if (section == null) {
+				section = new ConfigSection();
+
+				loadedSections.put(path, section);
+			}
+		}
+
+		// Configurations of the same file share the section, lock only that file
+		synchronized (section) {
 			try {
 				Valid.checkBoolean(!this.loading, "Called load(" + file + ") on already being loaded configuration!");
 				this.loading = true;
 
 				final FileInputStream stream = new FileInputStream(file);
-				final String path = file.getAbsolutePath();
-				boolean loadedBefore = false;
-				ConfigSection section = loadedSections.get(path);
-
-				if (section == null) {
-					section = new ConfigSection();
-
-					loadedSections.put(path, section);
-				}
-
-				else {
-					loadedBefore = true;
-				}
 
 				this.section = section;
+				this.convertedValues.clear();
 				this.file = file;
 
 				if (!loadedBefore || this.alwaysLoad){
@@ -1316,7 +1404,10 @@ public abstract class FileConfig {
 	}
 
 	/**
-	 * Save the configuration to the file immediately (you need to call loadConfiguration(File) first)
+	 * Save the configuration to the file (you need to call loadConfiguration(File) first).
+	 * We snapshot it now and write it shortly after on a background thread, saving many
+	 * times in a row writes the file once. When the plugin is disabled we write it immediately.
+	 * Nothing is written if no value changed since the last save.
 	 */
 	public final void save() {
 		if (this.file == null && this.skipSaveIfNoFile()) {
@@ -1334,7 +1425,7 @@ public abstract class FileConfig {
 	 * @param file
 	 */
 	public final void save(@NonNull File file) {
-		synchronized (loadedSections) {
+		synchronized (this.section) {
 
 			if (this.saving)
 				return;
@@ -1362,20 +1453,17 @@ public abstract class FileConfig {
 						this.saving = false;
 					}
 
-					final File parent = file.getCanonicalFile().getParentFile();
+					// Nothing changed since we last saved, skip rendering the file again
+					if (this.section.isDirty() || !file.equals(this.file) || !file.exists()) {
+						final ConfigWriter.RenderTask task = this.createSaveTask(file);
 
-					if (parent != null)
-						parent.mkdirs();
+						this.section.clearDirty();
 
-					final String data = this.saveToString();
-
-					if (data != null){
-						try (Writer writer = new OutputStreamWriter(Files.newOutputStream(file.toPath()), StandardCharsets.UTF_8)) {
-							writer.write(data);
-
-						} catch (final Exception ex) {
-							Remain.sneaky(ex);
-						}
+						// Render and write in the background, or now when the plugin is stopping
+						if (SimplePlugin.hasInstance() && SimplePlugin.getInstance().isEnabled())
+							ConfigWriter.submit(file, task);
+						else
+							ConfigWriter.write(file, task);
 					}
 
 					// Update file
@@ -1390,6 +1478,15 @@ public abstract class FileConfig {
 		}
 	}
 
+	/*
+	 * Snapshot the configuration for the writer, by default we render it right away
+	 */
+	ConfigWriter.RenderTask createSaveTask(File file) {
+		final String data = this.saveToString();
+
+		return () -> data;
+	}
+
 	/**
 	 * Return true if we should always save the file after loading it.
 	 *
@@ -1856,6 +1953,7 @@ public abstract class FileConfig {
 			}
 
 			copyConfig.save(copy);
+			ConfigWriter.flush(copy);
 		} else {
 			Files.copy(file.toPath(), copy.toPath(), StandardCopyOption.REPLACE_EXISTING);
 		}
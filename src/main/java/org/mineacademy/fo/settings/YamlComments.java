@@ -16,7 +16,6 @@ import org.yaml.snakeyaml.Yaml;
 
 import javax.annotation.Nullable;
 import java.io.*;
-import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 /**
@@ -33,14 +32,15 @@ import java.util.*;
 final class YamlComments {
 
 	/**
-	 * Update a yaml file from a resource inside your plugin jar
+	 * Render the content of a yaml file updated from a resource inside your plugin jar
 	 *
 	 * @param resourceName The yaml file name to update from, typically config.yml
 	 * @param toUpdate The yaml file to update
 	 * @param ignoredSections The sections to ignore from being forcefully updated & comments set
+	 * @return the updated content to write to the file
 	 */
 	@SneakyThrows
-	public static void writeComments(@NonNull String resourceName, @NonNull File toUpdate, @NonNull List<String> ignoredSections) {
+	public static String renderComments(@NonNull String resourceName, @NonNull File toUpdate, @NonNull List<String> ignoredSections) {
 
 		final List<String> newLines = FileUtil.getInternalFileContent(resourceName);
 
@@ -62,7 +62,8 @@ final class YamlComments {
 			Remain.sneaky(t);
 		}
 
-		final BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(toUpdate), StandardCharsets.UTF_8));
+		final StringWriter output = new StringWriter();
+		final BufferedWriter writer = new BufferedWriter(output);
 
 		// ignoredSections can ONLY contain configurations sections
 		for (final String ignoredSection : ignoredSections)
@@ -106,6 +107,8 @@ final class YamlComments {
 		final Map<String, String> comments = parseComments(newLines, currentConfig);
 
 		write(defaultConfig, currentConfig, comments, ignoredSections, writer, yaml);
+
+		return output.toString();
 	}
 
 	// Write method doing the work.
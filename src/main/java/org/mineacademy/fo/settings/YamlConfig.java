@@ -6,6 +6,7 @@ import org.bukkit.configuration.serialization.ConfigurationSerializable;
 import org.bukkit.configuration.serialization.ConfigurationSerialization;
 import org.mineacademy.fo.FileUtil;
 import org.mineacademy.fo.ReflectionUtil;
+import org.mineacademy.fo.remain.Remain;
 import org.yaml.snakeyaml.DumperOptions;
 import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
@@ -247,31 +248,52 @@ public class YamlConfig extends FileConfig {
 	/*
 	 * Dumps all values in this config into a saveable format
 	 */
-	@NonNull
 	@Override
 	public final String saveToString() {
+		try {
+			return this.createSaveTask(this.file).render();
+
+		} catch (final Exception ex) {
+			Remain.sneaky(ex);
+
+			return null;
+		}
+	}
+
+	/*
+	 * Snapshot the values now and dump them when the writer asks for them
+	 */
+	@Override
+	final ConfigWriter.RenderTask createSaveTask(File file) {
 
 		// Do not use comments
 		if (this.defaults == null || !this.saveComments()) {
 			final String header = this.getHeader() == null ? "" : "# " + String.join("\n# ", this.getHeader().split("\n")) + "\n\n";
-			final Map<String, Object> values = this.section.getValues(false);
+			final Map<String, Object> values = this.section.copy().getValues(false);
 
 			if (!this.saveEmptyValues)
 				removeEmptyValues(values);
 
-			String dump = this.yaml.dump(values);
+			return () -> {
+				String dump;
 
-			// Blank config
-			if (dump.equals("{}\n"))
-				dump = "";
+				synchronized (this.yaml) {
+					dump = this.yaml.dump(values);
+				}
+
+				// Blank config
+				if (dump.equals("{}\n"))
+					dump = "";
 
-			return header + dump;
+				return header + dump;
+			};
 		}
 
 		// Special case, write using comments engine
-		YamlComments.writeComments(this.defaultsPath, this.file, this.getUncommentedSections());
+		final String defaultsPath = this.defaultsPath;
+		final List<String> uncommentedSections = new ArrayList<>(this.getUncommentedSections());
 
-		return null;
+		return () -> YamlComments.renderComments(defaultsPath, file, uncommentedSections);
 	}
 
 	/*
@@ -312,7 +334,9 @@ public class YamlConfig extends FileConfig {
 		Map<?, ?> input;
 
 		try {
-			input = (Map<?, ?>) this.yaml.load(contents);
+			synchronized (this.yaml) {
+				input = (Map<?, ?>) this.yaml.load(contents);
+			}
 
 		} catch (final YAMLException ex) {
 			throw ex;
@@ -326,7 +350,7 @@ public class YamlConfig extends FileConfig {
 		if (header.trim().length() > 0)
 			this.setHeader(header);
 
-		this.section.map.clear();
+		this.section.clear();
 
 		if (input != null)
 			this.convertMapsToSections(input, this.section);